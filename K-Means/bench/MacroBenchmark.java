@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import database.ConnectionPool;
+import database.DatabaseConnectionException;
+import database.DbAccess;
+import database.TableSchema;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import mining.KMeansMiner;
+import mining.KMeansPlusPlusSeeding;
+import mining.SeedingStrategy;
+
+/**
+ * <p>Misura le prestazioni dell'intero processo di clustering su una base di 
+ * dati JDBC incorporata (H2 per impostazione predefinita), senza bisogno del 
+ * server MySQL: genera una tabella sintetica, la carica tramite 
+ * {@code TableSchema} e {@code TableData}, esegue l'algoritmo k-means, salva il
+ * modello e lo ricarica. Per ciascuna fase riporta il tempo impiegato, il 
+ * numero di righe elaborate al secondo e il picco di memoria heap occupata.
+ * Per la fase delle iterazioni le righe elaborate sono le assegnazioni, cioè
+ * il numero di righe per il numero di iterazioni.
+ * <p>La configurazione è letta dalle proprietà di sistema:
+ * <ul>
+ * <li>{@code macro.rows}: numero di righe della tabella (100000);</li>
+ * <li>{@code macro.k}: numero di cluster (8);</li>
+ * <li>{@code macro.continuous}, {@code macro.discrete}: numero di attributi
+ * continui e discreti (4 e 4);</li>
+ * <li>{@code macro.cardinality}: numero di valori distinti di ciascun 
+ * attributo discreto (16);</li>
+ * <li>{@code macro.skew}: esponente della distribuzione di Zipf con cui le 
+ * righe sono ripartite tra i gruppi generati e i valori discreti tra quelli 
+ * del dominio, 0 per una ripartizione uniforme (1.0);</li>
+ * <li>{@code macro.parallelism}: numero di thread dell'algoritmo (1);</li>
+ * <li>{@code macro.seed}: seme del generatore pseudo-casuale (42);</li>
+ * <li>{@code macro.db.driver}, {@code macro.db.url}, {@code macro.db.user},
+ * {@code macro.db.password}: accesso alla base di dati incorporata.</li>
+ * </ul>
+ * @author Andrea Mercanti
+ */
+public class MacroBenchmark {
+    /**Nome della tabella sintetica*/
+    private static final String TABLE = "synthetic";
+    /**Numero di righe inserite per ciascun batch*/
+    private static final int BATCH_SIZE = 1000;
+
+    /**Numero di righe della tabella*/
+    private final int rows = Integer.getInteger("macro.rows", 100000);
+    /**Numero di cluster*/
+    private final int k = Integer.getInteger("macro.k", 8);
+    /**Numero di attributi continui*/
+    private final int continuous = Integer.getInteger("macro.continuous", 4);
+    /**Numero di attributi discreti*/
+    private final int discrete = Integer.getInteger("macro.discrete", 4);
+    /**Numero di valori distinti di ciascun attributo discreto*/
+    private final int cardinality = Integer.getInteger("macro.cardinality", 16);
+    /**Esponente della distribuzione di Zipf dei gruppi e dei valori discreti*/
+    private final double skew = Double.parseDouble(System.getProperty("macro.skew", "1.0"));
+    /**Numero di thread dell'algoritmo*/
+    private final int parallelism = Integer.getInteger("macro.parallelism", 1);
+    /**Seme del generatore pseudo-casuale*/
+    private final long seed = Long.getLong("macro.seed", 42L);
+
+    /**
+     * <p>Esegue il benchmark con la configurazione letta dalle proprietà di 
+     * sistema e ne stampa i risultati.
+     * @param args non usati.
+     */
+    public static void main(String[] args) {
+        ConnectionPool pool = new ConnectionPool(System.getProperty("macro.db.driver", "org.h2.Driver"),
+                                                 System.getProperty("macro.db.url", "jdbc:h2:mem:macro;DB_CLOSE_DELAY=-1"),
+                                                 System.getProperty("macro.db.user", "sa"),
+                                                 System.getProperty("macro.db.password", ""), 2, 60000);
+        try {
+            new MacroBenchmark().run(new DbAccess(pool));
+        } catch (SQLException | DatabaseConnectionException | OutOfRangeSampleSize | IOException | ClassNotFoundException ex) {
+            ex.printStackTrace();
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * <p>Esegue in sequenza le fasi del benchmark sulla base di dati a cui si
+     * accede tramite {@code db}.
+     * @param db accesso alla base di dati incorporata.
+     */
+    void run(DbAccess db) throws SQLException, DatabaseConnectionException, OutOfRangeSampleSize, IOException, ClassNotFoundException {
+        System.out.println("rows=" + rows + " k=" + k + " continuous=" + continuous + " discrete=" + discrete
+                           + " cardinality=" + cardinality + " skew=" + skew + " parallelism=" + parallelism);
+        System.out.println(String.format("%-12s %10s %14s %14s", "stage", "ms", "rows/s", "peak heap MB"));
+        
+        Stage stage = new Stage("insert");
+        db.initConnection();
+        try {
+            populate(db.getConnection());
+            stage.end(rows);
+            
+            stage = new Stage("schema");
+            new TableSchema(db, TABLE);
+            stage.end(0);
+        } finally {
+            db.closeConnection();
+        }
+        
+        stage = new Stage("load");
+        Data data = new Data(TABLE, db);
+        int n = data.getNumberOfExamples();
+        stage.end(n);
+        
+        TimedSeeding seeding = new TimedSeeding(new KMeansPlusPlusSeeding());
+        KMeansMiner miner = new KMeansMiner(k, parallelism);
+        miner.setSeed(seed);
+        miner.setSeeding(seeding);
+        stage = new Stage("seeding");
+        seeding.stage = stage;
+        int iterations = miner.kmeans(data);
+        seeding.next.end((long) n * iterations);
+        
+        File model = File.createTempFile("macro", ".dmp");
+        try {
+            stage = new Stage("salva");
+            miner.salva(model.getPath());
+            stage.end(n);
+            
+            stage = new Stage("reload");
+            new KMeansMiner(model.getPath());
+            stage.end(n);
+            System.out.println("iterations=" + iterations + " model bytes=" + model.length());
+        } finally {
+            model.delete();
+        }
+    }
+
+    /**
+     * <p>Crea la tabella sintetica, sostituendo quella eventualmente presente,
+     * e la popola a batch di {@link #BATCH_SIZE} righe. Ogni riga appartiene a
+     * uno di k gruppi, scelto secondo la distribuzione di Zipf con esponente 
+     * {@link #skew}: i valori continui seguono una distribuzione normale attorno
+     * al centro del gruppo, quelli discreti coincidono con il valore tipico del 
+     * gruppo con probabilità 3/4 e sono altrimenti scelti nel dominio con la 
+     * stessa distribuzione di Zipf.
+     * @param conn connessione alla base di dati.
+     * @throws SQLException se la creazione o il popolamento falliscono.
+     */
+    private void populate(Connection conn) throws SQLException {
+        try (Statement s = conn.createStatement()) {
+            s.executeUpdate("DROP TABLE " + TABLE);
+        } catch (SQLException ex) {
+            //la tabella non esiste ancora
+        }
+        StringBuilder ddl = new StringBuilder("CREATE TABLE " + TABLE + " (");
+        StringBuilder insert = new StringBuilder("INSERT INTO " + TABLE + " VALUES (");
+        for (int j = 0; j < continuous + discrete; j++) {
+            ddl.append(j > 0 ? ", " : "").append(j < continuous ? "c" + j + " DOUBLE" : "d" + j + " VARCHAR(16)");
+            insert.append(j > 0 ? ", ?" : "?");
+        }
+        try (Statement s = conn.createStatement()) {
+            s.executeUpdate(ddl.append(")").toString());
+        }
+        
+        Random rand = new Random(seed);
+        double groups[] = zipf(k), values[] = zipf(cardinality);
+        double means[][] = new double[k][continuous];
+        int modes[][] = new int[k][discrete];
+        for (int c = 0; c < k; c++) {
+            for (int j = 0; j < continuous; j++)
+                means[c][j] = rand.nextDouble() * 100.0;
+            for (int j = 0; j < discrete; j++)
+                modes[c][j] = rand.nextInt(cardinality);
+        }
+        
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement s = conn.prepareStatement(insert.append(")").toString())) {
+            for (int i = 0; i < rows; i++) {
+                int group = draw(groups, rand);
+                for (int j = 0; j < continuous; j++)
+                    s.setDouble(j + 1, means[group][j] + rand.nextGaussian() * 5.0);
+                for (int j = 0; j < discrete; j++) {
+                    int value = rand.nextInt(4) == 0 ? draw(values, rand) : modes[group][j];
+                    s.setString(continuous + j + 1, "v" + value);
+                }
+                s.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0)
+                    s.executeBatch();
+            }
+            s.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * <p>Calcola la distribuzione cumulativa di Zipf su {@code size} elementi 
+     * con esponente {@link #skew}.
+     * @param size numero di elementi.
+     * @return le probabilità cumulate di ciascun elemento.
+     */
+    private double[] zipf(int size) {
+        double cumulative[] = new double[size], total = 0.0;
+        for (int i = 0; i < size; i++) {
+            total += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < size; i++)
+            cumulative[i] /= total;
+        return cumulative;
+    }
+
+    /**
+     * <p>Estrae un elemento secondo la distribuzione cumulativa {@code cumulative}.
+     * @param cumulative probabilità cumulate degli elementi.
+     * @param rand generatore pseudo-casuale.
+     * @return l'indice dell'elemento estratto.
+     */
+    private static int draw(double[] cumulative, Random rand) {
+        double u = rand.nextDouble();
+        int i = 0;
+        while (i < cumulative.length - 1 && cumulative[i] < u)
+            i++;
+        return i;
+    }
+
+    /**
+     * <p>Misura una fase del benchmark: il tempo trascorso dalla creazione e il
+     * picco di memoria heap occupata nel frattempo.
+     */
+    private static class Stage {
+        /**Nome della fase*/
+        private final String name;
+        /**Istante di inizio della fase, in nanosecondi*/
+        private final long start;
+
+        /**
+         * <p>Inizia la fase {@code name}, azzerando i picchi di memoria registrati.
+         * @param name nome della fase.
+         */
+        Stage(String name) {
+            this.name = name;
+            for (MemoryPoolMXBean memory : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (memory.getType() == MemoryType.HEAP)
+                    memory.resetPeakUsage();
+            }
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * <p>Termina la fase e ne stampa i risultati.
+         * @param processed numero di righe elaborate nella fase, 0 se non significativo.
+         */
+        void end(long processed) {
+            long elapsed = System.nanoTime() - start;
+            long peak = 0;
+            for (MemoryPoolMXBean memory : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (memory.getType() == MemoryType.HEAP)
+                    peak += memory.getPeakUsage().getUsed();
+            }
+            System.out.println(String.format("%-12s %10.1f %14s %14.1f", name, elapsed / 1e6,
+                                             processed > 0 ? String.format("%.0f", processed / (elapsed / 1e9)) : "-",
+                                             peak / (1024.0 * 1024.0)));
+        }
+    }
+
+    /**
+     * <p>Strategia di scelta dei centroidi iniziali che delega a un'altra 
+     * strategia e, al termine della scelta, chiude la fase di seeding e apre 
+     * quella delle iterazioni, così da separarne i tempi.
+     */
+    private static class TimedSeeding implements SeedingStrategy {
+        /**Strategia a cui delegare la scelta*/
+        private final SeedingStrategy delegate;
+        /**Fase di seeding in corso*/
+        private Stage stage;
+        /**Fase delle iterazioni, iniziata al termine della scelta*/
+        private Stage next;
+
+        /**
+         * <p>Crea la strategia che delega a {@code delegate}.
+         * @param delegate strategia a cui delegare la scelta.
+         */
+        TimedSeeding(SeedingStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int[] select(Data data, int k, long seed, ForkJoinPool pool) throws OutOfRangeSampleSize {
+            try {
+                return delegate.select(data, k, seed, pool);
+            } finally {
+                stage.end(data.getNumberOfExamples());
+                next = new Stage("iterations");
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Misura il calcolo delle distanze tra una tupla e le righe di una tabella
+ * sintetica: la distanza tra tuple materializzate, quella tra una tupla e una 
+ * riga letta direttamente dalle colonne e quella dei singoli item continui e 
+ * discreti, oltre alle distanze di una riga da tutti i centroidi di un 
+ * insieme, calcolate tupla per tupla, con il {@link CentroidKernel} scalare 
+ * o con il nucleo restituito da {@link CentroidKernel#create(Tuple[], Data)},
+ * vettoriale se la JVM dispone di {@code jdk.incubator.vector}. Ogni 
+ * operazione confronta il centroide con la riga successiva della tabella, 
+ * scorrendola ciclicamente.
+ * @author Andrea Mercanti
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+    /**Numero di tuple della tabella*/
+    @Param({"10000", "200000"})
+    public int n;
+    /**Numero di attributi continui*/
+    @Param({"4"})
+    public int continuous;
+    /**Numero di attributi discreti*/
+    @Param({"4"})
+    public int discrete;
+    /**Numero di valori distinti di ciascun attributo discreto*/
+    @Param({"8", "64"})
+    public int cardinality;
+
+    /**Tabella sintetica*/
+    private Data data;
+    /**Tupla con cui confrontare le righe, come un centroide*/
+    private Tuple centroid;
+    /**Tuple materializzate delle prime righe della tabella*/
+    private Tuple[] tuples;
+    /**Centroidi di un insieme di cluster, presi dalle prime righe della tabella*/
+    private Tuple[] centroids;
+    /**Centroidi dell'insieme in forma primitiva*/
+    private CentroidKernel kernel;
+    /**Centroidi dell'insieme nel nucleo scelto da {@link CentroidKernel#create(Tuple[], Data)}*/
+    private DistanceKernel createdKernel;
+    /**Distanze di una riga da ciascun centroide dell'insieme*/
+    private double[] distances;
+    /**Item del primo attributo continuo del centroide*/
+    private Item continuousItem;
+    /**Item del primo attributo discreto del centroide*/
+    private Item discreteItem;
+    /**Riga da confrontare nella prossima operazione*/
+    private int row;
+
+    /**
+     * <p>Genera la tabella e materializza il centroide e le prime tuple.
+     */
+    @Setup
+    public void setUp() {
+        data = SyntheticData.generate(n, continuous, discrete, cardinality, 8, 42);
+        centroid = data.getItemSet(0);
+        tuples = new Tuple[Math.min(n, 1024)];
+        for (int i = 0; i < tuples.length; i++)
+            tuples[i] = data.getItemSet(i);
+        centroids = new Tuple[Math.min(n, 16)];
+        System.arraycopy(tuples, 0, centroids, 0, centroids.length);
+        kernel = new CentroidKernel(centroids, data);
+        createdKernel = CentroidKernel.create(centroids, data);
+        distances = new double[centroids.length];
+        continuousItem = continuous > 0 ? centroid.get(0) : null;
+        discreteItem = discrete > 0 ? centroid.get(continuous) : null;
+    }
+
+    /**
+     * <p>Restituisce l'indice della prossima riga da confrontare.
+     * @param size numero di righe da scorrere ciclicamente.
+     * @return l'indice di riga.
+     */
+    private int next(int size) {
+        int i = row < size ? row : 0;
+        row = i + 1;
+        return i;
+    }
+
+    /**
+     * <p>Distanza tra il centroide e una tupla materializzata.
+     * @return la distanza calcolata.
+     */
+    @Benchmark
+    public double tupleToTuple() {
+        return centroid.getDistance(tuples[next(tuples.length)]);
+    }
+
+    /**
+     * <p>Distanza tra il centroide e una riga letta dalle colonne della tabella.
+     * @return la distanza calcolata.
+     */
+    @Benchmark
+    public double tupleToRow() {
+        return centroid.getDistance(data, next(n));
+    }
+
+    /**
+     * <p>Distanze di una riga da tutti i centroidi dell'insieme, calcolate 
+     * tupla per tupla.
+     * @return le distanze calcolate.
+     */
+    @Benchmark
+    public double[] rowToCentroids() {
+        int i = next(n);
+        for (int c = 0; c < centroids.length; c++)
+            distances[c] = centroids[c].getDistance(data, i);
+        return distances;
+    }
+
+    /**
+     * <p>Distanze di una riga da tutti i centroidi dell'insieme, calcolate in
+     * una volta dal nucleo primitivo.
+     * @return le distanze calcolate.
+     */
+    @Benchmark
+    public double[] rowToKernel() {
+        kernel.distances(next(n), distances);
+        return distances;
+    }
+
+    /**
+     * <p>Distanze di una riga da tutti i centroidi dell'insieme, calcolate in
+     * una volta dal nucleo vettoriale, se disponibile.
+     * @return le distanze calcolate.
+     */
+    @Benchmark
+    public double[] rowToCreatedKernel() {
+        createdKernel.distances(next(n), distances);
+        return distances;
+    }
+
+    /**
+     * <p>Distanza tra l'item continuo del centroide e il valore di una riga.
+     * @return la distanza calcolata.
+     */
+    @Benchmark
+    public double continuousItem() {
+        return continuousItem.distance(data, next(n));
+    }
+
+    /**
+     * <p>Distanza tra l'item continuo del centroide e quello di una tupla 
+     * materializzata.
+     * @return la distanza calcolata.
+     */
+    @Benchmark
+    public double continuousItemToItem() {
+        return continuousItem.distance(tuples[next(tuples.length)].get(0));
+    }
+
+    /**
+     * <p>Distanza tra l'item discreto del centroide e il valore di una riga.
+     * @return la distanza calcolata.
+     */
+    @Benchmark
+    public double discreteItem() {
+        return discreteItem.distance(data, next(n));
+    }
+
+    /**
+     * <p>Distanza tra l'item discreto del centroide e quello di una tupla 
+     * materializzata.
+     * @return la distanza calcolata.
+     */
+    @Benchmark
+    public double discreteItemToItem() {
+        return discreteItem.distance(tuples[next(tuples.length)].get(continuous));
+    }
+}
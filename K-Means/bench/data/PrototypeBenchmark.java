@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Misura il calcolo del prototipo di un cluster che contiene 1/k delle 
+ * tuple di una tabella sintetica: con {@code Data.computePrototype} 
+ * sull'insieme degli indici di riga, attributo per attributo, e con le 
+ * statistiche sufficienti di {@link PrototypeAccumulator}.
+ * @author Andrea Mercanti
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrototypeBenchmark {
+    /**Numero di tuple della tabella*/
+    @Param({"10000", "200000"})
+    public int n;
+    /**Numero di cluster tra cui sono ripartite le tuple*/
+    @Param({"8"})
+    public int k;
+    /**Numero di attributi continui*/
+    @Param({"4"})
+    public int continuous;
+    /**Numero di attributi discreti*/
+    @Param({"4"})
+    public int discrete;
+    /**Numero di valori distinti di ciascun attributo discreto*/
+    @Param({"8", "64"})
+    public int cardinality;
+
+    /**Tabella sintetica*/
+    private Data data;
+    /**Indici di riga delle tuple del cluster*/
+    private Set<Integer> members;
+    /**Statistiche sufficienti del cluster, da ricalcolare a ogni operazione*/
+    private PrototypeAccumulator accumulator;
+    /**Centroide da aggiornare*/
+    private Tuple centroid;
+
+    /**
+     * <p>Genera la tabella e sceglie le tuple del cluster, una ogni k righe.
+     */
+    @Setup
+    @SuppressWarnings("Convert2Diamond")
+    public void setUp() {
+        data = SyntheticData.generate(n, continuous, discrete, cardinality, k, 42);
+        members = new HashSet<Integer>();
+        for (int i = 0; i < n; i += k)
+            members.add(i);
+        accumulator = new PrototypeAccumulator(data);
+        centroid = data.getItemSet(0);
+    }
+
+    /**
+     * <p>Prototipo di tutti gli attributi calcolato sull'insieme degli indici.
+     * @return il prototipo dell'ultimo attributo.
+     */
+    @Benchmark
+    public Object computePrototype() {
+        Object prototype = null;
+        for (int j = 0; j < data.getNumberOfExplanatoryAttributes(); j++)
+            prototype = data.computePrototype(members, data.getAttribute(j));
+        return prototype;
+    }
+
+    /**
+     * <p>Prototipo di tutti gli attributi calcolato accumulando da zero le 
+     * statistiche sufficienti del cluster.
+     * @return lo spostamento del centroide.
+     */
+    @Benchmark
+    public double accumulatePrototype() {
+        accumulator.clear();
+        for (Integer id : members)
+            accumulator.add(id);
+        return accumulator.updatePrototype(centroid);
+    }
+}
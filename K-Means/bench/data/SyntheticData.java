@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * <p>Genera tabelle sintetiche con attributi continui e discreti, le cui tuple
+ * sono raccolte attorno a un numero prefissato di centri, così da poter 
+ * misurare le prestazioni dell'algoritmo senza accedere ad alcuna base di dati.
+ * @author Andrea Mercanti
+ */
+public class SyntheticData {
+    
+    /**
+     * <p>Genera una tabella di {@code n} tuple distribuite attorno a 
+     * {@code centers} centri: i valori continui seguono una distribuzione 
+     * normale attorno al centro della tupla, i valori discreti coincidono con 
+     * quello del centro con probabilità 3/4 e sono altrimenti scelti a caso 
+     * tra gli {@code cardinality} valori del dominio. Come le tabelle lette 
+     * dalla base di dati, la tabella conserva solo i valori continui 
+     * normalizzati, così che i benchmark ne misurino l'occupazione di memoria
+     * effettiva.
+     * @param n numero di tuple.
+     * @param continuous numero di attributi continui.
+     * @param discrete numero di attributi discreti.
+     * @param cardinality numero di valori distinti di ciascun attributo discreto.
+     * @param centers numero di centri attorno a cui raccogliere le tuple.
+     * @param seed seme del generatore pseudo-casuale.
+     * @return la tabella generata.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    public static Data generate(int n, int continuous, int discrete, int cardinality, int centers, long seed) {
+        Random rand = new Random(seed);
+        int m = continuous + discrete;
+        List<Attribute> attributes = new ArrayList<Attribute>(m);
+        double continuousColumns[][] = new double[m][];
+        int discreteColumns[][] = new int[m][];
+        int center[] = new int[n];
+        for (int i = 0; i < n; i++)
+            center[i] = rand.nextInt(centers);
+        
+        for (int j = 0; j < continuous; j++) {
+            double means[] = new double[centers];
+            for (int c = 0; c < centers; c++)
+                means[c] = rand.nextDouble() * 100.0;
+            double column[] = new double[n];
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                column[i] = means[center[i]] + rand.nextGaussian() * 5.0;
+                min = Math.min(min, column[i]);
+                max = Math.max(max, column[i]);
+            }
+            continuousColumns[j] = column;
+            attributes.add(new ContinuousAttribute("c" + j, j, min, max));
+        }
+        
+        TreeSet<String> values = new TreeSet<String>();
+        for (int v = 0; v < cardinality; v++)
+            values.add("v" + v);
+        for (int j = continuous; j < m; j++) {
+            DiscreteAttribute attribute = new DiscreteAttribute("d" + j, j, values);
+            int modes[] = new int[centers];
+            for (int c = 0; c < centers; c++)
+                modes[c] = rand.nextInt(cardinality);
+            int column[] = new int[n];
+            for (int i = 0; i < n; i++)
+                column[i] = rand.nextInt(4) == 0 ? rand.nextInt(cardinality) : modes[center[i]];
+            discreteColumns[j] = column;
+            attributes.add(attribute);
+        }
+        Data data = new Data(attributes, continuousColumns, discreteColumns, n);
+        data.discardOriginalValues();
+        return data;
+    }
+}
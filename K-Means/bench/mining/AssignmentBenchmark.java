@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SyntheticData;
+import data.Tuple;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Misura la ricerca del cluster più vicino su una tabella sintetica: per 
+ * una singola tupla materializzata o letta dalle colonne e per un intero passo
+ * di assegnazione, con e senza i limiti di Hamerly, a partire da centroidi già
+ * convergenti (il costo di ciascuna iterazione a regime).
+ * @author Andrea Mercanti
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignmentBenchmark {
+    /**Numero di tuple della tabella*/
+    @Param({"10000", "200000"})
+    public int n;
+    /**Numero di cluster*/
+    @Param({"4", "16"})
+    public int k;
+    /**Numero di attributi continui*/
+    @Param({"4"})
+    public int continuous;
+    /**Numero di attributi discreti*/
+    @Param({"4"})
+    public int discrete;
+    /**Numero di valori distinti di ciascun attributo discreto*/
+    @Param({"8"})
+    public int cardinality;
+
+    /**Tabella sintetica*/
+    private Data data;
+    /**Insieme dei cluster convergente, senza limiti di Hamerly*/
+    private ClusterSet plain;
+    /**Insieme dei cluster convergente, con i limiti di Hamerly*/
+    private ClusterSet pruned;
+    /**Tuple materializzate delle prime righe della tabella*/
+    private Tuple[] tuples;
+    /**Riga da assegnare nella prossima operazione*/
+    private int row;
+
+    /**
+     * <p>Genera la tabella e porta a convergenza i due insiemi di cluster.
+     * @throws OutOfRangeSampleSize se la tabella ha meno di k tuple distinte.
+     */
+    @Setup
+    public void setUp() throws OutOfRangeSampleSize {
+        data = SyntheticData.generate(n, continuous, discrete, cardinality, k, 42);
+        plain = converged(false);
+        pruned = converged(true);
+        tuples = new Tuple[Math.min(n, 1024)];
+        for (int i = 0; i < tuples.length; i++)
+            tuples[i] = data.getItemSet(i);
+    }
+
+    /**
+     * <p>Costruisce un insieme di k cluster e lo porta a convergenza.
+     * @param pruning vero per usare i limiti di Hamerly.
+     * @return l'insieme dei cluster.
+     * @throws OutOfRangeSampleSize se la tabella ha meno di k tuple distinte.
+     */
+    private ClusterSet converged(boolean pruning) throws OutOfRangeSampleSize {
+        ClusterSet C = new ClusterSet(k);
+        C.initializeCentroids(data, new KMeansPlusPlusSeeding(), 42, null);
+        C.setPruning(pruning);
+        C.converge(data, null);
+        return C;
+    }
+
+    /**
+     * <p>Restituisce l'indice della prossima riga da assegnare.
+     * @param size numero di righe da scorrere ciclicamente.
+     * @return l'indice di riga.
+     */
+    private int next(int size) {
+        int i = row < size ? row : 0;
+        row = i + 1;
+        return i;
+    }
+
+    /**
+     * <p>Cluster più vicino a una tupla materializzata.
+     * @return il cluster più vicino.
+     */
+    @Benchmark
+    public Cluster nearestClusterOfTuple() {
+        return plain.nearestCluster(tuples[next(tuples.length)]);
+    }
+
+    /**
+     * <p>Cluster più vicino a una riga letta dalle colonne della tabella.
+     * @return la posizione del cluster più vicino.
+     */
+    @Benchmark
+    public int nearestIndexOfRow() {
+        return plain.nearestIndex(data, next(n));
+    }
+
+    /**
+     * <p>Passo di assegnazione di tutte le righe calcolando tutte le distanze.
+     * @return il numero di righe che hanno cambiato cluster.
+     */
+    @Benchmark
+    public int assignmentStep() {
+        return plain.assign(data, null);
+    }
+
+    /**
+     * <p>Passo di assegnazione di tutte le righe con i limiti di Hamerly.
+     * @return il numero di righe che hanno cambiato cluster.
+     */
+    @Benchmark
+    public int assignmentStepPruned() {
+        return pruned.assign(data, null);
+    }
+}
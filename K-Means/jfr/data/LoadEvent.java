@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>Evento di JDK Flight Recorder che registra una fase della costruzione di 
+ * una tabella {@link Data}: la lettura dell'istantanea, la lettura in 
+ * streaming delle transazioni, la definizione degli attributi con la 
+ * ricodifica delle colonne discrete e la scrittura dell'istantanea.
+ * <p>La classe è compilata a parte e viene creata per riflessione da 
+ * {@link LoadProbe#EVENTS}.
+ * @author Andrea Mercanti
+ */
+@Name("kmeans.data.Load")
+@Label("Caricamento della tabella")
+@Category({"K-Means", "Data"})
+@Description("Fase della costruzione di una tabella")
+class LoadEvent extends Event implements LoadProbe {
+    /**Nome della tabella*/
+    @Label("Tabella")
+    String table;
+    /**Nome della fase*/
+    @Label("Fase")
+    String stage;
+    /**Numero di righe della tabella note al termine della fase*/
+    @Label("Righe")
+    long rows;
+
+    /**
+     * <p>Conclude l'evento e, se deve essere registrato, ne imposta i campi e
+     * lo registra.
+     * @param table nome della tabella.
+     * @param stage nome della fase.
+     * @param rows numero di righe della tabella note al termine della fase.
+     */
+    @Override
+    public void complete(String table, String stage, long rows) {
+        end();
+        if (shouldCommit()) {
+            this.table = table;
+            this.stage = stage;
+            this.rows = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>Evento di JDK Flight Recorder che registra un'interrogazione eseguita da
+ * {@link TableData}: il testo SQL, il numero di righe lette, la dimensione 
+ * stimata dei valori letti e la durata, dall'esecuzione alla lettura 
+ * dell'ultima riga. Se la registrazione dell'evento non è abilitata il costo 
+ * si riduce alla creazione dell'oggetto.
+ * <p>La classe è compilata a parte e viene creata per riflessione da 
+ * {@link QueryProbe#EVENTS}.
+ * @author Andrea Mercanti
+ */
+@Name("kmeans.database.Query")
+@Label("Interrogazione")
+@Category({"K-Means", "Database"})
+@Description("Interrogazione eseguita sulla base di dati")
+class QueryEvent extends Event implements QueryProbe {
+    /**Testo dell'interrogazione*/
+    @Label("SQL")
+    String sql;
+    /**Numero di righe lette*/
+    @Label("Righe")
+    long rows;
+    /**Dimensione stimata dei valori letti*/
+    @Label("Byte")
+    @DataAmount
+    @Description("Dimensione stimata dei valori letti: 8 byte per numero, 2 per carattere")
+    long bytes;
+
+    /**
+     * <p>Conclude l'evento e, se deve essere registrato, ne imposta i campi e
+     * lo registra.
+     * @param sql testo dell'interrogazione.
+     * @param rows numero di righe lette.
+     * @param bytes dimensione stimata dei valori letti.
+     */
+    @Override
+    public void complete(String sql, long rows, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.sql = sql;
+            this.rows = rows;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>Evento di JDK Flight Recorder che registra un'iterazione dell'algoritmo 
+ * k-means, cioè un passo di assegnazione seguito dal calcolo dei nuovi 
+ * centroidi, con il numero di tuple che hanno cambiato cluster.
+ * <p>La classe è compilata a parte e viene creata per riflessione da 
+ * {@link IterationProbe#EVENTS}.
+ * @author Andrea Mercanti
+ */
+@Name("kmeans.mining.Iteration")
+@Label("Iterazione")
+@Category({"K-Means", "Mining"})
+@Description("Iterazione dell'algoritmo k-means")
+class IterationEvent extends Event implements IterationProbe {
+    /**Numero ordinale dell'iterazione*/
+    @Label("Iterazione")
+    int iteration;
+    /**Numero di cluster*/
+    @Label("Cluster")
+    int clusters;
+    /**Numero di righe della tabella*/
+    @Label("Righe")
+    int rows;
+    /**Numero di righe che hanno cambiato cluster*/
+    @Label("Righe spostate")
+    int moved;
+
+    /**
+     * <p>Conclude l'evento e, se deve essere registrato, ne imposta i campi e
+     * lo registra.
+     * @param iteration numero ordinale dell'iterazione.
+     * @param clusters numero di cluster.
+     * @param rows numero di righe della tabella.
+     * @param moved numero di righe che hanno cambiato cluster.
+     */
+    @Override
+    public void complete(int iteration, int clusters, int rows, int moved) {
+        end();
+        if (shouldCommit()) {
+            this.iteration = iteration;
+            this.clusters = clusters;
+            this.rows = rows;
+            this.moved = moved;
+            commit();
+        }
+    }
+}
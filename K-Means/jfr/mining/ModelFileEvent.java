@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>Evento di JDK Flight Recorder che registra il salvataggio o il 
+ * caricamento di un modello, con il percorso e la dimensione del file.
+ * <p>La classe è compilata a parte e viene creata per riflessione da 
+ * {@link ModelFileProbe#EVENTS}.
+ * @author Andrea Mercanti
+ */
+@Name("kmeans.mining.ModelFile")
+@Label("File del modello")
+@Category({"K-Means", "Mining"})
+@Description("Salvataggio o caricamento di un modello")
+class ModelFileEvent extends Event implements ModelFileProbe {
+    /**Operazione eseguita: salvataggio o caricamento*/
+    @Label("Operazione")
+    String operation;
+    /**Percorso del file*/
+    @Label("File")
+    String path;
+    /**Dimensione del file*/
+    @Label("Dimensione")
+    @DataAmount
+    long size;
+
+    /**
+     * <p>Conclude l'evento e, se deve essere registrato, ne imposta i campi e
+     * lo registra.
+     * @param operation operazione eseguita.
+     * @param path percorso del file.
+     */
+    @Override
+    public void complete(String operation, String path) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.path = path;
+            this.size = new java.io.File(path).length();
+            commit();
+        }
+    }
+}
@@ -15,10 +15,12 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import mining.ClusterReport;
 import mining.KMeansMiner;
 import data.*;
 import database.DatabaseConnectionException;
-import database.NoValueException;
+import database.DbAccess;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.SQLException;
@@ -86,8 +88,8 @@ public class MainTest {
                 case 2:
                     Data data = null;
                     try {
-                        data = new Data("playtennis");
-                    } catch (SQLException | NoValueException | DatabaseConnectionException ex) {
+                        data = new Data("playtennis", new DbAccess(), new File("snapshot"));
+                    } catch (SQLException | DatabaseConnectionException ex) {
                         ex.printStackTrace();
                     }
                     System.out.println(data);
@@ -100,7 +102,8 @@ public class MainTest {
                         try {
                             int numIter = kmeans.kmeans(data);
                             System.out.println("Numero di Iterazioni: " + numIter);
-                            System.out.println(kmeans.getC().toString(data));
+                            new ClusterReport().write(kmeans.getC(), data, System.out);
+                            System.out.println();
                             System.out.print("Nome file di backup: ");
                             String fileName = Keyboard.readString() + ".dmp";
                             System.out.println("Salvataggio in " + fileName);
@@ -116,6 +119,8 @@ public class MainTest {
                             System.out.println("Fine operazioni di salvataggio!");
                         } catch(OutOfRangeSampleSize e) {
                             System.out.println(e.getMessage());
+                        } catch(IOException e) {
+                            e.printStackTrace();
                         }
                         System.out.print("Vuoi ripetere l'esecuzione?(y/n) ");
                         answer = Keyboard.readChar();
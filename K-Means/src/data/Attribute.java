@@ -27,6 +27,8 @@ import java.io.Serializable;
  * @author Andrea Mercanti
  */
 public class Attribute implements Serializable{
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = 8808401679732229021L;
     /**Nome simbolico/titolo dell'attributo*/
     protected String name;
     /**Identificativo numerico*/
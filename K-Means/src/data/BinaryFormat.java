@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * <p>Raccoglie le operazioni di scrittura e lettura binaria dello schema di una
+ * tabella e delle tuple, condivise dai formati di file che le memorizzano 
+ * (le istantanee delle tabelle e i modelli dei cluster). La scrittura avviene
+ * su un {@code DataOutput}, mentre la lettura avviene da un {@code ByteBuffer},
+ * così che i file possano essere letti mappandoli in memoria.
+ * <p>Lo schema è memorizzato come numero di attributi seguito, per ciascun 
+ * attributo, dal tipo, dal nome e dagli estremi del dominio (se continuo) 
+ * oppure dal dizionario dei valori in ordine di codice (se discreto). Una tupla
+ * è memorizzata come sequenza di valori primitivi: un double per ogni item 
+ * continuo e il codice del valore per ogni item discreto. Le stringhe sono 
+ * memorizzate come lunghezza seguita dai byte UTF-8.
+ * @author Andrea Mercanti
+ */
+public class BinaryFormat {
+    /**Tipo di un attributo continuo*/
+    private static final byte CONTINUOUS = 0;
+    /**Tipo di un attributo discreto*/
+    private static final byte DISCRETE = 1;
+
+    /**
+     * <p>Scrive lo schema definito dagli attributi degli item della tupla 
+     * {@code tuple}.
+     * @param out destinazione della scrittura.
+     * @param tuple tupla di cui scrivere lo schema.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    public static void writeSchema(DataOutput out, Tuple tuple) throws IOException {
+        List<Attribute> attributes = new ArrayList<Attribute>(tuple.getLength());
+        for (int i = 0; i < tuple.getLength(); i++)
+            attributes.add(tuple.get(i).getAttribute());
+        writeSchema(out, attributes);
+    }
+
+    /**
+     * <p>Scrive lo schema definito dagli attributi {@code attributes}.
+     * @param out destinazione della scrittura.
+     * @param attributes attributi nell'ordine dello schema.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    static void writeSchema(DataOutput out, List<Attribute> attributes) throws IOException {
+        out.writeInt(attributes.size());
+        for (Attribute attribute : attributes) {
+            if (attribute instanceof ContinuousAttribute) {
+                ContinuousAttribute continuous = (ContinuousAttribute) attribute;
+                out.writeByte(CONTINUOUS);
+                writeString(out, attribute.getName());
+                out.writeDouble(continuous.getMin());
+                out.writeDouble(continuous.getMax());
+            } else {
+                DiscreteAttribute discrete = (DiscreteAttribute) attribute;
+                out.writeByte(DISCRETE);
+                writeString(out, attribute.getName());
+                out.writeInt(discrete.getNumberOfDistinctValues());
+                for (int code = 0; code < discrete.getNumberOfDistinctValues(); code++)
+                    writeString(out, discrete.getValue(code));
+            }
+        }
+    }
+
+    /**
+     * <p>Legge lo schema scritto da {@link #writeSchema(DataOutput, Tuple)}.
+     * @param buffer buffer da cui leggere, posizionato all'inizio dello schema.
+     * @return gli attributi nell'ordine dello schema.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    public static List<Attribute> readSchema(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<Attribute> attributes = new ArrayList<Attribute>(count);
+        for (int j = 0; j < count; j++) {
+            byte type = buffer.get();
+            String name = readString(buffer);
+            if (type == CONTINUOUS) {
+                double min = buffer.getDouble();
+                attributes.add(new ContinuousAttribute(name, j, min, buffer.getDouble()));
+            } else if (type == DISCRETE) {
+                int size = buffer.getInt();
+                TreeSet<String> values = new TreeSet<String>();
+                for (int code = 0; code < size; code++)
+                    values.add(readString(buffer));
+                attributes.add(new DiscreteAttribute(name, j, values));
+            } else
+                throw new IllegalArgumentException("Tipo di attributo sconosciuto: " + type);
+        }
+        return attributes;
+    }
+
+    /**
+     * <p>Scrive i valori degli item della tupla {@code tuple} come valori 
+     * primitivi; un valore discreto esterno al dominio dell'attributo (come il
+     * prototipo di un cluster vuoto) è scritto con il codice -1.
+     * @param out destinazione della scrittura.
+     * @param tuple tupla da scrivere.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    public static void writeTuple(DataOutput out, Tuple tuple) throws IOException {
+        for (int i = 0; i < tuple.getLength(); i++) {
+            Item item = tuple.get(i);
+            if (item instanceof ContinuousItem)
+                out.writeDouble((Double) item.getValue());
+            else
+                out.writeInt(Math.max(-1, ((DiscreteItem) item).getCode()));
+        }
+    }
+
+    /**
+     * <p>Legge una tupla scritta da {@link #writeTuple(DataOutput, Tuple)} con
+     * lo schema {@code attributes}.
+     * @param buffer buffer da cui leggere, posizionato all'inizio della tupla.
+     * @param attributes attributi nell'ordine dello schema.
+     * @return la tupla letta.
+     */
+    public static Tuple readTuple(ByteBuffer buffer, List<Attribute> attributes) {
+        Tuple tuple = new Tuple(attributes.size());
+        for (Attribute attribute : attributes) {
+            if (attribute instanceof ContinuousAttribute)
+                tuple.add(new ContinuousItem(attribute, buffer.getDouble()), attribute.getIndex());
+            else {
+                DiscreteAttribute discrete = (DiscreteAttribute) attribute;
+                int code = buffer.getInt();
+                tuple.add(new DiscreteItem(discrete, code < 0 ? "" : discrete.getValue(code)), attribute.getIndex());
+            }
+        }
+        return tuple;
+    }
+
+    /**
+     * <p>Legge una stringa memorizzata come lunghezza seguita dai byte UTF-8.
+     * @param buffer buffer da cui leggere.
+     * @return la stringa letta.
+     */
+    static String readString(ByteBuffer buffer) {
+        byte bytes[] = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <p>Scrive la stringa {@code s} come lunghezza seguita dai byte UTF-8.
+     * @param out destinazione della scrittura.
+     * @param s stringa da scrivere.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte bytes[] = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
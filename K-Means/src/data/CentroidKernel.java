@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * <p>Calcola le distanze tra le righe di una tabella e i centroidi di un 
+ * insieme di cluster con la stessa misura di {@link Tuple#getDistance(Data, int)},
+ * ma su valori primitivi: i centroidi sono memorizzati per attributo, con i 
+ * valori continui già normalizzati e i valori discreti come codici nel 
+ * dizionario dell'attributo, e ciascuna riga viene confrontata con tutti i 
+ * centroidi un attributo alla volta. Per ogni attributo il valore della riga, 
+ * letto dalla colonna già normalizzata, viene confrontato con i k centroidi in
+ * un ciclo su posizioni contigue, privo di chiamate virtuali e di salti, che il
+ * compilatore JIT può tradurre in istruzioni vettoriali.
+ * <p>Le distanze sono sommate nello stesso ordine degli attributi di 
+ * {@link Tuple#getDistance(Data, int)} e coincidono quindi esattamente con 
+ * quelle calcolate sulle tuple. Il nucleo non viene modificato dopo la 
+ * costruzione e può essere usato da più thread contemporaneamente; va 
+ * ricostruito ogni volta che i centroidi cambiano.
+ * <p>Se la JVM dispone del modulo {@code jdk.incubator.vector} (Java 16 o 
+ * successiva, avviata con {@code --add-modules jdk.incubator.vector}), 
+ * {@link #create(Tuple[], Data)} restituisce al posto di questo nucleo quello
+ * che usa esplicitamente le istruzioni vettoriali, compilato a parte dalla 
+ * cartella {@code vector} e caricato per riflessione; la proprietà di sistema
+ * {@code kmeans.vector=false} ne disattiva l'uso.
+ * @author Andrea Mercanti
+ */
+public final class CentroidKernel implements DistanceKernel {
+    /**Nome della classe del nucleo vettoriale*/
+    private static final String VECTOR_KERNEL = "data.VectorCentroidKernel";
+    /**Costruttore del nucleo vettoriale (null se non è disponibile)*/
+    private static final Constructor<? extends DistanceKernel> VECTOR = loadVectorKernel();
+
+    /**Numero di cluster*/
+    final int k;
+    /**Colonna normalizzata della tabella di ciascun attributo continuo (null per gli attributi discreti)*/
+    final double[][] continuousColumns;
+    /**Colonna della tabella di ciascun attributo discreto (null per gli attributi continui)*/
+    final int[][] discreteColumns;
+    /**Valori normalizzati dei centroidi: {@code centers[j][c]} è il valore 
+    dell'attributo in posizione j del cluster c (null per gli attributi discreti)*/
+    final double[][] centers;
+    /**Codici dei valori dei centroidi: {@code codes[j][c]} è il codice 
+    dell'attributo in posizione j del cluster c (null per gli attributi continui)*/
+    final int[][] codes;
+
+    /**
+     * <p>Crea il nucleo per i centroidi {@code centroids}, che devono avere lo
+     * schema della tabella {@code data}.
+     * @param centroids centroidi dei cluster, nell'ordine dei cluster.
+     * @param data tabella di cui confrontare le righe con i centroidi.
+     */
+    public CentroidKernel(Tuple[] centroids, Data data) {
+        k = centroids.length;
+        int m = centroids[0].getLength();
+        continuousColumns = new double[m][];
+        discreteColumns = new int[m][];
+        centers = new double[m][];
+        codes = new int[m][];
+        for (int j = 0; j < m; j++) {
+            Attribute attribute = centroids[0].get(j).getAttribute();
+            if (attribute instanceof ContinuousAttribute) {
+                continuousColumns[j] = data.getScaledColumn(attribute.getIndex());
+                centers[j] = new double[k];
+                for (int c = 0; c < k; c++)
+                    centers[j][c] = ((ContinuousItem) centroids[c].get(j)).getScaledValue();
+            } else {
+                discreteColumns[j] = data.getDiscreteColumn(attribute.getIndex());
+                codes[j] = new int[k];
+                for (int c = 0; c < k; c++)
+                    codes[j][c] = ((DiscreteItem) centroids[c].get(j)).getCode();
+            }
+        }
+    }
+
+    /**
+     * <p>Crea il nucleo per i centroidi {@code centroids}, che devono avere lo
+     * schema della tabella {@code data}: quello vettoriale se disponibile, 
+     * altrimenti quello scalare. I due nuclei calcolano le stesse distanze.
+     * @param centroids centroidi dei cluster, nell'ordine dei cluster.
+     * @param data tabella di cui confrontare le righe con i centroidi.
+     * @return il nucleo dei centroidi.
+     */
+    public static DistanceKernel create(Tuple[] centroids, Data data) {
+        if (VECTOR != null) {
+            try {
+                return VECTOR.newInstance(centroids, data);
+            } catch (ReflectiveOperationException ex) {
+                ex.printStackTrace();
+            }
+        }
+        return new CentroidKernel(centroids, data);
+    }
+
+    /**
+     * <p>Verifica se {@link #create(Tuple[], Data)} restituisce il nucleo 
+     * vettoriale.
+     * @return vero se il nucleo vettoriale è disponibile.
+     */
+    static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /**
+     * <p>Carica la classe del nucleo vettoriale, che non può essere caricata
+     * se non è stata compilata, se la JVM è precedente a Java 16 o se il 
+     * modulo {@code jdk.incubator.vector} non è stato aggiunto all'avvio.
+     * @return il costruttore del nucleo vettoriale, null se non è disponibile
+     *         o ne è stato disattivato l'uso.
+     */
+    private static Constructor<? extends DistanceKernel> loadVectorKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("kmeans.vector", "true")))
+            return null;
+        try {
+            return Class.forName(VECTOR_KERNEL, true, CentroidKernel.class.getClassLoader())
+                        .asSubclass(DistanceKernel.class)
+                        .getDeclaredConstructor(Tuple[].class, Data.class);
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError | SecurityException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getNumberOfClusters() {
+        return k;
+    }
+
+    /**
+     * <p>Calcola la distanza della riga di indice {@code row} da ciascun centroide.
+     * @param row indice di riga della tupla nella tabella.
+     * @param distances array, di lunghezza almeno pari al numero di cluster, 
+     *                  in cui memorizzare la distanza da ciascun centroide.
+     */
+    @Override
+    public void distances(int row, double[] distances) {
+        for (int c = 0; c < k; c++)
+            distances[c] = 0.0;
+        for (int j = 0; j < centers.length; j++) {
+            if (centers[j] != null) {
+                double value = continuousColumns[j][row];
+                double[] center = centers[j];
+                for (int c = 0; c < k; c++)
+                    distances[c] += Math.abs(center[c] - value);
+            } else {
+                int code = discreteColumns[j][row];
+                int[] centerCodes = codes[j];
+                for (int c = 0; c < k; c++)
+                    distances[c] += centerCodes[c] == code ? 0.0 : 1.0;
+            }
+        }
+    }
+
+    /**
+     * <p>Calcola la distanza della riga di indice {@code row} dal centroide del
+     * cluster in posizione {@code cluster}.
+     * @param row indice di riga della tupla nella tabella.
+     * @param cluster posizione del cluster.
+     * @return la distanza della riga dal centroide.
+     */
+    @Override
+    public double distance(int row, int cluster) {
+        double sum = 0.0;
+        for (int j = 0; j < centers.length; j++) {
+            if (centers[j] != null)
+                sum += Math.abs(centers[j][cluster] - continuousColumns[j][row]);
+            else if (codes[j][cluster] != discreteColumns[j][row])
+                sum += 1.0;
+        }
+        return sum;
+    }
+}
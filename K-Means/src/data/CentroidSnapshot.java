@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Modella un'istantanea immutabile dei centroidi di un insieme di cluster, 
+ * con cui assegnare al cluster più vicino nuove tuple, fornite come righe di
+ * valori o come tabella con uno schema compatibile. I centroidi sono 
+ * memorizzati come valori primitivi: i valori continui già normalizzati 
+ * nell'intervallo del rispettivo attributo e i valori discreti come codici nel
+ * dizionario dell'attributo; ciascuna tupla da assegnare viene codificata allo
+ * stesso modo una sola volta e confrontata con tutti i centroidi.
+ * <p>La distanza è la stessa di {@link Tuple#getDistance(Data, int)}, sommata
+ * nello stesso ordine degli attributi, e a parità di distanza viene scelto il 
+ * cluster in posizione minore: l'assegnazione coincide quindi con quella 
+ * calcolata durante l'apprendimento.
+ * <p>Poiché l'istantanea non viene mai modificata dopo la costruzione, può 
+ * essere usata da più thread contemporaneamente senza sincronizzazione.
+ * @author Andrea Mercanti
+ */
+public final class CentroidSnapshot {
+    /**Codice di un valore discreto che non appartiene al dominio dell'attributo*/
+    private static final double UNKNOWN = -2.0;
+
+    /**Numero di cluster*/
+    private final int k;
+    /**Numero di attributi*/
+    private final int m;
+    /**Nomi degli attributi nell'ordine dello schema*/
+    private final String[] names;
+    /**Vero per gli attributi discreti*/
+    private final boolean[] discrete;
+    /**Minimo di ciascun attributo continuo*/
+    private final double[] min;
+    /**Ampiezza dell'intervallo di ciascun attributo continuo*/
+    private final double[] range;
+    /**Codice di ciascun valore del dominio di ciascun attributo discreto 
+    (null per gli attributi continui)*/
+    private final List<Map<String, Integer>> codes;
+    /**Centroidi codificati: il valore dell'attributo j del cluster c è in 
+    posizione {@code c * m + j}*/
+    private final double[] centroids;
+
+    /**
+     * <p>Crea l'istantanea dei centroidi {@code centroids}, che devono avere lo
+     * stesso schema.
+     * @param centroids centroidi dei cluster, nell'ordine dei cluster.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    public CentroidSnapshot(Tuple[] centroids) {
+        k = centroids.length;
+        m = centroids[0].getLength();
+        names = new String[m];
+        discrete = new boolean[m];
+        min = new double[m];
+        range = new double[m];
+        codes = new ArrayList<Map<String, Integer>>(m);
+        for (int j = 0; j < m; j++) {
+            Attribute attribute = centroids[0].get(j).getAttribute();
+            names[j] = attribute.getName();
+            if (attribute instanceof ContinuousAttribute) {
+                ContinuousAttribute continuous = (ContinuousAttribute) attribute;
+                min[j] = continuous.getMin();
+                range[j] = continuous.getMax() - continuous.getMin();
+                codes.add(null);
+            } else {
+                DiscreteAttribute dictionary = (DiscreteAttribute) attribute;
+                discrete[j] = true;
+                Map<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+                for (int code = 0; code < dictionary.getNumberOfDistinctValues(); code++)
+                    dictionaryCodes.put(dictionary.getValue(code), code);
+                codes.add(dictionaryCodes);
+            }
+        }
+        this.centroids = new double[k * m];
+        for (int c = 0; c < k; c++) {
+            for (int j = 0; j < m; j++) {
+                Item item = centroids[c].get(j);
+                if (discrete[j])
+                    this.centroids[c * m + j] = Math.max(-1, ((DiscreteItem) item).getCode());
+                else
+                    this.centroids[c * m + j] = ((ContinuousItem) item).getScaledValue();
+            }
+        }
+    }
+
+    /**
+     * <p>Restituisce il numero di cluster.
+     * @return il numero di centroidi dell'istantanea.
+     */
+    public int getNumberOfClusters() {
+        return k;
+    }
+
+    /**
+     * <p>Restituisce il numero di attributi che ciascuna riga deve contenere.
+     * @return il numero di attributi dello schema.
+     */
+    public int getNumberOfAttributes() {
+        return m;
+    }
+
+    /**
+     * <p>Restituisce il nome dell'attributo in posizione {@code j} nello schema.
+     * @param j posizione dell'attributo.
+     * @return il nome dell'attributo.
+     */
+    public String getAttributeName(int j) {
+        return names[j];
+    }
+
+    /**
+     * <p>Verifica se l'attributo in posizione {@code j} è discreto.
+     * @param j posizione dell'attributo.
+     * @return vero se l'attributo è discreto, falso se è continuo.
+     */
+    public boolean isDiscrete(int j) {
+        return discrete[j];
+    }
+
+    /**
+     * <p>Assegna ciascuna delle righe {@code rows} al cluster più vicino. Ogni 
+     * riga contiene un valore per attributo, nell'ordine dello schema: un 
+     * {@code Number} per gli attributi continui e una {@code String} per quelli
+     * discreti; un valore discreto esterno al dominio dell'attributo non 
+     * coincide con alcun centroide.
+     * @param rows righe da assegnare.
+     * @param clusters array in cui memorizzare la posizione del cluster di ciascuna riga.
+     * @param distances array in cui memorizzare la distanza di ciascuna riga dal
+     *                  centroide del proprio cluster, oppure null.
+     * @throws IllegalArgumentException se una riga non ha il numero di valori atteso.
+     * @throws ClassCastException se un valore non è del tipo atteso.
+     */
+    public void score(Object[][] rows, int[] clusters, double[] distances) {
+        double row[] = new double[m];
+        for (int r = 0; r < rows.length; r++) {
+            Object values[] = rows[r];
+            if (values.length != m)
+                throw new IllegalArgumentException("La riga " + r + " contiene " + values.length + " valori invece di " + m);
+            for (int j = 0; j < m; j++) {
+                if (discrete[j]) {
+                    Integer code = codes.get(j).get((String) values[j]);
+                    row[j] = code == null ? UNKNOWN : code;
+                } else
+                    row[j] = scale(j, ((Number) values[j]).doubleValue());
+            }
+            nearest(row, r, clusters, distances);
+        }
+    }
+
+    /**
+     * <p>Assegna al cluster più vicino le tuple di indice compreso tra 
+     * {@code from} (incluso) e {@code to} (escluso) della tabella {@code data},
+     * memorizzandone i risultati nelle stesse posizioni di {@code clusters} e 
+     * {@code distances}. Gli attributi della tabella sono associati per nome a
+     * quelli dei centroidi, e i valori discreti sono tradotti nei dizionari dei
+     * centroidi, così che la tabella possa essere stata caricata separatamente.
+     * Tabelle diverse possono essere elaborate contemporaneamente, anche a 
+     * intervalli, da più thread.
+     * @param data tabella con le tuple da assegnare.
+     * @param from indice della prima tupla da assegnare.
+     * @param to indice successivo all'ultima tupla da assegnare.
+     * @param clusters array in cui memorizzare la posizione del cluster di ciascuna tupla.
+     * @param distances array in cui memorizzare la distanza di ciascuna tupla dal
+     *                  centroide del proprio cluster, oppure null.
+     * @throws IllegalArgumentException se lo schema della tabella non contiene 
+     *                                  gli attributi dei centroidi, con lo stesso tipo.
+     */
+    public void score(Data data, int from, int to, int[] clusters, double[] distances) {
+        /*Posizione nella tabella di ciascun attributo e, per gli attributi 
+        discreti, traduzione dei codici della tabella in quelli dei centroidi*/
+        int columns[] = new int[m];
+        double translation[][] = new double[m][];
+        for (int j = 0; j < m; j++) {
+            columns[j] = -1;
+            for (Attribute attribute : data.getAttributeSchema()) {
+                if (attribute.getName().equals(names[j]) && (attribute instanceof DiscreteAttribute) == discrete[j])
+                    columns[j] = attribute.getIndex();
+            }
+            if (columns[j] < 0)
+                throw new IllegalArgumentException("La tabella non contiene l'attributo " + (discrete[j] ? "discreto " : "continuo ") + names[j]);
+            if (discrete[j]) {
+                DiscreteAttribute attribute = (DiscreteAttribute) data.getAttribute(columns[j]);
+                translation[j] = new double[attribute.getNumberOfDistinctValues()];
+                for (int code = 0; code < translation[j].length; code++) {
+                    Integer own = codes.get(j).get(attribute.getValue(code));
+                    translation[j][code] = own == null ? UNKNOWN : own;
+                }
+            }
+        }
+        
+        double row[] = new double[m];
+        for (int i = from; i < to; i++) {
+            for (int j = 0; j < m; j++) {
+                if (discrete[j])
+                    row[j] = translation[j][data.getDiscreteCode(i, columns[j])];
+                else
+                    row[j] = scale(j, data.getContinuousValue(i, columns[j]));
+            }
+            nearest(row, i, clusters, distances);
+        }
+    }
+
+    /**
+     * <p>Determina il centroide più vicino alla riga codificata {@code row} e ne
+     * memorizza la posizione e la distanza in posizione {@code index} dei 
+     * rispettivi array.
+     * @param row riga codificata come i centroidi.
+     * @param index posizione in cui memorizzare i risultati.
+     * @param clusters array delle posizioni dei cluster.
+     * @param distances array delle distanze, oppure null.
+     */
+    private void nearest(double[] row, int index, int[] clusters, double[] distances) {
+        double best = 0.0;
+        int nearest = 0;
+        for (int c = 0, base = 0; c < k; c++, base += m) {
+            double distance = 0.0;
+            for (int j = 0; j < m; j++) {
+                if (discrete[j])
+                    distance += row[j] == centroids[base + j] ? 0.0 : 1.0;
+                else
+                    distance += Math.abs(centroids[base + j] - row[j]);
+            }
+            if (best > distance || c == 0) {
+                best = distance;
+                nearest = c;
+            }
+        }
+        clusters[index] = nearest;
+        if (distances != null)
+            distances[index] = best;
+    }
+
+    /**
+     * <p>Normalizza il valore {@code v} dell'attributo continuo in posizione 
+     * {@code j}, come {@link ContinuousAttribute#getScaledValue(double)}.
+     * @param j posizione dell'attributo.
+     * @param v valore da normalizzare.
+     * @return il valore normalizzato.
+     */
+    private double scale(int j, double v) {
+        return (v - min[j]) / range[j];
+    }
+}
@@ -24,6 +24,8 @@ package data;
  * @author Andrea Mercanti
  */
 public class ContinuousAttribute extends Attribute {
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = -9219051323030754116L;
     /**Limite superiore dell'intervallo*/
     private double min;
     /**Limite inferiore dell'intervallo*/
@@ -44,6 +46,22 @@ public class ContinuousAttribute extends Attribute {
             this.max = max;
     }
 
+    /**
+     * <p>Restituisce il limite inferiore del dominio.
+     * @return il minimo valore dell'attributo.
+     */
+    double getMin(){
+        return min;
+    }
+
+    /**
+     * <p>Restituisce il limite superiore del dominio.
+     * @return il massimo valore dell'attributo.
+     */
+    double getMax(){
+        return max;
+    }
+
     /**
      * <p>Calcola e restituisce il valore normalizzato nell'intervallo [0,1] 
      * del parametro {@code v} passato in input.
@@ -53,4 +71,18 @@ public class ContinuousAttribute extends Attribute {
     double getScaledValue(double v){
         return (v-min)/(max-min);
     }
+
+    /**
+     * <p>Riporta il valore normalizzato {@code scaled} nel dominio originale 
+     * dell'attributo, invertendo {@link #getScaledValue(double)}.
+     * Se l'attributo assume un solo valore, che non può essere normalizzato, 
+     * restituisce quel valore.
+     * @param scaled valore normalizzato nell'intervallo [0,1].
+     * @return valore nel dominio dell'attributo.
+     */
+    double getOriginalValue(double scaled){
+        if (max == min)
+            return min;
+        return min + scaled*(max-min);
+    }
 }
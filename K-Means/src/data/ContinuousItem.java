@@ -17,12 +17,20 @@
 
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
 /**
  * <p>Modella un item specifico che consiste in una coppia attributo-valore dove 
  * l'attributo è di tipo continuo e quindi il valore è uno scalare.
  * @author Andrea Mercanti 
  */
 public class ContinuousItem extends Item{
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = 7956306878486820732L;
+    /**Valore dell'item normalizzato nell'intervallo [0,1] dell'attributo*/
+    private transient double scaled;
+    
     /**
      * <p>Costruisce l'item di tipo ocontinuo, iniziallizzando i valori dei 
      * membri attributi con quelli passati in input.
@@ -31,6 +39,74 @@ public class ContinuousItem extends Item{
      */
     public ContinuousItem(Attribute attribute, Object value) {
         super(attribute, value);
+        scaled = ((ContinuousAttribute) attribute).getScaledValue((Double) value);
+    }
+
+    /**
+     * <p>Costruisce l'item di tipo continuo con il valore {@code value} già 
+     * normalizzato in {@code scaled}, per esempio letto dalle colonne della 
+     * tabella, senza ricalcolarlo.
+     * @param attribute attributo continuo dell'item.
+     * @param value valore che assume l'item tra quelli nel dominio dell'attributo.
+     * @param scaled valore normalizzato nell'intervallo [0,1] dell'attributo.
+     */
+    ContinuousItem(ContinuousAttribute attribute, double value, double scaled) {
+        super(attribute, value);
+        this.scaled = scaled;
+    }
+
+    /**
+     * <p>Costruisce la copia dell'item {@code item}, con lo stesso attributo,
+     * lo stesso valore e lo stesso valore normalizzato.
+     * @param item item da copiare.
+     */
+    ContinuousItem(ContinuousItem item) {
+        super(item.getAttribute(), item.getValue());
+        scaled = item.scaled;
+    }
+
+    /**
+     * <p>Legge l'item serializzato e ne ricalcola il valore normalizzato.
+     * @param in stream da cui leggere l'item.
+     * @throws IOException in caso di errori di lettura.
+     * @throws ClassNotFoundException se una classe serializzata non è disponibile.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        scaled = ((ContinuousAttribute) getAttribute()).getScaledValue((Double) getValue());
+    }
+
+    /**
+     * <p>Restituisce il valore dell'item normalizzato nell'intervallo [0,1]
+     * dell'attributo, su cui sono calcolate le distanze.
+     * @return il valore normalizzato.
+     */
+    double getScaledValue() {
+        return scaled;
+    }
+
+    /**
+     * <p>Assegna all'item il valore normalizzato {@code scaled}, riportandolo
+     * nel dominio originale dell'attributo per la visualizzazione. Il valore 
+     * normalizzato viene conservato esattamente, così che i centroidi possano
+     * essere aggiornati nello spazio normalizzato senza arrotondamenti dovuti
+     * alla conversione.
+     * @param scaled nuovo valore normalizzato dell'item.
+     */
+    void setScaledValue(double scaled) {
+        super.setValue(((ContinuousAttribute) getAttribute()).getOriginalValue(scaled));
+        this.scaled = scaled;
+    }
+
+    /**
+     * <p>Assegna all'item il valore {@code value} e ne ricalcola il valore 
+     * normalizzato.
+     * @param value nuovo valore numerico dell'item.
+     */
+    @Override
+    void setValue(Object value) {
+        super.setValue(value);
+        scaled = ((ContinuousAttribute) getAttribute()).getScaledValue((Double) value);
     }
 
     /**
@@ -43,12 +119,21 @@ public class ContinuousItem extends Item{
      */
     @Override
     double distance(Object a) {
-        double result;
-        ContinuousItem item = (ContinuousItem) a;
-        double val_1 = ((ContinuousAttribute) getAttribute()).getScaledValue((double) getValue());
-        double val_2 = ((ContinuousAttribute) item.getAttribute()).getScaledValue((double) item.getValue());
-        result = Math.abs(val_1 - val_2);
-        return result;
+        return Math.abs(scaled - ((ContinuousItem) a).scaled);
+    }
+
+    /**
+     * <p>Determina il valore assoluto della differenza tra il valore scalare 
+     * dell'item corrente e il valore scalare dell'attributo nella tupla di indice
+     * {@code exampleIndex} della tabella {@code data}, letto dalla colonna già
+     * normalizzata al caricamento.
+     * @param data tabella di riferimento.
+     * @param exampleIndex indice di riga della tupla da confrontare.
+     * @return il valore assoluto della differenza tra i due valori normalizzati.
+     */
+    @Override
+    double distance(Data data, int exampleIndex) {
+        return Math.abs(scaled - data.getScaledValue(exampleIndex, getAttribute().getIndex()));
     }
 
 }
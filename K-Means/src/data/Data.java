@@ -20,16 +20,30 @@ package data;
 import database.DatabaseConnectionException;
 import database.DbAccess;
 import database.EmptySetException;
-import database.Example;
+import database.ExampleSink;
 import database.NoValueException;
-import database.QUERY_TYPE;
 import database.TableData;
 import database.TableSchema;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.sql.SQLException;
 import java.util.*;
         
 /**
  * <p>Questa classe modella l'insieme delle transazioni come tuple di una tabella.
+ * <p>I valori degli attributi continui sono memorizzati normalizzati 
+ * nell'intervallo [0,1] di ciascun attributo, la sola forma usata per le 
+ * distanze. Le tabelle lette dalla base di dati non conservano, salvo 
+ * richiesta esplicita, anche i valori originali, che raddoppierebbero la 
+ * memoria occupata dalle colonne continue: i valori mostrati, i prototipi e 
+ * le tuple vengono ricavati da quelli normalizzati e possono differire dagli
+ * originali di qualche ulp (per esempio 29.209999999999997 invece di 29.21), 
+ * mentre i cluster trovati non cambiano. Chi deve mostrare i valori 
+ * esattamente come letti li conserva con 
+ * {@link #Data(String, DbAccess, File, boolean)}; le istantanee sono comunque
+ * salvate con i valori originali, prima che vengano liberati.
  * @author Andrea Mercanti
  */
 public class Data {
@@ -112,9 +126,25 @@ public class Data {
 //        }
 //    }
     
-    /**Tabella o insieme delle transazioni, modellata come sequenza ordinata di oggetti {@code Example}.*/
-    @SuppressWarnings("FieldMayBeFinal")
-    private ArrayList<Example> data;
+    /**Colonne degli attributi continui: per ciascun attributo in posizione j,
+    {@code continuousColumns[j]} contiene i valori numerici originali di tutte
+    le tuple (null se l'attributo in posizione j è discreto). La copia serve 
+    solo a mostrare e salvare i valori esattamente come letti, perché 
+    {@link ContinuousAttribute#getOriginalValue(double)} non riproduce sempre
+    l'ultima cifra del valore normalizzato (per esempio per i valori vicini
+    allo zero di un intervallo ampio); vale null dopo 
+    {@link #discardOriginalValues()}, che le tabelle lette dalla base di dati
+    invocano al termine del caricamento se non è richiesto di conservarla.*/
+    private double[][] continuousColumns;
+    /**Colonne degli attributi continui normalizzate nell'intervallo [0,1] di 
+    ciascun attributo al caricamento della tabella, su cui sono calcolate le 
+    distanze (null per gli attributi discreti).*/
+    private double[][] scaledColumns;
+    /**Colonne degli attributi discreti codificate per dizionario: per ciascun 
+    attributo in posizione j, {@code discreteColumns[j]} contiene il codice del 
+    valore di ogni tupla nel dizionario dell'attributo (null se l'attributo in 
+    posizione j è continuo).*/
+    private int[][] discreteColumns;
     /**Numero di tuple cioè di righe della tabella.*/
     @SuppressWarnings("FieldMayBeFinal")
     private int numberOfExamples;
@@ -134,42 +164,338 @@ public class Data {
      */
     @SuppressWarnings("Convert2Diamond")
     public Data(String table) throws SQLException, NoValueException, DatabaseConnectionException {
-        DbAccess db_access = new DbAccess();
+        this(table, new DbAccess());
+    }
+
+    /**
+     * <p>Crea una tabella sulla base della tabella {@code table} della base di
+     * dati a cui si accede tramite {@code db_access}, per esempio una base di 
+     * dati locale incorporata. La connessione viene presa in prestito dal pool
+     * di {@code db_access} e restituita al termine del caricamento.
+     * @param table nome della tabella nel database da cui recuperare le transazioni
+     *              di esempio.
+     * @param db_access accesso alla base di dati.
+     * @throws java.sql.SQLException
+     * @throws database.DatabaseConnectionException
+     */
+    public Data(String table, DbAccess db_access) throws SQLException, DatabaseConnectionException {
+        this(table, db_access, null);
+    }
+
+    /**
+     * <p>Crea una tabella sulla base della tabella {@code table} della base di
+     * dati a cui si accede tramite {@code db_access}, servendosi delle 
+     * istantanee nella cartella {@code snapshotDirectory} come descritto in 
+     * {@link #Data(String, DbAccess, File, boolean)}, senza conservare i valori
+     * originali degli attributi continui.
+     * @param table nome della tabella nel database da cui recuperare le transazioni
+     *              di esempio.
+     * @param db_access accesso alla base di dati.
+     * @param snapshotDirectory cartella delle istantanee, oppure null per non 
+     *                          servirsene.
+     * @throws java.sql.SQLException se la lettura delle transazioni fallisce o 
+     *                               la tabella è vuota.
+     * @throws database.DatabaseConnectionException
+     */
+    public Data(String table, DbAccess db_access, File snapshotDirectory) throws SQLException, DatabaseConnectionException {
+        this(table, db_access, snapshotDirectory, false);
+    }
+
+    /**
+     * <p>Crea una tabella sulla base della tabella {@code table} della base di
+     * dati a cui si accede tramite {@code db_access}, servendosi dell'istantanea
+     * salvata nella cartella {@code snapshotDirectory}: se l'istantanea esiste e
+     * la tabella non è cambiata da quando è stata salvata (stesso numero di 
+     * righe e stessa sonda di modifica), la tabella viene letta mappando in 
+     * memoria il file dell'istantanea invece di essere riletta dalla base di 
+     * dati; altrimenti viene caricata dalla base di dati e l'istantanea viene
+     * salvata di nuovo. Il file dell'istantanea prende il nome della tabella 
+     * qualificato con il catalogo e lo schema della connessione. Se il DBMS non
+     * fornisce una sonda di modifica l'istantanea non viene usata, perché non 
+     * si potrebbe riconoscere una modifica che lasci invariato il numero di 
+     * righe.
+     * @param table nome della tabella nel database da cui recuperare le transazioni
+     *              di esempio.
+     * @param db_access accesso alla base di dati.
+     * @param snapshotDirectory cartella delle istantanee, oppure null per non 
+     *                          servirsene.
+     * @param keepOriginalValues vero per conservare, oltre ai valori 
+     *                           normalizzati, i valori originali degli 
+     *                           attributi continui, così da mostrarli 
+     *                           esattamente come letti.
+     * @throws java.sql.SQLException se la lettura delle transazioni fallisce o 
+     *                               la tabella è vuota; in tal caso l'istantanea
+     *                               non viene salvata e quella eventualmente 
+     *                               presente viene eliminata.
+     * @throws database.DatabaseConnectionException
+     */
+    public Data(String table, DbAccess db_access, File snapshotDirectory, boolean keepOriginalValues) throws SQLException, DatabaseConnectionException {
         try {
             db_access.initConnection();  //Instaurazione della connessione
         } catch (DatabaseConnectionException ex) {
             ex.printStackTrace();
         }
-        TableData dataFromDB = new TableData(db_access);
+        File snapshot = null;
+        long rows = 0, probe = 0;
+        ColumnLoader loader = null;
         try {
-            data = (ArrayList<Example>) dataFromDB.getDistinctTransazioni(table);   //Popolamento della tabella
-        } catch (SQLException | EmptySetException ex) {     //multi-catch
-            ex.printStackTrace();
+            TableData dataFromDB = new TableData(db_access);
+            rows = dataFromDB.getRowCount(table);
+            if (snapshotDirectory != null) {
+                probe = dataFromDB.getModificationProbe(table);
+                /*Senza sonda di modifica l'istantanea non può essere convalidata
+                e non viene né letta né salvata*/
+                if (probe != TableData.UNKNOWN_PROBE)
+                    snapshot = new File(snapshotDirectory, dataFromDB.getQualifiedName(table) + ".snapshot");
+            }
+            if (snapshot != null) {
+                LoadProbe event = LoadProbe.EVENTS.create();
+                event.begin();
+                TableSnapshot cached = TableSnapshot.read(snapshot, rows, probe);
+                if (cached != null) {
+                    explanatorySet = cached.getAttributes();
+                    continuousColumns = cached.getContinuousColumns();
+                    discreteColumns = cached.getDiscreteColumns();
+                    numberOfExamples = cached.getNumberOfExamples();
+                    scaleColumns();
+                    if (!keepOriginalValues)
+                        discardOriginalValues();
+                    event.complete(table, "snapshot-read", numberOfExamples);
+                    return;
+                }
+            }
+            LoadProbe event = LoadProbe.EVENTS.create();
+            event.begin();
+            TableSchema table_schema = new TableSchema(db_access, table);
+            event.complete(table, "schema", 0);
+
+            /*Si leggono le transazioni in streaming, decodificandole direttamente 
+            nelle colonne primitive e calcolando nella stessa passata gli estremi 
+            degli attributi continui e i domini degli attributi discreti*/
+            loader = new ColumnLoader(table_schema, rows);
+            event = LoadProbe.EVENTS.create();
+            event.begin();
+            try {
+                dataFromDB.streamDistinctTransazioni(table, table_schema, loader);   //Popolamento della tabella
+            } catch (SQLException ex) {
+                discard(snapshot);
+                throw ex;
+            } catch (EmptySetException ex) {
+                discard(snapshot);
+                throw new SQLException("Impossibile leggere le transazioni della tabella " + table, ex);
+            }
+            event.complete(table, "stream", numberOfExamples);
+        } finally {
+            try {
+                db_access.closeConnection();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
         }
-        
-        numberOfExamples = data.size();
-        explanatorySet = new LinkedList<Attribute>();
-        TableSchema table_schema = new TableSchema(db_access, table);
-
-        /*Si definiscono gli elementi di explanatorySet, ognuno dei quali viene modellato 
-        su necessità da un oggetto della classe DiscreteAttribute o ContinuousAttribute*/
-        int i = 0;
-        for (TableSchema.Column column : table_schema) {
-            if (column.isNumber()) {
-                double min_value = (double) dataFromDB.getAggregateColumnValue(table, column, QUERY_TYPE.MIN);
-                double max_value = (double) dataFromDB.getAggregateColumnValue(table, column, QUERY_TYPE.MAX);
-                explanatorySet.add(new ContinuousAttribute(column.getColumnName(), i, min_value, max_value));
-            } else {
-                TreeSet<Object> object_values = (TreeSet<Object>) dataFromDB.getDistinctColumnValues(table, column);
-                TreeSet<String> values = (TreeSet<String>) object_values.clone();
-                explanatorySet.add(new DiscreteAttribute(column.getColumnName(), i, values));
+        LoadProbe event = LoadProbe.EVENTS.create();
+        event.begin();
+        loader.complete();
+        scaleColumns();
+        event.complete(table, "complete", numberOfExamples);
+        if (snapshot != null) {
+            event = LoadProbe.EVENTS.create();
+            event.begin();
+            try {
+                TableSnapshot.write(snapshot, rows, probe, this);
+            } catch (IOException ex) {
+                ex.printStackTrace();
             }
-            i++;
+            event.complete(table, "snapshot-write", numberOfExamples);
         }
-        try {
-            db_access.closeConnection();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+        if (!keepOriginalValues)
+            discardOriginalValues();
+    }
+
+    /**
+     * <p>Elimina l'istantanea {@code snapshot}, se esiste, perché non venga 
+     * riusata dopo una lettura della tabella non andata a buon fine.
+     * @param snapshot file dell'istantanea, oppure null.
+     */
+    private static void discard(File snapshot) {
+        if (snapshot != null)
+            snapshot.delete();
+    }
+
+    /**
+     * <p>Crea una tabella a partire dagli attributi {@code explanatorySet} e 
+     * dalle colonne già decodificate, senza accedere ad alcuna base di dati, 
+     * per esempio per generare tabelle sintetiche. Le colonne vengono usate 
+     * senza essere copiate.
+     * @param explanatorySet attributi della tabella, ciascuno con indice pari 
+     *                       alla propria posizione.
+     * @param continuousColumns colonne degli attributi continui (null per gli 
+     *                          attributi discreti).
+     * @param discreteColumns colonne codificate degli attributi discreti (null
+     *                        per gli attributi continui).
+     * @param numberOfExamples numero di tuple della tabella.
+     */
+    Data(List<Attribute> explanatorySet, double[][] continuousColumns, int[][] discreteColumns, int numberOfExamples) {
+        this.explanatorySet = explanatorySet;
+        this.continuousColumns = continuousColumns;
+        this.discreteColumns = discreteColumns;
+        this.numberOfExamples = numberOfExamples;
+        scaleColumns();
+    }
+
+    /**
+     * <p>Normalizza una volta per tutte le colonne degli attributi continui
+     * nell'intervallo [0,1] dei rispettivi attributi, così che il calcolo delle
+     * distanze si riduca a differenze tra valori già normalizzati.
+     */
+    private void scaleColumns() {
+        scaledColumns = new double[continuousColumns.length][];
+        for (int j = 0; j < continuousColumns.length; j++) {
+            if (continuousColumns[j] != null) {
+                ContinuousAttribute attribute = (ContinuousAttribute) explanatorySet.get(j);
+                double column[] = continuousColumns[j], scaled[] = new double[numberOfExamples];
+                for (int row = 0; row < numberOfExamples; row++)
+                    scaled[row] = attribute.getScaledValue(column[row]);
+                scaledColumns[j] = scaled;
+            }
+        }
+    }
+
+    /**
+     * <p>Riceve le transazioni lette in streaming dalla base di dati e ne 
+     * memorizza i valori direttamente nelle colonne primitive della tabella. 
+     * Nella stessa passata calcola il minimo e il massimo di ciascuna colonna 
+     * numerica e raccoglie i valori distinti di ciascuna colonna litterale, a 
+     * cui assegna codici provvisori nell'ordine di prima occorrenza; al termine
+     * della lettura definisce gli attributi della tabella e ricodifica le 
+     * colonne discrete secondo l'ordine lessicografico dei rispettivi domini.
+     * <p>Le colonne vengono allocate per il numero di righe della tabella, 
+     * così che non debbano essere ricopiate durante la lettura; vengono ridotte
+     * alla dimensione esatta solo se le righe distinte sono meno di quelle 
+     * della tabella, e fatte crescere raddoppiandone la capacità solo se la 
+     * tabella ha ricevuto nuove righe nel frattempo.
+     */
+    private class ColumnLoader implements ExampleSink {
+        /**Schema della tabella letta*/
+        private TableSchema schema;
+        /**Numero di righe che le colonne possono contenere prima di essere ingrandite*/
+        private int capacity;
+        /**Minimo dei valori letti per ciascuna colonna numerica*/
+        private double[] min;
+        /**Massimo dei valori letti per ciascuna colonna numerica*/
+        private double[] max;
+        /**Codice provvisorio di ciascun valore letto per ciascuna colonna 
+        litterale (null per le colonne numeriche)*/
+        private List<Map<String, Integer>> codes;
+
+        /**
+         * <p>Alloca le colonne della tabella con schema {@code schema} per 
+         * {@code expectedRows} righe.
+         * @param schema schema della tabella da leggere.
+         * @param expectedRows numero di righe della tabella.
+         */
+        @SuppressWarnings("Convert2Diamond")
+        ColumnLoader(TableSchema schema, long expectedRows) {
+            this.schema = schema;
+            capacity = (int) Math.min(expectedRows, Integer.MAX_VALUE - 8);
+            int attributes = schema.getNumberOfAttributes();
+            numberOfExamples = 0;
+            continuousColumns = new double[attributes][];
+            discreteColumns = new int[attributes][];
+            min = new double[attributes];
+            max = new double[attributes];
+            codes = new ArrayList<Map<String, Integer>>(attributes);
+            for (int j = 0; j < attributes; j++) {
+                if (schema.getColumn(j).isNumber()) {
+                    continuousColumns[j] = new double[capacity];
+                    min[j] = Double.POSITIVE_INFINITY;
+                    max[j] = Double.NEGATIVE_INFINITY;
+                    codes.add(null);
+                } else {
+                    discreteColumns[j] = new int[capacity];
+                    codes.add(new HashMap<String, Integer>());
+                }
+            }
+        }
+
+        @Override
+        public void addNumber(int index, double value) {
+            if (numberOfExamples == capacity)
+                grow();
+            continuousColumns[index][numberOfExamples] = value;
+            if (value < min[index])
+                min[index] = value;
+            if (value > max[index])
+                max[index] = value;
+        }
+
+        @Override
+        public void addString(int index, String value) {
+            if (numberOfExamples == capacity)
+                grow();
+            Map<String, Integer> dictionary = codes.get(index);
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.put(value, code);
+            }
+            discreteColumns[index][numberOfExamples] = code;
+        }
+
+        @Override
+        public void endExample() {
+            numberOfExamples++;
+        }
+
+        /**
+         * <p>Raddoppia la capacità delle colonne, quando la tabella contiene più
+         * righe di quante ne siano state contate prima della lettura.
+         */
+        private void grow() {
+            resize(Math.max(capacity << 1, 1024));
+        }
+
+        /**
+         * <p>Riduce le colonne al numero di righe effettivamente lette, 
+         * definisce gli attributi della tabella a partire dalle statistiche 
+         * raccolte e sostituisce i codici provvisori delle colonne discrete con
+         * quelli dei dizionari degli attributi.
+         */
+        @SuppressWarnings("Convert2Diamond")
+        void complete() {
+            if (numberOfExamples != capacity)
+                resize(numberOfExamples);
+            explanatorySet = new ArrayList<Attribute>(schema.getNumberOfAttributes());
+            for (int j = 0; j < schema.getNumberOfAttributes(); j++) {
+                String name = schema.getColumn(j).getColumnName();
+                Map<String, Integer> dictionary = codes.get(j);
+                if (dictionary == null) {
+                    explanatorySet.add(new ContinuousAttribute(name, j, min[j], max[j]));
+                } else {
+                    DiscreteAttribute attribute = new DiscreteAttribute(name, j, new TreeSet<String>(dictionary.keySet()));
+                    int remap[] = new int[dictionary.size()];
+                    for (Map.Entry<String, Integer> entry : dictionary.entrySet())
+                        remap[entry.getValue()] = attribute.getCode(entry.getKey());
+                    int column[] = discreteColumns[j];
+                    for (int row = 0; row < numberOfExamples; row++)
+                        column[row] = remap[column[row]];
+                    explanatorySet.add(attribute);
+                }
+            }
+            codes = null;
+        }
+
+        /**
+         * <p>Ricopia le colonne in array di lunghezza {@code newCapacity}.
+         * @param newCapacity nuova capacità delle colonne.
+         */
+        private void resize(int newCapacity) {
+            for (int j = 0; j < continuousColumns.length; j++) {
+                if (continuousColumns[j] != null)
+                    continuousColumns[j] = Arrays.copyOf(continuousColumns[j], newCapacity);
+                else
+                    discreteColumns[j] = Arrays.copyOf(discreteColumns[j], newCapacity);
+            }
+            capacity = newCapacity;
         }
     }
 
@@ -200,6 +526,26 @@ public class Data {
         return explanatorySet;
     }
 
+    /**
+     * <p>Restituisce la colonna dei valori normalizzati dell'attributo continuo
+     * in posizione {@code attributeIndex}, senza copiarla.
+     * @param attributeIndex posizione dell'attributo nello schema della tabella.
+     * @return la colonna normalizzata dell'attributo, oppure null se l'attributo è discreto.
+     */
+    double[] getScaledColumn(int attributeIndex){
+        return scaledColumns[attributeIndex];
+    }
+
+    /**
+     * <p>Restituisce la colonna dei codici dell'attributo discreto in posizione
+     * {@code attributeIndex}, senza copiarla.
+     * @param attributeIndex posizione dell'attributo nello schema della tabella.
+     * @return la colonna dell'attributo, oppure null se l'attributo è continuo.
+     */
+    int[] getDiscreteColumn(int attributeIndex){
+        return discreteColumns[attributeIndex];
+    }
+
     /**
      * <p>Restituisce il valore dell'attributo in posizione {@code attributeIndex} nella 
      * {@code exampleIndex}-esima tupla, o più intuitivamente il valore dell'elemento 
@@ -209,7 +555,59 @@ public class Data {
      * @return l'oggetto in posizione [exampleIndex, attributeIndex] nella tabella.
      */
     public Object getAttributeValue(int exampleIndex, int attributeIndex){
-        return data.get(exampleIndex).get(attributeIndex);
+        if (scaledColumns[attributeIndex] != null)
+            return getContinuousValue(exampleIndex, attributeIndex);
+        return ((DiscreteAttribute) explanatorySet.get(attributeIndex)).getValue(discreteColumns[attributeIndex][exampleIndex]);
+    }
+
+    /**
+     * <p>Restituisce il valore numerico dell'attributo continuo in posizione 
+     * {@code attributeIndex} nella {@code exampleIndex}-esima tupla, leggendolo
+     * direttamente dalla colonna primitiva o, se i valori originali sono stati
+     * liberati, ricavandolo dal valore normalizzato.
+     * @param exampleIndex numero ordinale della riga della tabella.
+     * @param attributeIndex indice identificante l'attributo continuo in tabella.
+     * @return il valore in posizione [exampleIndex, attributeIndex] nella tabella.
+     */
+    double getContinuousValue(int exampleIndex, int attributeIndex){
+        if (continuousColumns != null)
+            return continuousColumns[attributeIndex][exampleIndex];
+        return ((ContinuousAttribute) explanatorySet.get(attributeIndex)).getOriginalValue(scaledColumns[attributeIndex][exampleIndex]);
+    }
+
+    /**
+     * <p>Libera la copia dei valori originali degli attributi continui, 
+     * dimezzando la memoria occupata dalle loro colonne. Le distanze e 
+     * l'algoritmo k-means, che usano solo i valori normalizzati, non cambiano;
+     * i valori mostrati, i prototipi e le tuple vengono invece ricavati dai 
+     * valori normalizzati con {@link ContinuousAttribute#getOriginalValue(double)}
+     * e possono differire dagli originali nell'ultima cifra significativa.
+     */
+    public void discardOriginalValues(){
+        continuousColumns = null;
+    }
+
+    /**
+     * <p>Restituisce il valore dell'attributo continuo in posizione 
+     * {@code attributeIndex} nella {@code exampleIndex}-esima tupla, normalizzato
+     * nell'intervallo [0,1] dell'attributo al caricamento della tabella.
+     * @param exampleIndex numero ordinale della riga della tabella.
+     * @param attributeIndex indice identificante l'attributo continuo in tabella.
+     * @return il valore normalizzato in posizione [exampleIndex, attributeIndex] nella tabella.
+     */
+    double getScaledValue(int exampleIndex, int attributeIndex){
+        return scaledColumns[attributeIndex][exampleIndex];
+    }
+
+    /**
+     * <p>Restituisce il codice, nel dizionario dell'attributo discreto in posizione
+     * {@code attributeIndex}, del valore assunto dalla {@code exampleIndex}-esima tupla.
+     * @param exampleIndex numero ordinale della riga della tabella.
+     * @param attributeIndex indice identificante l'attributo discreto in tabella.
+     * @return il codice del valore in posizione [exampleIndex, attributeIndex] nella tabella.
+     */
+    int getDiscreteCode(int exampleIndex, int attributeIndex){
+        return discreteColumns[attributeIndex][exampleIndex];
     }
 
     /**
@@ -223,31 +621,63 @@ public class Data {
     }
 
     /**
-     * <p>Restuisce la stringa rappresentante lo stato dell'oggetto cioè lo schema 
-     * della tabella e le transazioni opportunamente enumerate.
-     * @return la stringa che modella lo stato dell'oggetto.
+     * <p>Scrive su {@code out} i valori della {@code exampleIndex}-esima tupla,
+     * ciascuno seguito da {@code separator}, leggendoli direttamente dalle 
+     * colonne della tabella.
+     * @param out flusso di caratteri su cui scrivere.
+     * @param exampleIndex numero ordinale della riga della tabella.
+     * @param separator separatore da scrivere dopo ciascun valore.
+     * @throws IOException se la scrittura su {@code out} fallisce.
      */
-    @Override
-    public String toString(){
-        String s = "";
-        /*Preleva i nomi delle colonne ovvero dei vari attributi della tabella*/
-        for(int i = 0; i < explanatorySet.size(); i++){
-            if(i == explanatorySet.size() - 1) //last attribute
-                s += explanatorySet.get(i).getName();
+    public void writeExample(Writer out, int exampleIndex, String separator) throws IOException {
+        for (int j = 0; j < explanatorySet.size(); j++) {
+            if (scaledColumns[j] != null)
+                out.write(Double.toString(getContinuousValue(exampleIndex, j)));
             else
-                s += explanatorySet.get(i).getName() + ", ";
+                out.write(((DiscreteAttribute) explanatorySet.get(j)).getValue(discreteColumns[j][exampleIndex]));
+            out.write(separator);
         }
-        s+="\n";
+    }
 
-        /*Preleva tutte le tuple numerandole opportunamente*/
+    /**
+     * <p>Scrive su {@code out} lo schema della tabella e le transazioni 
+     * opportunamente enumerate, una riga alla volta, senza costruire in memoria
+     * la rappresentazione dell'intera tabella.
+     * @param out flusso di caratteri su cui scrivere.
+     * @throws IOException se la scrittura su {@code out} fallisce.
+     */
+    public void write(Writer out) throws IOException {
+        /*Scrive i nomi delle colonne ovvero dei vari attributi della tabella*/
+        for(int i = 0; i < explanatorySet.size(); i++){
+            if (i > 0)
+                out.write(", ");
+            out.write(explanatorySet.get(i).getName());
+        }
+        out.write("\n");
+
+        /*Scrive tutte le tuple numerandole opportunamente*/
         for(int i = 0; i < numberOfExamples; i++){
-            s+= i+1 + ":";
-            for(int j = 0; j < getNumberOfExplanatoryAttributes(); j++)
-                s += getAttributeValue(i, j) + ", ";
-            s += "\n";
+            out.write(Integer.toString(i + 1));
+            out.write(":");
+            writeExample(out, i, ", ");
+            out.write("\n");
         }
+    }
 
-        return s;
+    /**
+     * <p>Restuisce la stringa rappresentante lo stato dell'oggetto cioè lo schema 
+     * della tabella e le transazioni opportunamente enumerate.
+     * @return la stringa che modella lo stato dell'oggetto.
+     */
+    @Override
+    public String toString(){
+        StringWriter s = new StringWriter();
+        try {
+            write(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     //StringWriter non solleva eccezioni
+        }
+        return s.toString();
     }
 
     /**
@@ -277,13 +707,35 @@ public class Data {
         for(int j = 0; j < size; j++) { //scanning each attribute
             attribute = explanatorySet.get(j);  //fetch the j-th attribute or coloumn
             if (attribute instanceof DiscreteAttribute)
-                tuple.add(new DiscreteItem((DiscreteAttribute)attribute, (String)data.get(index).get(j)), j);
+                tuple.add(new DiscreteItem((DiscreteAttribute)attribute, ((DiscreteAttribute)attribute).getValue(discreteColumns[j][index])), j);
             else
-                tuple.add(new ContinuousItem((ContinuousAttribute)attribute, (Double)data.get(index).get(j)), j);
+                tuple.add(new ContinuousItem((ContinuousAttribute)attribute, getContinuousValue(index, j), scaledColumns[j][index]), j);
         }
         return tuple;
     }
     
+    /**
+     * <p>Determina la distanza tra le righe della tabella indicizzate da {@code i}
+     * e {@code j}, con la stessa misura di {@link Tuple#getDistance(Tuple)}: la 
+     * somma delle differenze in valore assoluto tra i valori normalizzati degli 
+     * attributi continui e del numero di attributi discreti con valori diversi.
+     * Le due righe sono lette direttamente dalle colonne, già normalizzate, 
+     * senza costruire tuple.
+     * @param i indice della prima riga da confrontare.
+     * @param j indice della seconda riga da confrontare.
+     * @return la distanza tra le due righe.
+     */
+    public double getDistance(int i, int j) {
+        double sum = 0.0;
+        for (int a = 0; a < scaledColumns.length; a++) {
+            if (scaledColumns[a] != null)
+                sum += Math.abs(scaledColumns[a][i] - scaledColumns[a][j]);
+            else if (discreteColumns[a][i] != discreteColumns[a][j])
+                sum += 1.0;
+        }
+        return sum;
+    }
+    
     /**
      * <p>Crea un array di k interi rappresentanti gli indici di riga in data per 
      * le k tuple inizialmente scelte, in modo casuale, come centroidi.
@@ -292,12 +744,25 @@ public class Data {
      * @throws data.OutOfRangeSampleSize
      */
     public int[] sampling(int k) throws OutOfRangeSampleSize{
+        return sampling(k, System.currentTimeMillis());
+    }
+    
+    /**
+     * <p>Crea un array di k interi rappresentanti gli indici di riga in data per 
+     * le k tuple inizialmente scelte, in modo casuale, come centroidi; la scelta
+     * è determinata dal seme {@code seed} del generatore pseudo-casuale.
+     * @param k numero di cluster da generare.
+     * @param seed seme del generatore pseudo-casuale.
+     * @return l'array con gli indici delle k righe inizialmente scelti come centroidi.
+     * @throws data.OutOfRangeSampleSize
+     */
+    public int[] sampling(int k, long seed) throws OutOfRangeSampleSize{
         if(k <= 0 || k > numberOfExamples)
             throw new OutOfRangeSampleSize(k, "Il numero di cluster inserito non è valido: ");
         int centroidIndexes[] = new int[k];
         //choose k random different centroids in data.
         Random rand = new Random();
-        rand.setSeed(System.currentTimeMillis());
+        rand.setSeed(seed);
         for (int i = 0; i < k; i++) {   //for each centroid
             boolean found;
             int c;
@@ -325,9 +790,7 @@ public class Data {
      * @return vero se le due tuple indicizzate da i e j sono identiche, falso altrimenti.
      */
     private boolean compare(int i, int j) {
-        Tuple tuple1 = getItemSet(i);
-        Tuple tuple2 = getItemSet(j);
-        return (tuple1.getDistance(tuple2) == 0.0);
+        return (getDistance(i, j) == 0.0);
     }
     
     /**
@@ -352,14 +815,13 @@ public class Data {
      * @return il valore più frequente nel dominio di attribute tra l'insieme di tuple.
      */
     String computePrototype(Set<Integer> idList, DiscreteAttribute attribute) {
-        int max = 0, j;
-        String value, result = "";
-        for (Iterator<String> iterator = attribute.iterator(); iterator.hasNext();) {
-            value = iterator.next();
-            j = attribute.frequency(this, idList, value);
-            if(max < j) {
-                max = j;
-                result = value;
+        int max = 0;
+        String result = "";
+        int frequencies[] = attribute.frequencies(this, idList);
+        for (int code = 0; code < frequencies.length; code++) {
+            if(max < frequencies[code]) {
+                max = frequencies[code];
+                result = attribute.getValue(code);
             }
         }
         return result;
@@ -374,12 +836,9 @@ public class Data {
      * @return la media tra i valori dell'insieme di tuple per l'attributo {@code attribute}.
      */
     Double computePrototype(Set<Integer> idList, ContinuousAttribute attribute) {
-        Double value = 0.0, result;
-        Integer index;
-        for (Iterator<Integer> iterator = idList.iterator(); iterator.hasNext();) {
-            index = iterator.next();
-            value = (Double) data.get(index).get(attribute.getIndex()); //data[index][attribute.getIndex()]
-        }
-        return result = value/idList.size();
+        double sum = 0.0;
+        for (Iterator<Integer> iterator = idList.iterator(); iterator.hasNext();)
+            sum += getContinuousValue(iterator.next(), attribute.getIndex()); //data[index][attribute.getIndex()]
+        return sum/idList.size();
     }
 }
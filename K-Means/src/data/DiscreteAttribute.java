@@ -17,6 +17,9 @@
 
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
@@ -26,8 +29,13 @@ import java.util.TreeSet;
  * @author Andrea Mercanti
  */
 public class DiscreteAttribute extends Attribute implements Iterable<String>{
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = -3966790741000172968L;
     /**Insieme dei valori costituenti il dominio*/
     private TreeSet<String> values;
+    /**Dizionario dei valori del dominio, nello stesso ordine di {@code values}: 
+    la posizione di ciascun valore nel dizionario ne costituisce il codice*/
+    private transient String[] dictionary;
     
     /**
      * <p>Inizializza le features descriventi l'attributo con i valori {@code name}, 
@@ -40,6 +48,19 @@ public class DiscreteAttribute extends Attribute implements Iterable<String>{
     DiscreteAttribute(String name, int index, TreeSet<String> values) {
         super(name, index);
         this.values = values;
+        this.dictionary = values.toArray(new String[values.size()]);
+    }
+    
+    /**
+     * <p>Legge l'attributo serializzato e ne ricostruisce il dizionario, che 
+     * non fa parte della forma serializzata.
+     * @param in stream da cui leggere l'attributo.
+     * @throws IOException in caso di errori di lettura.
+     * @throws ClassNotFoundException se una classe serializzata non è disponibile.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        dictionary = values.toArray(new String[values.size()]);
     }
     
     /**
@@ -50,6 +71,26 @@ public class DiscreteAttribute extends Attribute implements Iterable<String>{
     	return values.size();
     }
     
+    /**
+     * <p>Restituisce il codice del valore {@code v} nel dizionario dell'attributo,
+     * ovvero la sua posizione nell'ordinamento lessicografico del dominio.
+     * @param v valore discreto da codificare.
+     * @return il codice di {@code v}, oppure un valore negativo se {@code v} 
+     *         non appartiene al dominio.
+     */
+    int getCode(String v){
+        return Arrays.binarySearch(dictionary, v);
+    }
+
+    /**
+     * <p>Restituisce il valore del dominio a cui corrisponde il codice {@code code}.
+     * @param code codice del valore nel dizionario dell'attributo.
+     * @return il valore discreto codificato da {@code code}.
+     */
+    String getValue(int code){
+        return dictionary[code];
+    }
+
     /**
      * <p>Determina il numero di volte che il valore v compare in corrispondenza 
      * dell'attributo corrente (indice di colonna) negli esempi memorizzati in 
@@ -61,13 +102,29 @@ public class DiscreteAttribute extends Attribute implements Iterable<String>{
      */
     int frequency(Data data, Set<Integer> idList, String v) {
         int freq = 0;
+        int code = getCode(v);
         for (Iterator<Integer> iterator = idList.iterator(); iterator.hasNext();) {
-            if (v.equals((String) data.getAttributeValue(iterator.next(), index)))
+            if (data.getDiscreteCode(iterator.next(), index) == code)
                 freq++;
         }
         return freq;
     }
 
+    /**
+     * <p>Determina, con un'unica scansione di idList, il numero di occorrenze 
+     * di ciascun valore del dominio in corrispondenza dell'attributo corrente
+     * negli esempi memorizzati in data e indicizzati (per riga) da idList.
+     * @param data tabella su cui lavorare.
+     * @param idList insieme degli indici di riga di alcune tuple memorizzate in data.
+     * @return l'array delle occorrenze, indicizzato per codice del valore discreto.
+     */
+    int[] frequencies(Data data, Set<Integer> idList) {
+        int freq[] = new int[dictionary.length];
+        for (Iterator<Integer> iterator = idList.iterator(); iterator.hasNext();)
+            freq[data.getDiscreteCode(iterator.next(), index)]++;
+        return freq;
+    }
+
     /**
      * <p>Restituisce un iteratore per l'attributo, visto come una 
      * collection, così da poter scandire i valori del dominio.
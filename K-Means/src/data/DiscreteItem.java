@@ -1,5 +1,8 @@
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
 /*
  * Copyright (C) 2018 Andrea Mercanti 
  *
@@ -23,6 +26,11 @@ package data;
  * @author Andrea Mercanti
  */
 public class DiscreteItem extends Item {
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = -1546258941180953221L;
+    /**Codice del valore dell'item nel dizionario dell'attributo*/
+    private transient int code;
+    
     /**
      * <p>Inizializza i valori descriventi l'item con i valori {@code attribute}
      * e {@code value} passati come parametri.
@@ -31,6 +39,7 @@ public class DiscreteItem extends Item {
      */
     DiscreteItem(DiscreteAttribute attribute, String value) {
         super(attribute, value);
+        code = attribute.getCode(value);
     }
 
     /**
@@ -52,4 +61,51 @@ public class DiscreteItem extends Item {
         else
             return 1.0;
     }
+
+    /**
+     * <p>Verifica se il valore dell'item puntato da {@code this} è uguale al 
+     * valore dell'attributo nella tupla di indice {@code exampleIndex} della 
+     * tabella {@code data}, confrontandone i codici nel dizionario dell'attributo.
+     * @param data tabella di riferimento.
+     * @param exampleIndex indice di riga della tupla da confrontare.
+     * @return 0 se i due valori sono uguali, 1 altrimenti.
+     */
+    @Override
+    double distance(Data data, int exampleIndex) {
+        if (data.getDiscreteCode(exampleIndex, getAttribute().getIndex()) == code)
+            return 0.0;
+        else
+            return 1.0;
+    }
+
+    /**
+     * <p>Restituisce il codice del valore dell'item nel dizionario dell'attributo.
+     * @return il codice del valore, negativo se il valore non appartiene al dominio.
+     */
+    int getCode() {
+        return code;
+    }
+
+    /**
+     * <p>Legge l'item serializzato e ne ricalcola il codice nel dizionario 
+     * dell'attributo.
+     * @param in stream da cui leggere l'item.
+     * @throws IOException in caso di errori di lettura.
+     * @throws ClassNotFoundException se una classe serializzata non è disponibile.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        code = ((DiscreteAttribute) getAttribute()).getCode((String) getValue());
+    }
+
+    /**
+     * <p>Assegna all'item il valore {@code value} e ne ricalcola il codice nel
+     * dizionario dell'attributo.
+     * @param value nuovo valore discreto dell'item.
+     */
+    @Override
+    void setValue(Object value) {
+        super.setValue(value);
+        code = ((DiscreteAttribute) getAttribute()).getCode((String) value);
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+/**
+ * <p>Calcola le distanze tra le righe di una tabella e i centroidi di un 
+ * insieme di cluster, con la stessa misura di {@link Tuple#getDistance(Data, int)}.
+ * Le implementazioni sono create da {@link CentroidKernel#create(Tuple[], Data)},
+ * non vengono modificate dopo la costruzione e possono essere usate da più 
+ * thread contemporaneamente.
+ * @author Andrea Mercanti
+ */
+public interface DistanceKernel {
+
+    /**
+     * <p>Restituisce il numero di cluster.
+     * @return il numero di centroidi.
+     */
+    int getNumberOfClusters();
+
+    /**
+     * <p>Calcola la distanza della riga di indice {@code row} da ciascun centroide.
+     * @param row indice di riga della tupla nella tabella.
+     * @param distances array, di lunghezza almeno pari al numero di cluster, 
+     *                  in cui memorizzare la distanza da ciascun centroide.
+     */
+    void distances(int row, double[] distances);
+
+    /**
+     * <p>Calcola la distanza della riga di indice {@code row} dal centroide del
+     * cluster in posizione {@code cluster}.
+     * @param row indice di riga della tupla nella tabella.
+     * @param cluster posizione del cluster.
+     * @return la distanza della riga dal centroide.
+     */
+    double distance(int row, int cluster);
+}
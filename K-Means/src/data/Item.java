@@ -26,6 +26,11 @@ import java.util.Set;
  * @author Andrea Mercanti
  */
 public abstract class Item implements Serializable{
+    /**Versione della forma serializzata: è quella calcolata per la prima 
+    versione della classe, così che i modelli salvati con la serializzazione
+    Java (file .dmp) restino leggibili; i campi aggiunti in seguito alle 
+    sottoclassi sono transienti e vengono ricostruiti alla lettura*/
+    private static final long serialVersionUID = -7846684369220748843L;
     /**attributo coinvolto nell'item*/
     Attribute attribute;
     /**valore assegnato all'attributo*/
@@ -58,6 +63,14 @@ public abstract class Item implements Serializable{
         return value;
     }
 
+    /**
+     * <p>Assegna all'item il valore {@code value}.
+     * @param value nuovo valore dell'item tra quelli nel dominio dell'attributo.
+     */
+    void setValue(Object value) {
+        this.value = value;
+    }
+
     /**
      * <p>Restituisce la stringa rappresentante lo stato dell'oggetto item, che
      * consiste esclusivamente nel valore ch'esso assume.
@@ -76,6 +89,17 @@ public abstract class Item implements Serializable{
      */
     abstract double distance(Object a);
     
+    /**
+     * <p>Determina la distanza tra il valore dell'item corrente e il valore che
+     * l'attributo dell'item assume nella tupla di indice {@code exampleIndex} 
+     * della tabella {@code data}, leggendolo direttamente dalle colonne della
+     * tabella senza costruire alcun item intermedio.
+     * @param data tabella di riferimento.
+     * @param exampleIndex indice di riga della tupla da confrontare.
+     * @return la distanza tra i due valori, secondo la stessa misura di {@link #distance(Object)}.
+     */
+    abstract double distance(Data data, int exampleIndex);
+    
     /**
      * <p>Modifica il membro value, assegnandogli il valore restituito da
      * {@code data.computePrototype(clusteredData,attribute)}.
@@ -83,6 +107,6 @@ public abstract class Item implements Serializable{
      * @param clusteredData insieme di indici delle righe della matrice in data che formano il cluster.
      */
     public void update(Data data, Set<Integer> clusteredData) {
-        value = data.computePrototype(clusteredData, attribute);
+        setValue(data.computePrototype(clusteredData, attribute));
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import events.EventFactory;
+
+/**
+ * <p>Misura una fase della costruzione di una tabella {@link Data}. Se la JVM
+ * offre Flight Recorder la sonda è un evento {@code LoadEvent}, altrimenti non 
+ * registra nulla.
+ * @author Andrea Mercanti
+ */
+interface LoadProbe {
+    /**Sonda che non registra nulla*/
+    LoadProbe DISABLED = new LoadProbe() {
+        @Override
+        public void begin() {}
+
+        @Override
+        public void complete(String table, String stage, long rows) {}
+    };
+    /**Fabbrica delle sonde*/
+    EventFactory<LoadProbe> EVENTS = EventFactory.load("data.LoadEvent", LoadProbe.class, DISABLED);
+
+    /**
+     * <p>Avvia la misura della fase.
+     */
+    void begin();
+
+    /**
+     * <p>Conclude la misura della fase.
+     * @param table nome della tabella.
+     * @param stage nome della fase.
+     * @param rows numero di righe della tabella note al termine della fase.
+     */
+    void complete(String table, String stage, long rows);
+}
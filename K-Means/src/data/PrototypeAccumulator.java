@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.util.Arrays;
+
+/**
+ * <p>Accumula, per un sottoinsieme di tuple della tabella, le statistiche
+ * necessarie a calcolarne il prototipo: la somma dei valori normalizzati di 
+ * ciascun attributo continuo e le occorrenze di ciascun valore di ogni attributo discreto.
+ * Accumulatori relativi a sottoinsiemi disgiunti possono essere fusi con
+ * {@link #merge(PrototypeAccumulator)}, così che il prototipo di un insieme
+ * di tuple possa essere calcolato per parti, anche in parallelo.
+ * <p>Poiché le tuple possono anche essere tolte con {@link #remove(int)}, un 
+ * accumulatore può rappresentare la sola variazione di un insieme di tuple: 
+ * fondendolo con le statistiche dell'insieme, queste restano aggiornate al 
+ * costo delle sole tuple aggiunte o tolte.
+ * @author Andrea Mercanti
+ */
+public class PrototypeAccumulator {
+    /**Tabella a cui si riferiscono gli indici di riga accumulati*/
+    private Data data;
+    /**Somme dei valori normalizzati di ciascun attributo continuo, indicizzate per posizione dell'attributo*/
+    private double[] sums;
+    /**Occorrenze dei valori di ciascun attributo discreto, indicizzate per
+    posizione dell'attributo e per codice del valore (null per gli attributi continui)*/
+    private int[][] counts;
+    /**Numero di tuple accumulate*/
+    private int size;
+    /**Vero se l'accumulatore è stato modificato dall'ultimo azzeramento*/
+    private boolean updated;
+
+    /**
+     * <p>Crea un accumulatore vuoto per le tuple della tabella {@code data}.
+     * @param data tabella a cui si riferiscono le tuple da accumulare.
+     */
+    public PrototypeAccumulator(Data data) {
+        this.data = data;
+        int attributes = data.getNumberOfExplanatoryAttributes();
+        sums = new double[attributes];
+        counts = new int[attributes][];
+        for (int j = 0; j < attributes; j++) {
+            Attribute attribute = data.getAttribute(j);
+            if (attribute instanceof DiscreteAttribute)
+                counts[j] = new int[((DiscreteAttribute) attribute).getNumberOfDistinctValues()];
+        }
+    }
+
+    /**
+     * <p>Aggiunge alle statistiche i valori della tupla di indice {@code exampleIndex}.
+     * @param exampleIndex indice di riga della tupla da accumulare.
+     */
+    public void add(int exampleIndex) {
+        for (int j = 0; j < sums.length; j++) {
+            if (counts[j] == null)
+                sums[j] += data.getScaledValue(exampleIndex, j);
+            else
+                counts[j][data.getDiscreteCode(exampleIndex, j)]++;
+        }
+        size++;
+        updated = true;
+    }
+
+    /**
+     * <p>Toglie dalle statistiche i valori della tupla di indice {@code exampleIndex}.
+     * @param exampleIndex indice di riga della tupla da togliere.
+     */
+    public void remove(int exampleIndex) {
+        for (int j = 0; j < sums.length; j++) {
+            if (counts[j] == null)
+                sums[j] -= data.getScaledValue(exampleIndex, j);
+            else
+                counts[j][data.getDiscreteCode(exampleIndex, j)]--;
+        }
+        size--;
+        updated = true;
+    }
+
+    /**
+     * <p>Aggiunge alle statistiche correnti quelle accumulate da {@code other}
+     * sulla stessa tabella.
+     * @param other accumulatore da fondere con quello corrente.
+     */
+    public void merge(PrototypeAccumulator other) {
+        if (!other.updated)
+            return;
+        for (int j = 0; j < sums.length; j++) {
+            if (counts[j] == null)
+                sums[j] += other.sums[j];
+            else {
+                int[] mine = counts[j], theirs = other.counts[j];
+                for (int code = 0; code < mine.length; code++)
+                    mine[code] += theirs[code];
+            }
+        }
+        size += other.size;
+        updated = true;
+    }
+
+    /**
+     * <p>Azzera le statistiche accumulate.
+     */
+    public void clear() {
+        if (!updated)
+            return;
+        for (int j = 0; j < sums.length; j++) {
+            sums[j] = 0.0;
+            if (counts[j] != null)
+                Arrays.fill(counts[j], 0);
+        }
+        size = 0;
+        updated = false;
+    }
+
+    /**
+     * <p>Verifica se l'accumulatore è stato modificato dall'ultimo azzeramento.
+     * @return vero se sono state aggiunte, tolte o fuse delle tuple, falso altrimenti.
+     */
+    public boolean isUpdated() {
+        return updated;
+    }
+
+    /**
+     * <p>Restituisce il numero di tuple accumulate (al netto di quelle tolte).
+     * @return la cardinalità del sottoinsieme di tuple accumulato.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * <p>Restituisce il prototipo dell'attributo in posizione {@code attributeIndex}
+     * per le tuple accumulate: la media dei valori normalizzati se l'attributo è continuo,
+     * il valore più frequente (il primo in ordine lessicografico, a parità di
+     * occorrenze) se è discreto.
+     * @param attributeIndex posizione dell'attributo nello schema della tabella.
+     * @return il valore prototipo dell'attributo.
+     */
+    Object getPrototype(int attributeIndex) {
+        if (counts[attributeIndex] == null)
+            return sums[attributeIndex] / size;
+        int max = 0, result = 0;
+        int[] frequencies = counts[attributeIndex];
+        for (int code = 0; code < frequencies.length; code++) {
+            if (max < frequencies[code]) {
+                max = frequencies[code];
+                result = code;
+            }
+        }
+        return ((DiscreteAttribute) data.getAttribute(attributeIndex)).getValue(result);
+    }
+
+    /**
+     * <p>Aggiorna ciascun item della tupla {@code centroid} con il prototipo
+     * dell'attributo corrispondente; se non è stata accumulata alcuna tupla il
+     * centroide resta invariato. I valori continui del centroide sono 
+     * aggiornati direttamente nello spazio normalizzato.
+     * @param centroid tupla da aggiornare.
+     * @return la distanza tra il centroide prima e dopo l'aggiornamento, 
+     *         misurata come in {@link Tuple#getDistance(Tuple)}.
+     */
+    public double updatePrototype(Tuple centroid) {
+        if (size == 0)
+            return 0.0;
+        double shift = 0.0;
+        for (int i = 0; i < centroid.getLength(); i++) {
+            Item item = centroid.get(i);
+            Attribute attribute = item.getAttribute();
+            Object prototype = getPrototype(attribute.getIndex());
+            if (item instanceof ContinuousItem) {
+                ContinuousItem continuous = (ContinuousItem) item;
+                double mean = (Double) prototype;
+                shift += Math.abs(continuous.getScaledValue() - mean);
+                continuous.setScaledValue(mean);
+            } else {
+                if (!prototype.equals(item.getValue()))
+                    shift += 1.0;
+                item.setValue(prototype);
+            }
+        }
+        return shift;
+    }
+}
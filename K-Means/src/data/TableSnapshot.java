@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * <p>Modella l'istantanea binaria, per colonne, di una tabella caricata dalla 
+ * base di dati, salvata su disco locale per evitare di rileggere la tabella 
+ * quando questa non è cambiata. L'istantanea contiene lo schema (con gli 
+ * estremi degli attributi continui e i dizionari degli attributi discreti) e 
+ * le colonne primitive della tabella, ed è letta mappando il file in memoria.
+ * <p>Il formato del file è il seguente, con gli interi in ordine big-endian:
+ * <pre>
+ * int    MAGIC, int VERSION
+ * long   numero di righe della tabella nella base di dati
+ * long   sonda di modifica della tabella
+ * int    numero di tuple
+ *        schema, come in {@link BinaryFormat#writeSchema(java.io.DataOutput, java.util.List)}
+ * per ciascun attributo: la colonna, double[] o int[] di codici
+ * </pre>
+ * <p>Il numero di righe e la sonda di modifica registrati nell'istantanea 
+ * vengono confrontati con quelli correnti della tabella: se differiscono 
+ * l'istantanea non è più valida e la tabella va ricaricata.
+ * @author Andrea Mercanti
+ */
+class TableSnapshot {
+    /**Numero magico che identifica un file di istantanea*/
+    private static final int MAGIC = 0x4B4D5453;
+    /**Versione del formato del file*/
+    private static final int VERSION = 1;
+
+    /**Attributi della tabella, nell'ordine dello schema*/
+    private List<Attribute> attributes;
+    /**Colonne degli attributi continui (null per gli attributi discreti)*/
+    private double[][] continuousColumns;
+    /**Colonne codificate degli attributi discreti (null per gli attributi continui)*/
+    private int[][] discreteColumns;
+    /**Numero di tuple della tabella*/
+    private int numberOfExamples;
+
+    /**
+     * <p>Crea l'istantanea a partire dal contenuto già letto dal file.
+     * @param attributes attributi della tabella.
+     * @param continuousColumns colonne degli attributi continui.
+     * @param discreteColumns colonne codificate degli attributi discreti.
+     * @param numberOfExamples numero di tuple della tabella.
+     */
+    private TableSnapshot(List<Attribute> attributes, double[][] continuousColumns, int[][] discreteColumns, int numberOfExamples) {
+        this.attributes = attributes;
+        this.continuousColumns = continuousColumns;
+        this.discreteColumns = discreteColumns;
+        this.numberOfExamples = numberOfExamples;
+    }
+
+    /**
+     * <p>Restituisce gli attributi della tabella nell'ordine dello schema.
+     * @return lo schema della tabella.
+     */
+    List<Attribute> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * <p>Restituisce le colonne degli attributi continui.
+     * @return le colonne continue, null in corrispondenza degli attributi discreti.
+     */
+    double[][] getContinuousColumns() {
+        return continuousColumns;
+    }
+
+    /**
+     * <p>Restituisce le colonne codificate degli attributi discreti.
+     * @return le colonne discrete, null in corrispondenza degli attributi continui.
+     */
+    int[][] getDiscreteColumns() {
+        return discreteColumns;
+    }
+
+    /**
+     * <p>Restituisce il numero di tuple della tabella.
+     * @return il numero di righe salvate nell'istantanea.
+     */
+    int getNumberOfExamples() {
+        return numberOfExamples;
+    }
+
+    /**
+     * <p>Legge l'istantanea dal file {@code file} mappandolo in memoria, se 
+     * esiste ed è ancora valida rispetto al numero di righe {@code rows} e alla
+     * sonda di modifica {@code probe} correnti della tabella.
+     * @param file file dell'istantanea.
+     * @param rows numero di righe corrente della tabella.
+     * @param probe sonda di modifica corrente della tabella.
+     * @return l'istantanea, oppure null se il file non esiste, non è valido o 
+     *         non corrisponde più alla tabella.
+     */
+    static TableSnapshot read(File file, long rows, long probe) {
+        if (!file.isFile())
+            return null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+            if (buffer.getLong() != rows || buffer.getLong() != probe)
+                return null;
+            int examples = buffer.getInt();
+            List<Attribute> attributes = BinaryFormat.readSchema(buffer);
+            int count = attributes.size();
+            double[][] continuous = new double[count][];
+            int[][] discrete = new int[count][];
+            for (int j = 0; j < count; j++) {
+                if (attributes.get(j) instanceof ContinuousAttribute) {
+                    continuous[j] = new double[examples];
+                    buffer.asDoubleBuffer().get(continuous[j]);
+                    buffer.position(buffer.position() + examples * 8);
+                } else {
+                    discrete[j] = new int[examples];
+                    buffer.asIntBuffer().get(discrete[j]);
+                    buffer.position(buffer.position() + examples * 4);
+                }
+            }
+            return new TableSnapshot(attributes, continuous, discrete, examples);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * <p>Salva nel file {@code file} l'istantanea della tabella {@code data}, 
+     * insieme al numero di righe {@code rows} e alla sonda di modifica 
+     * {@code probe} della tabella al momento del caricamento. Il file viene 
+     * scritto in un file temporaneo e poi rinominato, così che un caricamento
+     * concorrente non possa leggerne una versione incompleta.
+     * @param file file dell'istantanea.
+     * @param rows numero di righe della tabella.
+     * @param probe sonda di modifica della tabella.
+     * @param data tabella da salvare.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    static void write(File file, long rows, long probe, Data data) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null)
+            directory.mkdirs();
+        File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(rows);
+                out.writeLong(probe);
+                out.writeInt(data.getNumberOfExamples());
+                BinaryFormat.writeSchema(out, data.getAttributeSchema());
+                for (Attribute attribute : data.getAttributeSchema()) {
+                    if (attribute instanceof ContinuousAttribute) {
+                        for (int i = 0; i < data.getNumberOfExamples(); i++)
+                            out.writeDouble(data.getContinuousValue(i, attribute.getIndex()));
+                    } else {
+                        for (int code : data.getDiscreteColumn(attribute.getIndex()))
+                            out.writeInt(code);
+                    }
+                }
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temporary.delete();
+        }
+    }
+
+}
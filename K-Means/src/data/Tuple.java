@@ -29,6 +29,8 @@ import java.util.Set;
  * @author Andrea Mercanti
  */
 public class Tuple implements Serializable{
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = -7270923201009328199L;
     private Item[] tuple;
     
     /**
@@ -58,6 +60,23 @@ public class Tuple implements Serializable{
         return tuple[i];
     }
     
+    /**
+     * <p>Crea una copia della tupla, con item distinti ma con gli stessi 
+     * attributi e valori, che può quindi essere aggiornata indipendentemente.
+     * @return la copia della tupla.
+     */
+    public Tuple copy() {
+        Tuple copy = new Tuple(tuple.length);
+        for (int i = 0; i < tuple.length; i++) {
+            Item item = tuple[i];
+            if (item instanceof DiscreteItem)
+                copy.tuple[i] = new DiscreteItem((DiscreteAttribute) item.getAttribute(), (String) item.getValue());
+            else
+                copy.tuple[i] = new ContinuousItem((ContinuousItem) item);
+        }
+        return copy;
+    }
+    
     /**
      * <p>Memorizza l'item c, ovvero aggiunge l'attributo con il valore dedicato, in 
      * posizione i nella tupla.
@@ -83,6 +102,22 @@ public class Tuple implements Serializable{
         return sum;
     }
     
+    /**
+     * <p>Determina la distanza tra la tupla corrente e la tupla di indice 
+     * {@code exampleIndex} nella tabella {@code data}, come somma delle distanze
+     * tra gli item della tupla corrente e i valori corrispondenti nella riga, 
+     * letti direttamente dalla tabella senza costruire la tupla.
+     * @param data tabella di riferimento.
+     * @param exampleIndex indice di riga della tupla da confrontare.
+     * @return somma delle singole distanze tra item e valori corrispondenti.
+     */
+    public double getDistance(Data data, int exampleIndex) {
+        double sum = 0.0;
+        for(int i = 0; i < tuple.length; i++)
+            sum += tuple[i].distance(data, exampleIndex);
+        return sum;
+    }
+    
     /**
      * <p>Restituisce la media delle distanze tra la tupla corrente e quelle 
      * ottenibili dalle righe della matrice in data aventi indice in clusteredData.
@@ -94,7 +129,7 @@ public class Tuple implements Serializable{
         double avg = 0.0, sumD = 0.0;
         for (Iterator<Integer> iterator = clusteredData.iterator(); iterator.hasNext();) {
             Integer next = iterator.next();
-            double d = getDistance(data.getItemSet(next));
+            double d = getDistance(data, next);
             sumD += d;
         }
         avg = sumD/clusteredData.size();
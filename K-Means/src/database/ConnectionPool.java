@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * <p>Modella un insieme limitato di connessioni riutilizzabili verso una stessa
+ * base di dati, identificata dall'URL JDBC, così che i caricamenti ripetuti non
+ * debbano caricare il driver e instaurare ogni volta una nuova connessione.
+ * <p>Le connessioni inattive vengono verificate prima di essere riassegnate e 
+ * chiuse quando restano inutilizzate oltre il tempo massimo di inattività; se
+ * tutte le connessioni sono in uso, la richiesta attende che una venga 
+ * restituita, fino al tempo massimo di attesa.
+ * <p>Poiché l'URL e il driver sono configurabili, il pool può essere creato 
+ * anche verso una base di dati locale incorporata (per esempio 
+ * {@code jdbc:h2:mem:test} con il driver {@code org.h2.Driver}).
+ * @author Andrea Mercanti
+ */
+public class ConnectionPool {
+    /**URL JDBC della base di dati*/
+    private String url;
+    /**Nome dell'utente per l'accesso alla base di dati*/
+    private String user;
+    /**Password di autenticazione dell'utente*/
+    private String password;
+    /**Numero massimo di connessioni aperte contemporaneamente*/
+    private int maxSize;
+    /**Millisecondi di inattività dopo i quali una connessione viene chiusa*/
+    private long idleTimeout;
+    /**Millisecondi di attesa massima di una connessione libera*/
+    private long acquireTimeout = 30000;
+    /**Secondi concessi al driver per verificare una connessione inattiva*/
+    private int validationTimeout = 2;
+    /**Connessioni inattive, la più recentemente restituita in testa*/
+    private Deque<PooledConnection> idle = new ArrayDeque<>();
+    /**Numero di connessioni aperte, inattive o in uso*/
+    private int open;
+    /**Vero se il pool è stato chiuso*/
+    private boolean closed;
+
+    /**
+     * <p>Crea un pool di al più {@code maxSize} connessioni verso la base di dati
+     * identificata da {@code url}, caricando una sola volta il driver 
+     * {@code driverClassName}.
+     * @param driverClassName nome della classe del driver JDBC.
+     * @param url URL JDBC della base di dati.
+     * @param user nome dell'utente per l'accesso.
+     * @param password password di autenticazione dell'utente.
+     * @param maxSize numero massimo di connessioni aperte contemporaneamente.
+     * @param idleTimeout millisecondi di inattività dopo i quali una connessione viene chiusa.
+     */
+    public ConnectionPool(String driverClassName, String url, String user, String password, int maxSize, long idleTimeout) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Il pool deve contenere almeno una connessione");
+        try {
+            Class.forName(driverClassName);
+        } catch (ClassNotFoundException ex) {
+            ex.printStackTrace();
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * <p>Restituisce l'URL JDBC della base di dati.
+     * @return l'URL della base di dati.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * <p>Imposta il tempo massimo di attesa di una connessione libera.
+     * @param acquireTimeout millisecondi di attesa massima.
+     */
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * <p>Imposta il tempo concesso al driver per verificare una connessione 
+     * inattiva prima di riassegnarla.
+     * @param validationTimeout secondi concessi per la verifica.
+     */
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * <p>Assegna una connessione valida: la più recente tra quelle inattive, 
+     * oppure una nuova se il pool non ha raggiunto la dimensione massima; 
+     * altrimenti attende che ne venga restituita una.
+     * @return la connessione assegnata.
+     * @throws SQLException se la connessione non può essere instaurata, se il 
+     *                      pool è chiuso o se l'attesa supera il tempo massimo.
+     */
+    PooledConnection acquire() throws SQLException {
+        long deadline = System.currentTimeMillis() + acquireTimeout;
+        while (true) {
+            PooledConnection candidate = null;
+            synchronized (this) {
+                while (candidate == null) {
+                    if (closed)
+                        throw new SQLException("Il pool di connessioni è chiuso");
+                    evictIdle();
+                    if (!idle.isEmpty())
+                        candidate = idle.pollFirst();
+                    else if (open < maxSize) {
+                        open++;
+                        break;
+                    } else {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0)
+                            throw new SQLException("Nessuna connessione libera entro " + acquireTimeout + " ms");
+                        try {
+                            wait(remaining);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Attesa di una connessione interrotta");
+                        }
+                    }
+                }
+            }
+            
+            /*La verifica e l'apertura delle connessioni avvengono fuori dal 
+            monitor, per non bloccare le altre richieste*/
+            if (candidate == null) {
+                try {
+                    return new PooledConnection(DriverManager.getConnection(url, user, password));
+                } catch (SQLException ex) {
+                    discarded();
+                    throw ex;
+                }
+            }
+            if (candidate.isValid(validationTimeout))
+                return candidate;
+            candidate.close();
+            discarded();
+        }
+    }
+
+    /**
+     * <p>Restituisce al pool la connessione {@code connection}, che torna 
+     * disponibile per le richieste successive; se il pool è stato chiuso la
+     * connessione viene chiusa.
+     * @param connection connessione da restituire.
+     */
+    void release(PooledConnection connection) {
+        connection.touch();
+        synchronized (this) {
+            if (!closed) {
+                idle.addFirst(connection);
+                evictIdle();
+                notifyAll();
+                return;
+            }
+        }
+        connection.close();
+        discarded();
+    }
+
+    /**
+     * <p>Chiude il pool e tutte le connessioni inattive; le connessioni in uso
+     * vengono chiuse quando sono restituite.
+     */
+    public void close() {
+        Deque<PooledConnection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = idle;
+            idle = new ArrayDeque<>();
+            notifyAll();
+        }
+        for (PooledConnection connection : toClose) {
+            connection.close();
+            discarded();
+        }
+    }
+
+    /**
+     * <p>Chiude le connessioni inattive da più del tempo massimo di inattività.
+     * Poiché le connessioni più recenti sono in testa, la scansione parte dal
+     * fondo e si ferma alla prima connessione ancora utilizzabile. Se delle 
+     * connessioni vengono chiuse, le richieste in attesa vengono risvegliate
+     * perché possano aprirne di nuove al loro posto.
+     */
+    private synchronized void evictIdle() {
+        long limit = System.currentTimeMillis() - idleTimeout;
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        boolean evicted = false;
+        while (it.hasNext()) {
+            PooledConnection connection = it.next();
+            if (connection.getLastUsed() >= limit)
+                break;
+            it.remove();
+            connection.close();
+            open--;
+            evicted = true;
+        }
+        if (evicted)
+            notifyAll();
+    }
+
+    /**
+     * <p>Registra la chiusura di una connessione, liberandone il posto nel pool.
+     */
+    private synchronized void discarded() {
+        open--;
+        notifyAll();
+    }
+}
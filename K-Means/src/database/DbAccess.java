@@ -18,51 +18,107 @@
 package database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 /**
  * <p> Classe che realizza l'accesso ossia la connessione alla base di dati per 
  * mezzo del driver apposito per MySQL attraverso il sottoprotocollo adatto, del 
  * protocollo JDBC.
+ * <p>Le connessioni sono ottenute da un {@link ConnectionPool}: 
+ * {@link #initConnection()} ne prende in prestito una e {@link #closeConnection()}
+ * la restituisce al pool, così che caricamenti ripetuti riutilizzino la stessa 
+ * connessione e gli statement precompilati su di essa. Il pool predefinito è
+ * condiviso da tutte le istanze create con il costruttore senza argomenti; 
+ * driver, URL e credenziali possono essere ridefiniti con le proprietà di 
+ * sistema {@code kmeans.db.driver}, {@code kmeans.db.url}, {@code kmeans.db.user},
+ * {@code kmeans.db.password} e {@code kmeans.db.poolSize}.
  * @author Andrea Mercanti 
  */
 public class DbAccess {
     /**Driver per il collegamento alla piattaforma/DBMS MySQL*/
-    private String DRIVER_CLASS_NAME = "org.gjt.mm.mysql.Driver";
+    private static final String DRIVER_CLASS_NAME = "org.gjt.mm.mysql.Driver";
     /**Sottoprotocollo del protocollo JDBC per la connettività alla piattaforma/DMBS MySQL*/
-    private final String DBMS = "jdbc:mysql";
+    private static final String DBMS = "jdbc:mysql";
     /**Contiene l’identificativo del server su cui risiede la base di dati (per esempio localhost)*/
-    private final String SERVER = "localhost";
+    private static final String SERVER = "localhost";
     /**Contiene il nome della base di dati*/
-    private final String DATABASE = "MapDB";
+    private static final String DATABASE = "MapDB";
     /**La porta su cui il DBMS MySQL accetta le connessioni*/
-    private final String PORT = "3306";
+    private static final String PORT = "3306";
     /**Contiene il nome dell’utente per l’accesso alla base di dati*/
-    private final String USER_ID = "MapUser";
+    private static final String USER_ID = "MapUser";
     /**Contiene la password di autenticazione per l’utente identificato da USER_ID*/
-    private final String PASSWORD = "map";
+    private static final String PASSWORD = "map";
+    /**Numero predefinito di connessioni del pool condiviso*/
+    private static final int POOL_SIZE = 4;
+    /**Millisecondi di inattività dopo i quali il pool condiviso chiude una connessione*/
+    private static final long IDLE_TIMEOUT = 5 * 60 * 1000;
+    /**Pool condiviso dalle istanze create con il costruttore senza argomenti*/
+    private static ConnectionPool defaultPool;
+    
+    /**Pool da cui ottenere le connessioni*/
+    private ConnectionPool pool;
+    /**Connessione presa in prestito dal pool*/
+    private PooledConnection pooled;
+    /**Numero di righe da prelevare per volta nelle interrogazioni in streaming:
+    per MySQL Connector/J il valore {@code Integer.MIN_VALUE} richiede di ricevere 
+    il resultset riga per riga invece di bufferizzarlo interamente nel client*/
+    private int fetchSize;
     /**Gestisce una connessione*/
     Connection conn;
     
     /**
-     * <p>Impartisce al class loader l’ordine di caricare il driver per MySQL ed 
-     * inizializza la connessione riferita da {@code conn}.
+     * <p>Crea un accesso alla base di dati che ottiene le connessioni dal pool
+     * condiviso.
+     */
+    public DbAccess() {
+        this(getDefaultPool());
+    }
+    
+    /**
+     * <p>Crea un accesso alla base di dati che ottiene le connessioni dal pool
+     * {@code pool}, per esempio verso una base di dati locale incorporata.
+     * @param pool pool da cui ottenere le connessioni.
+     */
+    public DbAccess(ConnectionPool pool) {
+        this.pool = pool;
+        this.fetchSize = pool.getUrl().startsWith(DBMS) ? Integer.MIN_VALUE : 0;
+    }
+    
+    /**
+     * <p>Restituisce il pool condiviso, creandolo al primo utilizzo con i 
+     * parametri di connessione predefiniti o con quelli indicati nelle 
+     * proprietà di sistema.
+     * @return il pool condiviso.
+     */
+    private static synchronized ConnectionPool getDefaultPool() {
+        if (defaultPool == null) {
+            String url = System.getProperty("kmeans.db.url", DBMS + "://" + SERVER + ":" + PORT + "/" + DATABASE);
+            defaultPool = new ConnectionPool(System.getProperty("kmeans.db.driver", DRIVER_CLASS_NAME), url,
+                                             System.getProperty("kmeans.db.user", USER_ID),
+                                             System.getProperty("kmeans.db.password", PASSWORD),
+                                             Integer.getInteger("kmeans.db.poolSize", POOL_SIZE), IDLE_TIMEOUT);
+        }
+        return defaultPool;
+    }
+    
+    /**
+     * <p>Prende in prestito dal pool una connessione valida e la rende 
+     * disponibile in {@code conn}; il driver viene caricato una sola volta, 
+     * alla creazione del pool.
      * @throws DatabaseConnectionException in caso di fallimento nella connessione 
      *                                     al database.
      */
     public void initConnection() throws DatabaseConnectionException {
+        if (pooled != null)
+            return;
         try {
-            Class.forName(DRIVER_CLASS_NAME);
-        } catch (ClassNotFoundException ex) {
-            ex.printStackTrace();
-        }
-        String DB_URL = DBMS + "://" + SERVER + ":" + PORT + "/" + DATABASE;
-        try {
-            conn = DriverManager.getConnection(DB_URL, USER_ID, PASSWORD);
+            pooled = pool.acquire();
         } catch (SQLException ex) {
             throw new DatabaseConnectionException();
         }
+        conn = pooled.getConnection();
     }
     
     /**
@@ -74,10 +130,48 @@ public class DbAccess {
     }
     
     /**
-     * <p>Chiude la connessione rappresentata da {@code conn}.
+     * <p>Restituisce lo statement precompilato per l'interrogazione {@code sql} 
+     * sulla connessione corrente, riutilizzando quello già creato se la stessa 
+     * interrogazione è stata eseguita in precedenza sulla stessa connessione. 
+     * Lo statement resta di proprietà della connessione e non va chiuso.
+     * @param sql testo dell'interrogazione.
+     * @return lo statement precompilato.
+     * @throws SQLException se la precompilazione fallisce.
+     */
+    PreparedStatement prepareStatement(String sql) throws SQLException {
+        return pooled.prepare(sql);
+    }
+    
+    /**
+     * <p>Restituisce il numero di righe da prelevare per volta nelle 
+     * interrogazioni che leggono una tabella in streaming.
+     * @return il fetch size da impostare sugli statement di lettura.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+    
+    /**
+     * <p>Imposta il numero di righe da prelevare per volta nelle interrogazioni
+     * che leggono una tabella in streaming (per MySQL Connector/J, 
+     * {@code Integer.MIN_VALUE} attiva la lettura riga per riga).
+     * @param fetchSize fetch size da impostare sugli statement di lettura.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+    
+    /**
+     * <p>Restituisce al pool la connessione rappresentata da {@code conn}, 
+     * insieme agli statement precompilati su di essa.
      * @throws SQLException nel caso in cui la chiusura della connessione fallisca.
      */
     public void closeConnection() throws SQLException {
-        conn.close();
+        if (pooled == null)
+            return;
+        PooledConnection released = pooled;
+        pooled = null;
+        conn = null;
+        pool.release(released);
     }
 }
@@ -77,9 +77,9 @@ public class Example implements Comparable<Example>{
      */
     @Override
     public String toString(){
-        String str = "";
+        StringBuilder str = new StringBuilder();
         for(Object o : example)
-            str += o.toString() + " ";
-        return str;
+            str.append(o).append(' ');
+        return str.toString();
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+/**
+ * <p>Modella il destinatario delle transazioni lette in streaming da una tabella 
+ * della base di dati: i valori di ciascuna transazione vengono consegnati uno 
+ * per volta, colonna per colonna, senza costruire oggetti {@code Example}, così
+ * che il destinatario possa decodificarli direttamente nella propria 
+ * rappresentazione.
+ * @author Andrea Mercanti
+ */
+public interface ExampleSink {
+    /**
+     * <p>Riceve il valore numerico della colonna in posizione {@code index} 
+     * nello schema della tabella, per la transazione corrente.
+     * @param index posizione della colonna nello schema della tabella.
+     * @param value valore numerico della colonna.
+     */
+    void addNumber(int index, double value);
+
+    /**
+     * <p>Riceve il valore litterale della colonna in posizione {@code index} 
+     * nello schema della tabella, per la transazione corrente.
+     * @param index posizione della colonna nello schema della tabella.
+     * @param value valore litterale della colonna.
+     */
+    void addString(int index, String value);
+
+    /**
+     * <p>Segnala che tutti i valori della transazione corrente sono stati 
+     * consegnati.
+     */
+    void endExample();
+}
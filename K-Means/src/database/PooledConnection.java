@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Modella una connessione gestita da un {@link ConnectionPool}, insieme agli
+ * statement precompilati creati su di essa. Gli statement sono indicizzati per
+ * testo SQL e restano aperti finché la connessione resta nel pool, così che le
+ * interrogazioni ripetute su di essa non debbano essere analizzate di nuovo dal
+ * driver o dal DBMS; oltre {@link #MAX_STATEMENTS} statement viene chiuso quello
+ * usato meno di recente.
+ * <p>Una connessione è usata da un solo {@link DbAccess} per volta, per tanto 
+ * la classe non è sincronizzata.
+ * @author Andrea Mercanti
+ */
+class PooledConnection {
+    /**Numero massimo di statement precompilati mantenuti per connessione*/
+    static final int MAX_STATEMENTS = 64;
+
+    /**Connessione fisica alla base di dati*/
+    private Connection connection;
+    /**Statement precompilati sulla connessione, in ordine di utilizzo*/
+    private Map<String, PreparedStatement> statements;
+    /**Istante, in millisecondi, in cui la connessione è stata restituita al pool*/
+    private long lastUsed;
+
+    /**
+     * <p>Avvolge la connessione fisica {@code connection}.
+     * @param connection connessione alla base di dati.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    PooledConnection(Connection connection) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= MAX_STATEMENTS)
+                    return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * <p>Restituisce la connessione fisica.
+     * @return la connessione alla base di dati.
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * <p>Restituisce lo statement precompilato per l'interrogazione {@code sql},
+     * creandolo solo al primo utilizzo. Lo statement non va chiuso dal chiamante.
+     * @param sql testo dell'interrogazione.
+     * @return lo statement precompilato, di sola lettura e scorrimento in avanti.
+     * @throws SQLException se la precompilazione fallisce.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * <p>Verifica che la connessione sia ancora utilizzabile.
+     * @param timeout secondi concessi al driver per la verifica.
+     * @return vero se la connessione è valida, falso altrimenti.
+     */
+    boolean isValid(int timeout) {
+        try {
+            return !connection.isClosed() && connection.isValid(timeout);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * <p>Restituisce l'istante in cui la connessione è stata restituita al pool.
+     * @return l'istante, in millisecondi, dell'ultimo utilizzo.
+     */
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * <p>Registra l'istante corrente come quello dell'ultimo utilizzo.
+     */
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * <p>Chiude gli statement precompilati e la connessione fisica, ignorando
+     * eventuali errori.
+     */
+    void close() {
+        for (PreparedStatement statement : statements.values())
+            closeQuietly(statement);
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * <p>Chiude lo statement {@code statement}, ignorando eventuali errori.
+     * @param statement statement da chiudere.
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
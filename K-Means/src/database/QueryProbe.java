@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package database;
+
+import events.EventFactory;
+
+/**
+ * <p>Misura un'interrogazione eseguita da {@link TableData}. Se la JVM offre 
+ * Flight Recorder la sonda è un evento {@code QueryEvent}, altrimenti non 
+ * registra nulla.
+ * @author Andrea Mercanti
+ */
+interface QueryProbe {
+    /**Sonda che non registra nulla*/
+    QueryProbe DISABLED = new QueryProbe() {
+        @Override
+        public void begin() {}
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void complete(String sql, long rows, long bytes) {}
+    };
+    /**Fabbrica delle sonde*/
+    EventFactory<QueryProbe> EVENTS = EventFactory.load("database.QueryEvent", QueryProbe.class, DISABLED);
+
+    /**
+     * <p>Avvia la misura dell'interrogazione.
+     */
+    void begin();
+
+    /**
+     * <p>Verifica se la misura sarà registrata, così da evitare di calcolarne
+     * i campi più costosi quando non serve.
+     * @return vero se la registrazione è abilitata.
+     */
+    boolean isEnabled();
+
+    /**
+     * <p>Conclude la misura dell'interrogazione.
+     * @param sql testo dell'interrogazione.
+     * @param rows numero di righe lette.
+     * @param bytes dimensione stimata dei valori letti.
+     */
+    void complete(String sql, long rows, long bytes);
+}
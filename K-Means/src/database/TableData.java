@@ -18,10 +18,10 @@
 package database;
 
 import database.TableSchema.Column;
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Timestamp;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,6 +35,9 @@ import java.util.TreeSet;
  * @author Andrea Mercanti 
  */
 public class TableData {
+    /**Valore restituito da {@link #getModificationProbe(String)} quando il 
+     * DBMS non permette di stabilire se la tabella è stata modificata*/
+    public static final long UNKNOWN_PROBE = -1;
     /**Accesso alla base di dati*/
     private DbAccess db;
 
@@ -52,7 +55,7 @@ public class TableData {
      * ogni tupla del resultset si crea un oggetto, istanza della classe 
      * {@code Example}, il cui riferimento va incluso nella lista da restituire. 
      * In particolare, per la tupla corrente nel resultset, si estraggono i valori 
-     * dei singoli campi (usando {@code getFloat()} o {@code getString()}), e li 
+     * dei singoli campi (usando {@code getDouble()} o {@code getString()}), e li 
      * si aggiungono all’oggetto istanza della classe {@code Example} che si sta 
      * costruendo.
      * @param table nome della tabella nel database.
@@ -62,33 +65,224 @@ public class TableData {
      * @throws EmptySetException se il resultset è vuoto.
      */
     public List<Example> getDistinctTransazioni(String table) throws SQLException, EmptySetException {
-        Connection c = db.getConnection();
-        Statement s = c.createStatement();
+        return getDistinctTransazioni(table, new TableSchema(db, table));
+    }
+
+    /**
+     * <p>Esegue l'interrogazione che estrae le tuple distinte dalla tabella 
+     * {@code table}, interpretandone i campi secondo lo schema {@code tableSchema}
+     * già ricavato dal chiamante, così che i metadati della tabella non debbano
+     * essere interrogati di nuovo.
+     * @param table nome della tabella nel database.
+     * @param tableSchema schema della tabella.
+     * @return la tabella ristretta alle tuple distinte, dove ognuna è modellata 
+     *         da un oggetto {@code Example}.
+     * @throws SQLException in presenza di errori nella esecuzione della query.
+     * @throws EmptySetException se il resultset è vuoto.
+     */
+    public List<Example> getDistinctTransazioni(String table, TableSchema tableSchema) throws SQLException, EmptySetException {
+        String sql = "SELECT DISTINCT * FROM " + table;
+        QueryProbe event = QueryProbe.EVENTS.create();
+        event.begin();
         ResultSet r;
         try {
-            r = s.executeQuery("SELECT DISTINCT * FROM " + table);
+            r = db.prepareStatement(sql).executeQuery();
         } catch (SQLException e) {
             throw new EmptySetException();
         }
         
         List<Example> examples = new ArrayList<Example>();
         Example example;
-        TableSchema tableSchema = new TableSchema(db, table);
-        
+        boolean measure = event.isEnabled();
+        long bytes = 0;
         while (r.next()) {
             example = new Example();
             for (Column column : tableSchema) {
-                if(column.isNumber())
-                    example.add(new Double(r.getString(column.getColumnName()))); //popolamento della tupla
-                else
-                    example.add(r.getString(column.getColumnName())); //popolamento della tupla
+                if(column.isNumber()) {
+                    example.add(r.getDouble(column.getColumnName())); //popolamento della tupla
+                    bytes += 8;
+                } else {
+                    String value = r.getString(column.getColumnName());
+                    example.add(value); //popolamento della tupla
+                    if (measure && value != null)
+                        bytes += 2 * value.length();
+                }
             }
             examples.add(example);
         }
-        s.close();
+        r.close();
+        event.complete(sql, examples.size(), bytes);
         return examples;
     }
 
+    /**
+     * <p>Esegue l'interrogazione che estrae le tuple distinte dalla tabella 
+     * {@code table}, con schema {@code tableSchema}, e ne consegna i valori uno 
+     * per volta a {@code sink} man mano che vengono letti, senza costruire la 
+     * lista delle transazioni. Lo statement è di sola lettura e scorrimento in 
+     * avanti, con il fetch size configurato in {@link DbAccess#getFetchSize()}, 
+     * così che il driver non debba bufferizzare l'intero resultset; i valori 
+     * numerici sono letti con {@code getDouble()}.
+     * @param table nome della tabella nel database.
+     * @param tableSchema schema della tabella.
+     * @param sink destinatario dei valori di ciascuna transazione.
+     * @return il numero di transazioni lette.
+     * @throws SQLException in presenza di errori nella lettura del resultset.
+     * @throws EmptySetException se l'interrogazione fallisce o il resultset è vuoto.
+     */
+    public int streamDistinctTransazioni(String table, TableSchema tableSchema, ExampleSink sink) throws SQLException, EmptySetException {
+        String sql = "SELECT DISTINCT * FROM " + table;
+        QueryProbe event = QueryProbe.EVENTS.create();
+        event.begin();
+        ResultSet r;
+        try {
+            PreparedStatement s = db.prepareStatement(sql);
+            s.setFetchSize(db.getFetchSize());
+            r = s.executeQuery();
+        } catch (SQLException e) {
+            throw new EmptySetException();
+        }
+        try {
+            /*Posizione nel resultset di ciascuna colonna dello schema*/
+            int positions[] = new int[tableSchema.getNumberOfAttributes()];
+            boolean numbers[] = new boolean[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                Column column = tableSchema.getColumn(i);
+                positions[i] = r.findColumn(column.getColumnName());
+                numbers[i] = column.isNumber();
+            }
+            
+            int rows = 0;
+            boolean measure = event.isEnabled();
+            long bytes = 0;
+            while (r.next()) {
+                for (int i = 0; i < positions.length; i++) {
+                    if (numbers[i]) {
+                        sink.addNumber(i, r.getDouble(positions[i]));
+                        bytes += 8;
+                    } else {
+                        String value = r.getString(positions[i]);
+                        sink.addString(i, value);
+                        if (measure && value != null)
+                            bytes += 2 * value.length();
+                    }
+                }
+                sink.endExample();
+                rows++;
+            }
+            event.complete(sql, rows, bytes);
+            if (rows == 0)
+                throw new EmptySetException();
+            return rows;
+        } finally {
+            r.close();
+        }
+    }
+
+    /**
+     * <p>Restituisce il numero di righe della tabella {@code table}.
+     * @param table nome della tabella nel database.
+     * @return il numero di righe della tabella.
+     * @throws SQLException in presenza di errori nella esecuzione della query.
+     */
+    public long getRowCount(String table) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + table;
+        QueryProbe event = QueryProbe.EVENTS.create();
+        event.begin();
+        ResultSet r = db.prepareStatement(sql).executeQuery();
+        try {
+            return r.next() ? r.getLong(1) : 0;
+        } finally {
+            r.close();
+            event.complete(sql, 1, 8);
+        }
+    }
+
+    /**
+     * <p>Restituisce un valore che cambia quando il contenuto della tabella 
+     * {@code table} viene modificato, da confrontare con quello registrato in 
+     * precedenza per stabilire se la tabella è cambiata. Si usa l'istante 
+     * dell'ultima modifica registrato da MySQL in {@code information_schema}, 
+     * che non richiede di leggere la tabella; se MySQL non lo conosce (per 
+     * esempio dopo il riavvio del server) si ricorre a {@code CHECKSUM TABLE}.
+     * Se l'interrogazione di {@code information_schema} non è supportata dal 
+     * DBMS, se la tabella non vi compare o se il checksum non è disponibile, 
+     * restituisce {@link #UNKNOWN_PROBE}: in tal caso non c'è modo di accorgersi
+     * di una modifica che lasci invariato il numero di righe.
+     * @param table nome della tabella nel database.
+     * @return la sonda di modifica della tabella, oppure {@link #UNKNOWN_PROBE}.
+     */
+    public long getModificationProbe(String table) {
+        String sql = "SELECT UPDATE_TIME FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        QueryProbe event = QueryProbe.EVENTS.create();
+        event.begin();
+        try {
+            PreparedStatement s = db.prepareStatement(sql);
+            s.setString(1, table);
+            ResultSet r = s.executeQuery();
+            try {
+                if (!r.next())
+                    return UNKNOWN_PROBE;
+                Timestamp updated = r.getTimestamp(1);
+                if (updated != null)
+                    return updated.getTime();
+            } finally {
+                r.close();
+                event.complete(sql, 1, 8);
+            }
+        } catch (SQLException ex) {
+            return UNKNOWN_PROBE;
+        }
+        sql = "CHECKSUM TABLE " + table;
+        event = QueryProbe.EVENTS.create();
+        event.begin();
+        try {
+            ResultSet r = db.prepareStatement(sql).executeQuery();
+            try {
+                if (!r.next())
+                    return UNKNOWN_PROBE;
+                long checksum = r.getLong(2);
+                return r.wasNull() ? UNKNOWN_PROBE : checksum;
+            } finally {
+                r.close();
+                event.complete(sql, 1, 8);
+            }
+        } catch (SQLException ex) {
+            return UNKNOWN_PROBE;
+        }
+    }
+
+    /**
+     * <p>Restituisce il nome della tabella {@code table} qualificato con il 
+     * catalogo e lo schema della connessione, quando il driver li conosce, così
+     * che tabelle omonime di basi di dati diverse possano essere distinte (per 
+     * esempio nei nomi dei file delle istantanee). I caratteri diversi da 
+     * lettere, cifre, {@code '_'}, {@code '-'} e {@code '.'} sono sostituiti da
+     * {@code '_'}.
+     * @param table nome della tabella nel database.
+     * @return il nome qualificato della tabella.
+     */
+    public String getQualifiedName(String table) {
+        StringBuilder name = new StringBuilder();
+        try {
+            String catalog = db.getConnection().getCatalog();
+            if (catalog != null && !catalog.isEmpty())
+                name.append(catalog).append('.');
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        try {
+            String schema = db.getConnection().getSchema();
+            if (schema != null && !schema.isEmpty())
+                name.append(schema).append('.');
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        } catch (AbstractMethodError ex) {
+            //driver precedente a JDBC 4.1: lo schema non è noto
+        }
+        return name.append(table).toString().replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
     /**
      * <p>Formula ed esegue una interrogazione SQL che consiste in una proiezione
      * sulla colonna {@code column} della tabella {@code table} nel database, per 
@@ -101,14 +295,20 @@ public class TableData {
      * @throws SQLException in presenza di errori nella esecuzione della query.
      */
     public Set<Object> getDistinctColumnValues(String table, Column column) throws SQLException, DatabaseConnectionException {
-        Connection c = db.getConnection();
-        Statement s = c.createStatement();
-        ResultSet r = s.executeQuery("SELECT DISTINCT " + column.getColumnName() +
-                                     " FROM " + table);
+        String sql = "SELECT DISTINCT " + column.getColumnName() + " FROM " + table;
+        QueryProbe event = QueryProbe.EVENTS.create();
+        event.begin();
+        ResultSet r = db.prepareStatement(sql).executeQuery();
         Set<Object> distinct_values = new TreeSet<>();
-        while(r.next())
-            distinct_values.add(r.getString(column.getColumnName()));
-        s.close();
+        long bytes = 0;
+        while(r.next()) {
+            String value = r.getString(1);
+            distinct_values.add(value);
+            if (value != null)
+                bytes += 2 * value.length();
+        }
+        r.close();
+        event.complete(sql, distinct_values.size(), bytes);
         return distinct_values;
     }
 
@@ -125,16 +325,20 @@ public class TableData {
      *                          pari a null.
      */
     public  Object getAggregateColumnValue(String table, Column column, QUERY_TYPE aggregate) throws SQLException, NoValueException, DatabaseConnectionException {
-        Connection c = db.getConnection();
-        Statement s = c.createStatement();
-        ResultSet r = s.executeQuery("SELECT " + aggregate + "(" + column.getColumnName() + ")" +
-                                     " FROM " + table);
-        Object value;
-        if(r.next())
-            value = r.getDouble(aggregate + "(" + column.getColumnName() + ")");
-        else
-            throw new NoValueException();
-        s.close();
-        return value;
+        String sql = "SELECT " + aggregate + "(" + column.getColumnName() + ")" + " FROM " + table;
+        QueryProbe event = QueryProbe.EVENTS.create();
+        event.begin();
+        ResultSet r = db.prepareStatement(sql).executeQuery();
+        try {
+            if (!r.next())
+                throw new NoValueException();
+            double value = r.getDouble(1);
+            if (r.wasNull())
+                throw new NoValueException();
+            return value;
+        } finally {
+            r.close();
+            event.complete(sql, 1, 8);
+        }
     }
 }
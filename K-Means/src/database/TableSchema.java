@@ -21,10 +21,12 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>Classe modellante lo schema di una qualsiasi tabella della base di dati 
@@ -116,17 +118,62 @@ public class TableSchema implements Iterable<TableSchema.Column>{
 
         Connection con = db.getConnection();
         DatabaseMetaData meta = con.getMetaData();
-        ResultSet res = meta.getColumns(null, null, tableName, null);
+        readColumns(meta.getColumns(null, null, tableName, null), mapSQL_JAVATypes);
+        /*Le basi di dati che memorizzano gli identificatori non quotati in 
+        maiuscolo (o in minuscolo) non trovano la tabella con il nome originale*/
+        if (tableSchema.isEmpty() && meta.storesUpperCaseIdentifiers())
+            readColumns(meta.getColumns(null, null, tableName.toUpperCase(), null), mapSQL_JAVATypes);
+        else if (tableSchema.isEmpty() && meta.storesLowerCaseIdentifiers())
+            readColumns(meta.getColumns(null, null, tableName.toLowerCase(), null), mapSQL_JAVATypes);
+    }
 
+    /**
+     * <p>Aggiunge allo schema le colonne descritte da {@code res}, riconoscendone
+     * il tipo dal nome con cui lo riporta la base di dati oppure, se il nome non
+     * è tra quelli noti (per esempio "CHARACTER VARYING" o "DOUBLE PRECISION"),
+     * dal codice standard JDBC di {@link Types}.
+     * @param res descrizione delle colonne della tabella.
+     * @param mapSQL_JAVATypes tipi noti per nome.
+     * @throws SQLException 
+     */
+    private void readColumns(ResultSet res, Map<String,String> mapSQL_JAVATypes) throws SQLException{
         while (res.next()) {
-            if(mapSQL_JAVATypes.containsKey(res.getString("TYPE_NAME")))
-                tableSchema.add(new Column(res.getString("COLUMN_NAME"), 
-                                mapSQL_JAVATypes.get(res.getString("TYPE_NAME")))
-                                );
+            String type = mapSQL_JAVATypes.get(res.getString("TYPE_NAME"));
+            if (type == null)
+                type = typeOf(res.getInt("DATA_TYPE"));
+            if (type != null)
+                tableSchema.add(new Column(res.getString("COLUMN_NAME"), type));
         }
         res.close();
     }
 
+    /**
+     * <p>Traduce il codice JDBC {@code dataType} di un tipo SQL in "number" o 
+     * "string", per le stesse famiglie di tipi riconosciute per nome.
+     * @param dataType codice del tipo, una delle costanti di {@link Types}.
+     * @return "number", "string" oppure null se il tipo non è gestito.
+     */
+    private static String typeOf(int dataType){
+        switch (dataType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.BIT:
+                return "string";
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "number";
+            default:
+                return null;
+        }
+    }
+
     /**
      * <p>Restituisce l'attributo nella posizione indicata da {@code index} 
      * nello schema della tabella. L'indice deve partire da 0.
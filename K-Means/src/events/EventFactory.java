@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * <p>Crea gli eventi di JDK Flight Recorder con cui l'applicazione misura le 
+ * proprie fasi, senza dipendere a tempo di compilazione dal modulo 
+ * {@code jdk.jfr}. Le classi degli eventi, che estendono {@code jdk.jfr.Event},
+ * si trovano nella cartella {@code jfr} e sono compilate solo se la JDK usata
+ * per la compilazione le supporta; il resto dell'applicazione le vede 
+ * attraverso un'interfaccia e le carica per riflessione. Se la classe 
+ * dell'evento non è disponibile, o la JVM non offre Flight Recorder, al suo
+ * posto viene restituita una sonda che non registra nulla.
+ * @param <T> interfaccia della sonda implementata dall'evento.
+ * @author Andrea Mercanti
+ */
+public final class EventFactory<T> {
+    /**Costruttore della classe dell'evento (null se l'evento non è disponibile)*/
+    private final Constructor<? extends T> constructor;
+    /**Sonda che non registra nulla*/
+    private final T disabled;
+
+    /**
+     * <p>Crea la fabbrica con il costruttore {@code constructor}.
+     * @param constructor costruttore dell'evento, null se non disponibile.
+     * @param disabled sonda che non registra nulla.
+     */
+    private EventFactory(Constructor<? extends T> constructor, T disabled) {
+        this.constructor = constructor;
+        this.disabled = disabled;
+    }
+
+    /**
+     * <p>Carica la classe dell'evento di nome {@code className}, che deve 
+     * implementare l'interfaccia {@code type} ed avere un costruttore senza 
+     * argomenti; se non è possibile le sonde create saranno {@code disabled}.
+     * @param <T> interfaccia della sonda.
+     * @param className nome completo della classe dell'evento.
+     * @param type interfaccia della sonda.
+     * @param disabled sonda che non registra nulla.
+     * @return la fabbrica delle sonde.
+     */
+    public static <T> EventFactory<T> load(String className, Class<T> type, T disabled) {
+        try {
+            ClassLoader loader = type.getClassLoader() != null ? type.getClassLoader() : EventFactory.class.getClassLoader();
+            Class<? extends T> event = Class.forName(className, true, loader).asSubclass(type);
+            Constructor<? extends T> constructor = event.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            constructor.newInstance();       //verifica che la JVM possa creare l'evento
+            return new EventFactory<T>(constructor, disabled);
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError | SecurityException ex) {
+            return new EventFactory<T>(null, disabled);
+        }
+    }
+
+    /**
+     * <p>Verifica se le sonde create sono eventi di Flight Recorder.
+     * @return vero se la classe dell'evento è stata caricata.
+     */
+    public boolean isAvailable() {
+        return constructor != null;
+    }
+
+    /**
+     * <p>Crea una nuova sonda: un nuovo evento di Flight Recorder se 
+     * disponibile, altrimenti la sonda che non registra nulla.
+     * @return la sonda creata.
+     */
+    public T create() {
+        if (constructor == null)
+            return disabled;
+        try {
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException ex) {
+            return disabled;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * <p>Stima la memoria allocata nella JVM sommando i byte allocati da ciascun
+ * thread vivo, se la JVM ne consente la misura (come HotSpot tramite 
+ * {@code com.sun.management.ThreadMXBean}). La differenza tra due letture 
+ * comprende anche le allocazioni dei thread estranei all'algoritmo ed esclude
+ * quelle dei thread terminati nel frattempo: è quindi solo una stima.
+ * @author Andrea Mercanti
+ */
+class AllocationCounter {
+    /**Interfaccia di gestione dei thread, null se non consente la misura delle allocazioni*/
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    /**
+     * <p>Restituisce l'interfaccia di gestione dei thread, se consente la misura
+     * delle allocazioni.
+     * @return l'interfaccia di gestione dei thread, altrimenti null.
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled())
+                return hotspot;
+        }
+        return null;
+    }
+
+    /**
+     * <p>Restituisce il totale dei byte allocati dai thread vivi.
+     * @return il numero di byte allocati, -1 se la misura non è disponibile.
+     */
+    static long allocatedBytes() {
+        if (THREADS == null)
+            return -1;
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0)
+                total += bytes;
+        }
+        return total;
+    }
+}
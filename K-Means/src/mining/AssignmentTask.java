@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.PrototypeAccumulator;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>Modella il passo di assegnazione dell'algoritmo k-means su un insieme di
+ * intervalli di righe della tabella, così da poter essere eseguito in parallelo
+ * su un {@code ForkJoinPool}. Per ciascuna riga determina il cluster più vicino
+ * e, se la riga cambia cluster, ne aggiorna l'assegnazione e ne accumula i 
+ * valori nelle variazioni dell'intervallo relative al vecchio e al nuovo cluster.
+ * <p>Le righe sono suddivise in blocchi di {@link #BLOCK_SIZE} righe e i blocchi
+ * in al più {@link #MAX_RANGES} intervalli contigui, ciascuno con le proprie 
+ * variazioni: la memoria impiegata non cresce con il numero di righe, e la 
+ * suddivisione non dipende dal livello di parallelismo. Fondendo le variazioni
+ * nell'ordine degli intervalli, i centroidi risultano quindi identici qualunque
+ * sia il numero di thread impiegati.
+ * @author Andrea Mercanti
+ */
+class AssignmentTask extends RecursiveAction {
+    /**Versione della forma serializzata, richiesta da RecursiveAction anche se il task non viene serializzato*/
+    private static final long serialVersionUID = 1L;
+    /**Numero di righe della tabella che costituiscono un blocco*/
+    static final int BLOCK_SIZE = 4096;
+    /**Numero massimo di intervalli di blocchi in cui sono suddivise le righe*/
+    static final int MAX_RANGES = 64;
+
+    /**Insieme dei cluster i cui centroidi vanno confrontati con le righe*/
+    private ClusterSet clusterSet;
+    /**Tabella con i dati da assegnare*/
+    private Data data;
+    /**Indice del cluster a cui appartiene ciascuna riga della tabella*/
+    private int[] assignment;
+    /**Distanza di ciascuna riga dal centroide del proprio cluster*/
+    private double[] distances;
+    /**Variazioni per intervallo e per cluster delle righe spostate*/
+    private PrototypeAccumulator[][] partials;
+    /**Numero di righe spostate per intervallo*/
+    private int[] moved;
+    /**Primo intervallo (incluso) da elaborare*/
+    private int fromRange;
+    /**Ultimo intervallo (escluso) da elaborare*/
+    private int toRange;
+
+    /**
+     * <p>Crea il task di assegnazione per gli intervalli di righe in
+     * [{@code fromRange}, {@code toRange}).
+     * @param clusterSet insieme dei cluster.
+     * @param data tabella con i dati da assegnare.
+     * @param assignment array con l'indice del cluster di ciascuna riga, da aggiornare.
+     * @param distances array in cui memorizzare la distanza di ciascuna riga dal proprio centroide.
+     * @param partials variazioni per intervallo e per cluster.
+     * @param moved array in cui memorizzare il numero di righe spostate per intervallo.
+     * @param fromRange primo intervallo da elaborare.
+     * @param toRange intervallo successivo all'ultimo da elaborare.
+     */
+    AssignmentTask(ClusterSet clusterSet, Data data, int[] assignment, double[] distances, PrototypeAccumulator[][] partials, int[] moved, int fromRange, int toRange) {
+        this.clusterSet = clusterSet;
+        this.data = data;
+        this.assignment = assignment;
+        this.distances = distances;
+        this.partials = partials;
+        this.moved = moved;
+        this.fromRange = fromRange;
+        this.toRange = toRange;
+    }
+
+    /**
+     * <p>Restituisce il numero di blocchi in cui sono suddivise le righe della
+     * tabella {@code data}.
+     * @param data tabella da suddividere.
+     * @return il numero di blocchi.
+     */
+    static int numberOfBlocks(Data data) {
+        return (data.getNumberOfExamples() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * <p>Restituisce il numero di intervalli di blocchi in cui sono suddivise 
+     * le righe della tabella {@code data}.
+     * @param data tabella da suddividere.
+     * @return il numero di intervalli, al più {@link #MAX_RANGES}.
+     */
+    static int numberOfRanges(Data data) {
+        return Math.min(numberOfBlocks(data), MAX_RANGES);
+    }
+
+    /**
+     * <p>Restituisce l'indice della prima riga dell'intervallo {@code range}, 
+     * dato il numero di blocchi e di intervalli della tabella.
+     * @param range indice dell'intervallo (pari al numero di intervalli per 
+     *              ottenere la fine dell'ultimo).
+     * @param blocks numero di blocchi della tabella.
+     * @param ranges numero di intervalli della tabella.
+     * @return l'indice della prima riga dell'intervallo.
+     */
+    private int rangeStart(int range, int blocks, int ranges) {
+        int block = (int) ((long) range * blocks / ranges);
+        return Math.min(block * BLOCK_SIZE, data.getNumberOfExamples());
+    }
+
+    /**
+     * <p>Elabora gli intervalli assegnati, suddividendoli a metà finché non
+     * ne resta uno solo.
+     */
+    @Override
+    protected void compute() {
+        if (toRange - fromRange <= 1) {
+            for (int range = fromRange; range < toRange; range++)
+                computeRange(range);
+        } else {
+            int middle = (fromRange + toRange) >>> 1;
+            invokeAll(new AssignmentTask(clusterSet, data, assignment, distances, partials, moved, fromRange, middle),
+                      new AssignmentTask(clusterSet, data, assignment, distances, partials, moved, middle, toRange));
+        }
+    }
+
+    /**
+     * <p>Assegna ciascuna riga dell'intervallo {@code range} al cluster più 
+     * vicino, confrontandola con tutti i centroidi in una volta;
+     * le righe che cambiano cluster vengono aggiunte alla variazione del nuovo 
+     * cluster e tolte da quella del vecchio.
+     * @param range indice dell'intervallo da elaborare.
+     */
+    void computeRange(int range) {
+        PrototypeAccumulator[] accumulators = partials[range];
+        for (PrototypeAccumulator accumulator : accumulators)
+            accumulator.clear();
+        int changes = 0;
+        boolean pruning = clusterSet.isPruning();
+        double centroidDistances[] = new double[accumulators.length];
+        int blocks = numberOfBlocks(data);
+        int end = rangeStart(range + 1, blocks, partials.length);
+        for (int i = rangeStart(range, blocks, partials.length); i < end; i++) {
+            int j = pruning ? clusterSet.nearestIndexWithBounds(i, centroidDistances, range) : clusterSet.nearestIndex(i, centroidDistances, distances);
+            int old = assignment[i];
+            if (j != old) {
+                accumulators[j].add(i);
+                if (old >= 0)
+                    accumulators[old].remove(i);
+                assignment[i] = j;
+                changes++;
+            }
+        }
+        moved[range] = changes;
+    }
+}
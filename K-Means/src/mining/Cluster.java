@@ -18,9 +18,14 @@ package mining;
 
 import data.Tuple;
 import data.Data;
+import data.PrototypeAccumulator;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -32,10 +37,28 @@ import java.util.Set;
  * @author Andrea Mercanti
  */
 public class Cluster implements Serializable{
+    /**Versione della forma serializzata (quella della prima versione della classe)*/
+    private static final long serialVersionUID = 7700219941812833479L;
+    /**Campi della forma serializzata, che resta quella della prima versione 
+    della classe: il centroide e l'insieme degli indici delle tuple del cluster*/
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("centroid", Tuple.class),
+        new ObjectStreamField("clusteredData", Set.class)
+    };
     /**tupla rappresentante le caratteristiche del cluster*/
     private Tuple centroid;
-    /**insieme degli indici delle tuple componenti il cluster*/
-    private Set<Integer> clusteredData;
+    /**insieme dei cluster a cui appartiene il cluster, che ne memorizza le tuple*/
+    private transient ClusterSet owner;
+    /**posizione del cluster nell'insieme owner*/
+    private transient int id;
+    /**indici delle tuple del cluster letti dalla forma serializzata, finché 
+    l'insieme non li trasferisce nella propria assegnazione*/
+    private transient Set<Integer> serializedData;
+    /**statistiche sufficienti delle tuple del cluster, aggiornate solo quando 
+    delle tuple entrano o escono dal cluster*/
+    private transient PrototypeAccumulator statistics;
+    /**vero se le statistiche sono cambiate dall'ultimo calcolo del centroide*/
+    private transient boolean outdated;
     
     
     Cluster() {}
@@ -46,7 +69,75 @@ public class Cluster implements Serializable{
      */
     Cluster(Tuple centroid){
         this.centroid = centroid;
-        clusteredData = new HashSet<Integer>();
+    }
+    
+    /**
+     * <p>Associa il cluster all'insieme {@code owner}, nel quale occupa la 
+     * posizione {@code id}; l'appartenenza delle tuple al cluster è memorizzata
+     * dall'insieme.
+     * @param owner insieme di cui il cluster fa parte.
+     * @param id posizione del cluster nell'insieme.
+     */
+    void bind(ClusterSet owner, int id){
+        this.owner = owner;
+        this.id = id;
+    }
+    
+    /**
+     * <p>Scrive il cluster nella forma serializzata della prima versione della
+     * classe, ricavando l'insieme delle tuple dall'assegnazione dell'insieme.
+     * @param out stream su cui scrivere il cluster.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("centroid", centroid);
+        fields.put("clusteredData", owner != null ? new HashSet<Integer>(getClusteredData()) : new HashSet<Integer>());
+        out.writeFields();
+    }
+    
+    /**
+     * <p>Legge il cluster dalla forma serializzata, conservando l'insieme delle
+     * sue tuple finché l'insieme dei cluster non lo ritira con
+     * {@link #takeSerializedData()}.
+     * @param in stream da cui leggere il cluster.
+     * @throws IOException in caso di errori di lettura.
+     * @throws ClassNotFoundException se una classe serializzata non è disponibile.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        centroid = (Tuple) fields.get("centroid", null);
+        serializedData = (Set<Integer>) fields.get("clusteredData", null);
+    }
+    
+    /**
+     * <p>Restituisce e dimentica gli indici delle tuple letti dalla forma 
+     * serializzata del cluster.
+     * @return gli indici delle tuple del cluster, null se il cluster non è 
+     *         stato letto da uno stream.
+     */
+    Set<Integer> takeSerializedData() {
+        Set<Integer> data = serializedData;
+        serializedData = null;
+        return data;
+    }
+    
+    /**
+     * <p>Restituisce la posizione del cluster nell'insieme di cui fa parte.
+     * @return l'indice del cluster nell'insieme.
+     */
+    int getId(){
+        return id;
+    }
+    
+    /**
+     * <p>Restituisce l'insieme degli indici delle tuple componenti il cluster,
+     * come vista sull'assegnazione memorizzata dall'insieme dei cluster.
+     * @return l'insieme degli indici delle tuple del cluster.
+     */
+    Set<Integer> getClusteredData(){
+        return owner.members(id);
     }
     
     /**
@@ -56,14 +147,74 @@ public class Cluster implements Serializable{
     Tuple getCentroid(){
         return centroid;
     }
-    
+
+    /**
+     * <p>Sostituisce il centro di massa del cluster con la tupla {@code centroid};
+     * le statistiche del cluster non vengono aggiornate.
+     * @param centroid nuovo centroide del cluster.
+     */
+    void setCentroid(Tuple centroid){
+        this.centroid = centroid;
+    }
+
     /**
      * <p>Costruisce il centro di massa sulla base dell'insime non vuoto di oggetti.
      * @param data tabella sulla quale calcolare il centroide.
      */
     void computeCentroid(Data data){
         for(int i = 0; i < centroid.getLength(); i++)
-            centroid.get(i).update(data,clusteredData);
+            centroid.get(i).update(data,getClusteredData());
+    }
+    
+    /**
+     * <p>Azzera le statistiche sufficienti del cluster, predisponendole per le
+     * tuple della tabella {@code data}.
+     * @param data tabella a cui si riferiscono le tuple del cluster.
+     */
+    void resetStatistics(Data data){
+        statistics = new PrototypeAccumulator(data);
+        outdated = false;
+    }
+    
+    /**
+     * <p>Aggiorna le statistiche sufficienti del cluster con la variazione 
+     * {@code delta}, che accumula le tuple entrate e uscite dal cluster.
+     * @param delta variazione delle tuple del cluster.
+     */
+    void updateStatistics(PrototypeAccumulator delta){
+        if (delta.isUpdated()) {
+            statistics.merge(delta);
+            outdated = true;
+        }
+    }
+    
+    /**
+     * <p>Aggiorna le statistiche sufficienti del cluster per l'ingresso 
+     * ({@code entering} vero) o l'uscita della tupla di indice {@code id}.
+     * @param id indice di riga della tupla.
+     * @param entering vero se la tupla entra nel cluster, falso se ne esce.
+     */
+    void updateStatistics(int id, boolean entering){
+        if (statistics == null)
+            return;
+        if (entering)
+            statistics.add(id);
+        else
+            statistics.remove(id);
+        outdated = true;
+    }
+    
+    /**
+     * <p>Costruisce il centro di massa sulla base delle statistiche sufficienti
+     * del cluster, solo se sono cambiate dall'ultimo calcolo; se il cluster è 
+     * vuoto il centroide resta invariato.
+     * @return la distanza di cui si è spostato il centroide.
+     */
+    double computeCentroid(){
+        if (!outdated)
+            return 0.0;
+        outdated = false;
+        return statistics.updatePrototype(centroid);
     }
     
     /**
@@ -78,7 +229,7 @@ public class Cluster implements Serializable{
      * @return Vero se il cluster è mutato, falso altrimenti.
      */
     boolean addData(int id){
-        return clusteredData.add(id);
+        return owner.move(id, this.id);
     }
     
     /**
@@ -88,7 +239,7 @@ public class Cluster implements Serializable{
      * @return Vero se la tupla appartiene, falso altrimenti.
      */
     boolean contain(int id){
-        return clusteredData.contains(id);
+        return owner.clusterOf(id) == this.id;
     }
     
     /**
@@ -97,7 +248,8 @@ public class Cluster implements Serializable{
      * @param id indice di riga della tupla da eliminare.
      */
     void removeTuple(int id){
-        clusteredData.remove(id);
+        if (contain(id))
+            owner.move(id, -1);
     }
     
     /**
@@ -107,37 +259,32 @@ public class Cluster implements Serializable{
      */
     @Override
     public String toString(){
-        String str = "Centroid=(";
-        for(int i = 0; i < centroid.getLength(); i++)
-            str += centroid.get(i) + " ";
-        str += ")";
-        return str;
-
+        StringWriter str = new StringWriter();
+        try {
+            ClusterReport.writeCentroid(centroid, str);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     //StringWriter non solleva eccezioni
+        }
+        return str.toString();
     }
     
     /**
      * <p>Restuisce la stringa rappresentante lo stato dell'oggetto cioè la tupla 
      * rappresentante il centro di massa (centroide) del cluster, nonché
      * l'insieme delle transazioni appartenenti con, ciascuna, relativa distanza 
-     * dal centroide.
+     * dal centroide. Per cluster molto grandi conviene scrivere il resoconto 
+     * direttamente su un flusso con {@link ClusterReport}.
      * @param data tabella dalla quale prelevare le tuple appartenenti al cluster.
      * @return la stringa che modella l'intero stato del cluster.
      */
     public String toString(Data data){
-        String str = "Centroid=(";
-        for(int i = 0; i < centroid.getLength(); i++)
-            str += centroid.get(i)+ " ";
-        str += ")\nExamples:\n";
-//        /*for each cluster element*/
-        for(Iterator<Integer> iterator = clusteredData.iterator(); iterator.hasNext();) {
-            Integer next = iterator.next();
-            str += "[";
-            for(int j = 0; j < data.getNumberOfExplanatoryAttributes(); j++)
-                str += data.getAttributeValue(next, j) + " ";
-            str += "] dist=" + getCentroid().getDistance(data.getItemSet(next)) + "\n";
+        StringWriter str = new StringWriter();
+        try {
+            new ClusterReport().write(owner, id, data, str);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     //StringWriter non solleva eccezioni
         }
-        str += "\nAvgDistance=" + getCentroid().avgDistance(data, clusteredData);
-        return str;
+        return str.toString();
     }
 
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.Tuple;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Scrive il resoconto di un insieme di cluster su un flusso di caratteri: 
+ * per ciascun cluster il centroide, le tuple che vi appartengono con la 
+ * rispettiva distanza dal centroide e la distanza media. Le tuple sono 
+ * raggruppate per cluster con un'unica scansione dell'assegnazione e le 
+ * distanze calcolate nell'ultimo passo di assegnazione vengono riusate, così
+ * che il costo della scrittura sia lineare nel numero di tuple e non richieda 
+ * di costruire in memoria l'intero resoconto.
+ * <p>Il numero di tuple elencate per ciascun cluster può essere limitato con 
+ * {@link #setLimit(int)} e, insieme a {@link #setOffset(int)}, consente di 
+ * scorrere il resoconto di cluster molto grandi una pagina alla volta; la 
+ * distanza media è comunque calcolata su tutte le tuple del cluster.
+ * @author Andrea Mercanti
+ */
+public class ClusterReport {
+    /**Posizione, tra le tuple di ciascun cluster, della prima tupla da elencare*/
+    private int offset = 0;
+    /**Numero massimo di tuple da elencare per ciascun cluster*/
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * <p>Imposta la posizione, tra le tuple di ciascun cluster in ordine di 
+     * riga, della prima tupla da elencare (0 se non specificata).
+     * @param offset numero di tuple da saltare in ciascun cluster.
+     */
+    public void setOffset(int offset) {
+        this.offset = Math.max(0, offset);
+    }
+
+    /**
+     * <p>Imposta il numero massimo di tuple da elencare per ciascun cluster 
+     * (nessun limite se non specificato); con 0 vengono scritti i soli 
+     * centroidi e le distanze medie.
+     * @param limit numero massimo di tuple per cluster.
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * <p>Scrive il resoconto dell'insieme dei cluster {@code C}, assegnato alla
+     * tabella {@code data}, sul flusso di byte {@code out} con codifica UTF-8; 
+     * al termine il flusso viene svuotato ma non chiuso.
+     * @param C insieme dei cluster.
+     * @param data tabella assegnata ai cluster.
+     * @param out flusso di byte su cui scrivere.
+     * @throws IOException se la scrittura su {@code out} fallisce.
+     */
+    public void write(ClusterSet C, Data data, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write(C, data, writer);
+        writer.flush();
+    }
+
+    /**
+     * <p>Scrive il resoconto dell'insieme dei cluster {@code C}, assegnato alla
+     * tabella {@code data}, sul flusso di caratteri {@code out}.
+     * @param C insieme dei cluster.
+     * @param data tabella assegnata ai cluster.
+     * @param out flusso di caratteri su cui scrivere.
+     * @throws IOException se la scrittura su {@code out} fallisce.
+     */
+    public void write(ClusterSet C, Data data, Writer out) throws IOException {
+        int k = C.getNumberOfClusters();
+        int assignment[] = C.getAssignment();
+        /*raggruppa gli indici di riga per cluster, in ordine di riga*/
+        int start[] = new int[k + 1];
+        for (int cluster : assignment) {
+            if (cluster >= 0)
+                start[cluster + 1]++;
+        }
+        for (int j = 0; j < k; j++)
+            start[j + 1] += start[j];
+        int members[] = new int[start[k]], next[] = start.clone();
+        for (int id = 0; id < assignment.length; id++) {
+            if (assignment[id] >= 0)
+                members[next[assignment[id]]++] = id;
+        }
+        
+        for (int j = 0; j < k; j++) {
+            out.write(j + ": ");
+            writeCluster(C, j, data, members, start[j], start[j + 1], out);
+            out.write("\n");
+        }
+    }
+
+    /**
+     * <p>Scrive il resoconto del solo cluster in posizione {@code j} 
+     * nell'insieme {@code C}, assegnato alla tabella {@code data}.
+     * @param C insieme dei cluster.
+     * @param j posizione del cluster nell'insieme.
+     * @param data tabella assegnata ai cluster.
+     * @param out flusso di caratteri su cui scrivere.
+     * @throws IOException se la scrittura su {@code out} fallisce.
+     */
+    void write(ClusterSet C, int j, Data data, Writer out) throws IOException {
+        int assignment[] = C.getAssignment();
+        int size = 0;
+        for (int cluster : assignment) {
+            if (cluster == j)
+                size++;
+        }
+        int members[] = new int[size];
+        for (int id = 0, m = 0; m < size; id++) {
+            if (assignment[id] == j)
+                members[m++] = id;
+        }
+        writeCluster(C, j, data, members, 0, size, out);
+    }
+
+    /**
+     * <p>Scrive il resoconto del cluster in posizione {@code j} nell'insieme 
+     * {@code C}, le cui tuple sono {@code members[from..to)}.
+     * @param C insieme dei cluster.
+     * @param j posizione del cluster nell'insieme.
+     * @param data tabella assegnata ai cluster.
+     * @param members indici di riga delle tuple, raggruppati per cluster.
+     * @param from posizione in {@code members} della prima tupla del cluster.
+     * @param to posizione in {@code members} successiva all'ultima tupla del cluster.
+     * @param out flusso di caratteri su cui scrivere.
+     * @throws IOException se la scrittura su {@code out} fallisce.
+     */
+    private void writeCluster(ClusterSet C, int j, Data data, int[] members, int from, int to, Writer out) throws IOException {
+        writeCentroid(C.get(j).getCentroid(), out);
+        out.write("\nExamples:\n");
+        int first = (int) Math.min((long) from + offset, to);
+        int last = (int) Math.min((long) first + limit, to);
+        double sum = 0.0;
+        for (int m = from; m < to; m++) {
+            double distance = C.distance(data, members[m]);
+            sum += distance;
+            if (m >= first && m < last) {
+                out.write("[");
+                data.writeExample(out, members[m], " ");
+                out.write("] dist=");
+                out.write(Double.toString(distance));
+                out.write("\n");
+            }
+        }
+        int omitted = (to - from) - (last - first);
+        if (omitted > 0)
+            out.write("... " + omitted + " examples not shown\n");
+        out.write("\nAvgDistance=");
+        out.write(Double.toString(sum / (to - from)));
+    }
+
+    /**
+     * <p>Scrive sul flusso di caratteri {@code out} la tupla {@code centroid}.
+     * @param centroid centroide del cluster.
+     * @param out flusso di caratteri su cui scrivere.
+     * @throws IOException se la scrittura su {@code out} fallisce.
+     */
+    static void writeCentroid(Tuple centroid, Writer out) throws IOException {
+        out.write("Centroid=(");
+        for (int i = 0; i < centroid.getLength(); i++) {
+            out.write(String.valueOf(centroid.get(i)));
+            out.write(" ");
+        }
+        out.write(")");
+    }
+}
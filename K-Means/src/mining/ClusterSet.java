@@ -18,18 +18,90 @@
 package mining;
 
 import data.Tuple;
+import data.CentroidKernel;
+import data.CentroidSnapshot;
 import data.Data;
+import data.DistanceKernel;
 import data.OutOfRangeSampleSize;
+import data.PrototypeAccumulator;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <p>Modella una qualsiasi tabella di transizioni come un insieme di cluster.
  * @author Andrea Mercanti
  */
 public class ClusterSet implements Serializable{
+    /**Versione della forma serializzata, che resta quella della prima versione
+    della classe (l'array dei cluster e la posizione libera) così che i modelli
+    salvati con la serializzazione Java restino leggibili*/
+    private static final long serialVersionUID = 6341206266343347468L;
+    /**Campi della forma serializzata*/
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("C", Cluster[].class),
+        new ObjectStreamField("i", Integer.TYPE)
+    };
     Cluster C[];
     /**posizione valida per la memorizzazione di un nuovo cluster in C*/
     int i = 0;
+    /**indice del cluster a cui appartiene ciascuna riga della tabella (-1 se non assegnata)*/
+    private transient int[] assignment;
+    /**numero di righe appartenenti a ciascun cluster*/
+    private transient int[] counts;
+    /**tabella a cui si riferiscono l'assegnazione e le statistiche dei cluster*/
+    private transient Data assignedData;
+    /**variazioni, per intervallo di righe e per cluster, delle righe spostate nell'ultimo passo di assegnazione*/
+    private transient PrototypeAccumulator[][] partials;
+    /**numero di righe spostate di cluster, per intervallo, nell'ultimo passo di assegnazione*/
+    private transient int[] moved;
+    /**numero di distanze calcolate, per intervallo, nell'ultimo passo di assegnazione con i limiti di Hamerly*/
+    private transient int[] evaluated;
+    /**numero di distanze evitate, per intervallo, nell'ultimo passo di assegnazione con i limiti di Hamerly*/
+    private transient int[] skipped;
+    /**numero di distanze calcolate nell'ultimo passo di assegnazione*/
+    private transient long evaluations;
+    /**numero di distanze evitate nell'ultimo passo di assegnazione*/
+    private transient long skippedEvaluations;
+    /**distanza di ciascuna riga dal centroide del proprio cluster calcolata 
+    nell'ultimo passo di assegnazione (NaN se non è stata calcolata)*/
+    private transient double[] distances;
+    /**vero se i centroidi non si sono spostati dall'ultimo passo di assegnazione,
+    così che le distanze in distances sono ancora valide*/
+    private transient boolean distancesCurrent;
+    /**vero se il passo di assegnazione sfrutta la disuguaglianza triangolare per 
+    evitare il calcolo delle distanze (limiti di Hamerly)*/
+    private transient boolean pruning;
+    /**limite superiore della distanza di ciascuna riga dal centroide del proprio cluster*/
+    private transient double[] upper;
+    /**limite inferiore della distanza di ciascuna riga dai centroidi degli altri cluster*/
+    private transient double[] lower;
+    /**spostamento di ciascun centroide dall'ultimo passo di assegnazione*/
+    private transient double[] shift;
+    /**metà della distanza di ciascun centroide dal centroide di un altro cluster più vicino*/
+    private transient double[] halfSeparation;
+    /**spostamento massimo tra i centroidi dall'ultimo passo di assegnazione*/
+    private transient double maxShift;
+    /**secondo spostamento massimo tra i centroidi dall'ultimo passo di assegnazione*/
+    private transient double secondMaxShift;
+    /**posizione del centroide che ha subito lo spostamento massimo*/
+    private transient int maxShiftCluster;
+    /**Centroidi in forma primitiva, ricostruiti a ogni passo di assegnazione*/
+    private transient DistanceKernel kernel;
+    /**Motivo per cui si è fermata l'ultima esecuzione delle iterazioni*/
+    private transient StopReason stopReason;
     
     /**
      * <p>Costruisce un insieme che può ospitare {@code k} cluster.
@@ -37,6 +109,55 @@ public class ClusterSet implements Serializable{
      */
     ClusterSet(int k) {
         C = new Cluster[k];
+        counts = new int[k];
+        assignment = new int[0];
+    }
+    
+    /**
+     * <p>Scrive l'insieme nella forma serializzata della prima versione della
+     * classe; ciascun cluster vi scrive l'insieme delle proprie tuple.
+     * @param out stream su cui scrivere l'insieme.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("C", C);
+        fields.put("i", i);
+        out.writeFields();
+    }
+    
+    /**
+     * <p>Legge l'insieme dalla forma serializzata e ricostruisce l'assegnazione
+     * delle righe ai cluster dagli insiemi di tuple letti con ciascun cluster.
+     * @param in stream da cui leggere l'insieme.
+     * @throws IOException in caso di errori di lettura.
+     * @throws ClassNotFoundException se una classe serializzata non è disponibile.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        C = (Cluster[]) fields.get("C", null);
+        i = fields.get("i", 0);
+        counts = new int[C.length];
+        List<Set<Integer>> members = new ArrayList<>(C.length);
+        int rows = 0;
+        for (int j = 0; j < C.length; j++) {
+            Set<Integer> clusteredData = null;
+            if (C[j] != null) {
+                C[j].bind(this, j);
+                clusteredData = C[j].takeSerializedData();
+            }
+            if (clusteredData == null)
+                clusteredData = Collections.emptySet();
+            for (int id : clusteredData)
+                rows = Math.max(rows, id + 1);
+            members.add(clusteredData);
+        }
+        int restored[] = new int[rows];
+        Arrays.fill(restored, -1);
+        for (int j = 0; j < C.length; j++)
+            for (int id : members.get(j))
+                restored[id] = j;
+        restoreAssignment(restored);
     }
     
     /**
@@ -44,10 +165,170 @@ public class ClusterSet implements Serializable{
      * @param c cluster da aggiungere.
      */
     void add(Cluster c) {
+        c.bind(this, i);
         C[i] = c;
         i++;    //oppure in maniera più compatta C[i++] = c;
     }
     
+    /**
+     * <p>Predispone l'assegnazione e le statistiche dei cluster per la tabella
+     * {@code data}, nessuna riga della quale appartiene inizialmente ad alcun cluster.
+     * @param data tabella da assegnare ai cluster.
+     */
+    private void resetAssignment(Data data) {
+        assignment = new int[data.getNumberOfExamples()];
+        Arrays.fill(assignment, -1);
+        Arrays.fill(counts, 0);
+        int ranges = AssignmentTask.numberOfRanges(data);
+        partials = new PrototypeAccumulator[ranges][C.length];
+        for (int r = 0; r < ranges; r++)
+            for (int j = 0; j < C.length; j++)
+                partials[r][j] = new PrototypeAccumulator(data);
+        moved = new int[ranges];
+        evaluated = new int[ranges];
+        skipped = new int[ranges];
+        distances = new double[assignment.length];
+        distancesCurrent = false;
+        for (int j = 0; j < i; j++)
+            C[j].resetStatistics(data);
+        assignedData = data;
+        upper = null;
+        lower = null;
+    }
+    
+    /**
+     * <p>Abilita o disabilita, nel passo di assegnazione, l'uso dei limiti di
+     * Hamerly: per ciascuna riga si mantengono un limite superiore alla distanza
+     * dal proprio centroide e un limite inferiore alla distanza dagli altri, 
+     * aggiornati con gli spostamenti dei centroidi; per la disuguaglianza 
+     * triangolare, finché il primo resta minore del secondo (o della metà della 
+     * distanza dal centroide più vicino) la riga non può cambiare cluster e le 
+     * distanze non vanno calcolate. L'assegnazione risultante è la stessa 
+     * ottenuta calcolando tutte le distanze.
+     * @param pruning vero per abilitare i limiti, falso per calcolare sempre tutte le distanze.
+     */
+    void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+    
+    /**
+     * <p>Restituisce la posizione del cluster a cui appartiene la riga {@code id}.
+     * @param id indice di riga della tupla nella tabella.
+     * @return l'indice del cluster della riga, -1 se la riga non è assegnata.
+     */
+    int clusterOf(int id) {
+        return id >= 0 && id < assignment.length ? assignment[id] : -1;
+    }
+    
+    /**
+     * <p>Restituisce l'assegnazione delle righe ai cluster, senza copiarla.
+     * @return l'indice del cluster di ciascuna riga (-1 se la riga non è assegnata).
+     */
+    int[] getAssignment() {
+        return assignment;
+    }
+    
+    /**
+     * <p>Ripristina l'assegnazione delle righe ai cluster letta da un modello 
+     * salvato, ricalcolando la cardinalità di ciascun cluster; non essendo 
+     * associata alcuna tabella, le statistiche dei cluster non vengono calcolate.
+     * @param assignment indice del cluster di ciascuna riga (-1 se la riga non è assegnata).
+     */
+    void restoreAssignment(int[] assignment) {
+        Arrays.fill(counts, 0);
+        for (int cluster : assignment) {
+            if (cluster >= counts.length)
+                throw new IllegalArgumentException("Cluster inesistente: " + cluster);
+            if (cluster >= 0)
+                counts[cluster]++;
+        }
+        this.assignment = assignment;
+        assignedData = null;
+        distances = null;
+    }
+    
+    /**
+     * <p>Sposta la riga {@code id} nel cluster in posizione {@code cluster}, 
+     * togliendola dal cluster a cui apparteneva in precedenza.
+     * @param id indice di riga della tupla nella tabella.
+     * @param cluster posizione del cluster di destinazione, -1 per non assegnare la riga.
+     * @return vero se la riga ha cambiato cluster, falso se vi apparteneva già.
+     */
+    boolean move(int id, int cluster) {
+        int old = assignment[id];
+        if (old == cluster)
+            return false;
+        if (old >= 0) {
+            counts[old]--;
+            C[old].updateStatistics(id, false);
+        }
+        if (cluster >= 0) {
+            counts[cluster]++;
+            C[cluster].updateStatistics(id, true);
+        }
+        assignment[id] = cluster;
+        if (distances != null)
+            distances[id] = Double.NaN;
+        if (upper != null) {
+            //i limiti della riga non valgono più: verranno ricalcolati
+            upper[id] = Double.POSITIVE_INFINITY;
+            lower[id] = 0.0;
+        }
+        return true;
+    }
+    
+    /**
+     * <p>Restituisce l'insieme degli indici delle righe appartenenti al cluster
+     * in posizione {@code cluster}, come vista non modificabile sull'assegnazione.
+     * @param cluster posizione del cluster nell'insieme.
+     * @return l'insieme degli indici di riga del cluster.
+     */
+    Set<Integer> members(final int cluster) {
+        return new AbstractSet<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int remaining = counts[cluster];
+                    private int next = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (remaining == 0)
+                            throw new NoSuchElementException();
+                        do
+                            next++;
+                        while (assignment[next] != cluster);
+                        remaining--;
+                        return next;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && clusterOf((Integer) o) == cluster;
+            }
+
+            @Override
+            public int size() {
+                return counts[cluster];
+            }
+        };
+    }
+    
+    /**
+     * <p>Restituisce il numero di cluster che l'insieme può ospitare.
+     * @return il numero k di cluster.
+     */
+    int getNumberOfClusters() {
+        return C.length;
+    }
+    
     /**
      * <p>Restituisce l'i-esimo cluster aggiunto all'insieme.
      * @param i numero ordinale del cluster aggiunto.
@@ -64,11 +345,47 @@ public class ClusterSet implements Serializable{
      * @param data tabella da modellare.
      */
     void initializeCentroids(Data data) throws OutOfRangeSampleSize{
-        int centroidIndexes[] = data.sampling(C.length);
+        initializeCentroids(data, data.sampling(C.length));
+    }
+    
+    /**
+     * <p>Sceglie i primi centroidi per modellare la tabella {@code data} secondo
+     * la strategia {@code seeding}, e per ognuno di essi crea un cluster che verrà
+     * memorizzato in modo ordinale nell'insieme.
+     * @param data tabella da modellare.
+     * @param seeding strategia di scelta dei centroidi iniziali.
+     * @param seed seme del generatore pseudo-casuale della strategia.
+     * @param pool pool su cui eseguire i calcoli in parallelo, null per l'esecuzione sequenziale.
+     */
+    void initializeCentroids(Data data, SeedingStrategy seeding, long seed, ForkJoinPool pool) throws OutOfRangeSampleSize{
+        initializeCentroids(data, seeding.select(data, C.length, seed, pool));
+    }
+    
+    /**
+     * <p>Crea un cluster per ciascuno dei centroidi iniziali {@code centroids},
+     * per esempio i centroidi di una soluzione precedente con meno cluster 
+     * (avvio a caldo), che vengono usati senza essere copiati.
+     * @param data tabella da modellare.
+     * @param centroids centroidi iniziali, uno per cluster.
+     */
+    void initializeCentroids(Data data, Tuple[] centroids) {
+        for (Tuple centroid : centroids)
+            add(new Cluster(centroid));
+        resetAssignment(data);
+    }
+    
+    /**
+     * <p>Crea un cluster per ciascuna delle righe di {@code data} indicizzate da 
+     * {@code centroidIndexes}, usandola come centroide iniziale.
+     * @param data tabella da modellare.
+     * @param centroidIndexes indici di riga dei centroidi iniziali.
+     */
+    private void initializeCentroids(Data data, int[] centroidIndexes) {
         for(int i = 0; i < centroidIndexes.length; i++) {
             Tuple centroidI = data.getItemSet(centroidIndexes[i]);
             add(new Cluster(centroidI));
         }
+        resetAssignment(data);
     }
     
     /**
@@ -90,6 +407,392 @@ public class ClusterSet implements Serializable{
         return C[j];
     }
     
+    /**
+     * <p>Calcola la distanza tra la tupla di indice {@code id} nella tabella 
+     * {@code data} ed il centroide di ciascun cluster dell'insieme, restituendo
+     * il cluster più vicino senza materializzare la tupla.
+     * @param data tabella di riferimento.
+     * @param id indice di riga della tupla nella tabella.
+     * @return il cluster il cui centroide dista meno dalla tupla.
+     */
+    Cluster nearestCluster(Data data, int id) {
+        return C[nearestIndex(data, id)];
+    }
+    
+    /**
+     * <p>Calcola la distanza tra la tupla di indice {@code id} nella tabella 
+     * {@code data} ed il centroide di ciascun cluster dell'insieme, restituendo
+     * la posizione nell'insieme del cluster più vicino.
+     * @param data tabella di riferimento.
+     * @param id indice di riga della tupla nella tabella.
+     * @return la posizione del cluster il cui centroide dista meno dalla tupla.
+     */
+    int nearestIndex(Data data, int id) {
+        return nearestIndex(data, id, null);
+    }
+    
+    /**
+     * <p>Determina la posizione del cluster più vicino alla tupla di indice 
+     * {@code id} come {@link #nearestIndex(Data, int)}, memorizzando in 
+     * {@code distances} la distanza della tupla dal centroide di quel cluster.
+     * @param data tabella di riferimento.
+     * @param id indice di riga della tupla nella tabella.
+     * @param distances array in cui memorizzare la distanza, indicizzato per 
+     *                  riga (null per non memorizzarla).
+     * @return la posizione del cluster il cui centroide dista meno dalla tupla.
+     */
+    int nearestIndex(Data data, int id, double[] distances) {
+        double min = 0, distance;
+        int j = 0;
+        for (int i = 0; i < C.length; i++) {
+            distance = C[i].getCentroid().getDistance(data, id);
+            if (min > distance || i == 0) {
+                min = distance;
+                j = i;
+            }
+        }
+        if (distances != null)
+            distances[id] = min;
+        return j;
+    }
+    
+    /**
+     * <p>Determina la posizione del cluster più vicino alla tupla di indice 
+     * {@code id} come {@link #nearestIndex(Data, int, double[])}, calcolando 
+     * le distanze da tutti i centroidi in una volta con il nucleo predisposto 
+     * dal passo di assegnazione in corso.
+     * @param id indice di riga della tupla nella tabella.
+     * @param centroidDistances array di appoggio, di lunghezza pari al numero di
+     *                          cluster, in cui il nucleo scrive le distanze della
+     *                          tupla da ciascun centroide.
+     * @param distances array in cui memorizzare la distanza, indicizzato per riga.
+     * @return la posizione del cluster il cui centroide dista meno dalla tupla.
+     */
+    int nearestIndex(int id, double[] centroidDistances, double[] distances) {
+        kernel.distances(id, centroidDistances);
+        double min = centroidDistances[0];
+        int j = 0;
+        for (int c = 1; c < centroidDistances.length; c++) {
+            if (min > centroidDistances[c]) {
+                min = centroidDistances[c];
+                j = c;
+            }
+        }
+        distances[id] = min;
+        return j;
+    }
+    
+    /**
+     * <p>Determina la posizione del cluster più vicino alla tupla di indice 
+     * {@code id} come {@link #nearestIndex(Data, int)}, calcolando le distanze 
+     * solo se i limiti di Hamerly della riga non garantiscono che la tupla resti
+     * nel proprio cluster; i limiti della riga vengono aggiornati di conseguenza
+     * e, se è stata calcolata, viene memorizzata la distanza della tupla dal 
+     * centroide del cluster più vicino. Le distanze calcolate ed evitate sono 
+     * conteggiate nell'intervallo {@code range} a cui appartiene la riga. Le 
+     * distanze sono calcolate con il nucleo predisposto dal passo di 
+     * assegnazione in corso.
+     * @param id indice di riga della tupla nella tabella.
+     * @param centroidDistances array di appoggio, di lunghezza pari al numero di
+     *                          cluster, in cui il nucleo scrive le distanze della
+     *                          tupla da ciascun centroide.
+     * @param range intervallo di righe a cui appartiene la tupla.
+     * @return la posizione del cluster il cui centroide dista meno dalla tupla.
+     */
+    int nearestIndexWithBounds(int id, double[] centroidDistances, int range) {
+        int a = assignment[id];
+        if (a >= 0) {
+            upper[id] += shift[a];
+            lower[id] -= (a == maxShiftCluster) ? secondMaxShift : maxShift;
+            double bound = Math.max(halfSeparation[a], lower[id]);
+            if (upper[id] < bound) {
+                distances[id] = Double.NaN;
+                skipped[range] += C.length;
+                return a;
+            }
+            upper[id] = kernel.distance(id, a);
+            distances[id] = upper[id];
+            evaluated[range]++;
+            if (upper[id] < bound) {
+                skipped[range] += C.length - 1;
+                return a;
+            }
+        }
+        evaluated[range] += C.length;
+        double min = Double.POSITIVE_INFINITY, second = Double.POSITIVE_INFINITY, distance;
+        int j = 0;
+        kernel.distances(id, centroidDistances);
+        for (int c = 0; c < C.length; c++) {
+            distance = centroidDistances[c];
+            if (distance < min) {
+                second = min;
+                min = distance;
+                j = c;
+            } else if (distance < second)
+                second = distance;
+        }
+        upper[id] = min;
+        lower[id] = second;
+        distances[id] = min;
+        return j;
+    }
+    
+    /**
+     * <p>Predispone i limiti di Hamerly per il passo di assegnazione: calcola la
+     * metà della distanza di ciascun centroide dal centroide più vicino e gli 
+     * spostamenti massimi dei centroidi dall'ultimo passo.
+     * @param data tabella con i dati da assegnare.
+     */
+    private void prepareBounds(Data data) {
+        int n = data.getNumberOfExamples();
+        if (upper == null || upper.length != n) {
+            upper = new double[n];
+            lower = new double[n];
+            Arrays.fill(upper, Double.POSITIVE_INFINITY);
+            shift = new double[C.length];
+            halfSeparation = new double[C.length];
+        }
+        Arrays.fill(halfSeparation, Double.POSITIVE_INFINITY);
+        for (int a = 0; a < C.length; a++) {
+            for (int b = a + 1; b < C.length; b++) {
+                double half = C[a].getCentroid().getDistance(C[b].getCentroid()) / 2;
+                halfSeparation[a] = Math.min(halfSeparation[a], half);
+                halfSeparation[b] = Math.min(halfSeparation[b], half);
+            }
+        }
+        maxShift = secondMaxShift = 0.0;
+        maxShiftCluster = -1;
+        for (int c = 0; c < C.length; c++) {
+            if (shift[c] > maxShift) {
+                secondMaxShift = maxShift;
+                maxShift = shift[c];
+                maxShiftCluster = c;
+            } else if (shift[c] > secondMaxShift)
+                secondMaxShift = shift[c];
+        }
+    }
+    
+    /**
+     * <p>Verifica se il passo di assegnazione usa i limiti di Hamerly.
+     * @return vero se i limiti sono abilitati e predisposti, falso altrimenti.
+     */
+    boolean isPruning() {
+        return pruning && upper != null;
+    }
+    
+    /**
+     * <p>Assegna ciascuna riga della tabella {@code data} al cluster il cui 
+     * centroide le è più vicino. La ricerca del cluster più vicino è eseguita 
+     * sugli intervalli di righe in parallelo sul pool {@code pool}, oppure nel 
+     * thread corrente se {@code pool} è null. Le righe che cambiano cluster 
+     * vengono accumulate per intervallo e le variazioni sono poi fuse, 
+     * nell'ordine degli intervalli, nelle statistiche sufficienti dei cluster 
+     * coinvolti.
+     * @param data tabella con i dati da assegnare.
+     * @param pool pool su cui eseguire la ricerca in parallelo, null per l'esecuzione sequenziale.
+     * @return il numero di tuple che hanno cambiato cluster.
+     */
+    int assign(Data data, ForkJoinPool pool) {
+        if (assignedData != data)
+            resetAssignment(data);
+        
+        if (pruning) {
+            prepareBounds(data);
+            Arrays.fill(evaluated, 0);
+            Arrays.fill(skipped, 0);
+        }
+        Tuple centroids[] = new Tuple[C.length];
+        for (int j = 0; j < C.length; j++)
+            centroids[j] = C[j].getCentroid();
+        kernel = CentroidKernel.create(centroids, data);
+        
+        int ranges = partials.length;
+        AssignmentTask task = new AssignmentTask(this, data, assignment, distances, partials, moved, 0, ranges);
+        if (pool == null) {
+            for (int r = 0; r < ranges; r++)
+                task.computeRange(r);
+        } else
+            pool.invoke(task);
+        kernel = null;
+        
+        int changed = 0;
+        evaluations = pruning ? 0 : (long) data.getNumberOfExamples() * C.length;
+        skippedEvaluations = 0;
+        for (int r = 0; r < ranges; r++) {
+            if (pruning) {
+                evaluations += evaluated[r];
+                skippedEvaluations += skipped[r];
+            }
+            changed += moved[r];
+            for (int j = 0; j < C.length; j++) {
+                counts[j] += partials[r][j].getSize();
+                C[j].updateStatistics(partials[r][j]);
+            }
+        }
+        if (shift != null)
+            Arrays.fill(shift, 0.0);    //gli spostamenti sono stati applicati ai limiti
+        distancesCurrent = true;
+        return changed;
+    }
+    
+    /**
+     * <p>Ripete l'assegnazione delle tuple della tabella {@code data} ai cluster
+     * e il calcolo dei nuovi centroidi, a partire dai centroidi correnti, finché
+     * un'assegnazione non sposta alcuna tupla.
+     * @param data tabella con i dati da modellare.
+     * @param pool pool su cui eseguire l'assegnazione in parallelo, null per l'esecuzione sequenziale.
+     * @return il numero di iterazioni eseguite.
+     */
+    int converge(Data data, ForkJoinPool pool) {
+        return converge(data, pool, null, new ConvergencePolicy());
+    }
+    
+    /**
+     * <p>Esegue le iterazioni come {@link #converge(Data, ForkJoinPool)} finché
+     * non è soddisfatto uno dei criteri di {@code policy}, di cui il motivo è
+     * poi restituito da {@link #getStopReason()}. Se il tempo a disposizione 
+     * si esaurisce, vengono ripristinati i centroidi con la minima distanza 
+     * complessiva tra quelli usati nelle assegnazioni, insieme all'assegnazione
+     * ottenuta con essi.
+     * <p>Se {@code listener} non è null gli vengono notificate le misure di 
+     * ciascuna iterazione: la durata delle due fasi, le tuple spostate, la 
+     * distanza complessiva delle tuple dai centroidi a cui sono state assegnate,
+     * le distanze calcolate ed evitate e la stima della memoria allocata.
+     * @param data tabella con i dati da modellare.
+     * @param pool pool su cui eseguire l'assegnazione in parallelo, null per l'esecuzione sequenziale.
+     * @param listener ascoltatore a cui notificare le misure, oppure null.
+     * @param policy criteri di arresto delle iterazioni.
+     * @return il numero di iterazioni eseguite.
+     */
+    int converge(Data data, ForkJoinPool pool, KMeansListener listener, ConvergencePolicy policy) {
+        int numberOfIterations = 0;
+        boolean tracking = policy.hasTimeBudget();
+        double bestInertia = Double.POSITIVE_INFINITY;
+        int[] bestAssignment = null;
+        Tuple[] bestCentroids = null;
+        long begin = System.nanoTime();
+        stopReason = null;
+        while (stopReason == null) {
+            numberOfIterations++;
+            IterationProbe event = IterationProbe.EVENTS.create();
+            event.begin();
+            long allocated = listener != null ? AllocationCounter.allocatedBytes() : -1;
+            long start = System.nanoTime();
+            int moved = assign(data, pool);
+            long assigned = System.nanoTime();
+            double sum = listener != null || tracking ? inertia(data) : Double.NaN;   //rispetto ai centroidi usati nell'assegnazione
+            if (tracking && sum < bestInertia) {
+                bestInertia = sum;
+                bestAssignment = assignment.clone();
+                bestCentroids = new Tuple[C.length];
+                for (int j = 0; j < C.length; j++)
+                    bestCentroids[j] = C[j].getCentroid().copy();
+            }
+            long update = System.nanoTime();
+            double maxShift = updateCentroids();
+            long updated = System.nanoTime();
+            event.complete(numberOfIterations, C.length, assignment.length, moved);
+            if (listener != null) {
+                if (allocated >= 0)
+                    allocated = AllocationCounter.allocatedBytes() - allocated;
+                listener.iterationCompleted(new IterationStats(numberOfIterations, assigned - start, updated - update,
+                                                               moved, sum, evaluations, skippedEvaluations, allocated));
+            }
+            stopReason = policy.check(numberOfIterations, moved, assignment.length, maxShift, updated - begin);
+        }
+        if (stopReason == StopReason.TIME_BUDGET && bestCentroids != null) {
+            for (int j = 0; j < C.length; j++)
+                C[j].setCentroid(bestCentroids[j]);
+            restoreAssignment(bestAssignment);
+        }
+        return numberOfIterations;
+    }
+    
+    /**
+     * <p>Restituisce il motivo per cui si è fermata l'ultima esecuzione di 
+     * {@link #converge(Data, ForkJoinPool, KMeansListener, ConvergencePolicy)}.
+     * @return il motivo dell'arresto, null se le iterazioni non sono state eseguite.
+     */
+    StopReason getStopReason() {
+        return stopReason;
+    }
+    
+    /**
+     * <p>Esegue un passo dell'algoritmo k-means a mini-batch: assegna ciascuna 
+     * riga del campione {@code batch} al cluster più vicino (con i centroidi 
+     * correnti), la aggiunge alle statistiche {@code learned} di quel cluster e 
+     * sposta quindi il centroide di ogni cluster coinvolto sulla media (o moda)
+     * di tutte le righe che gli sono state assegnate fino a quel momento. Ciò 
+     * equivale ad aggiornare il centroide verso ciascuna riga con un tasso di 
+     * apprendimento pari all'inverso del numero di righe assegnate al cluster.
+     * @param data tabella con i dati da modellare.
+     * @param batch indici di riga del campione.
+     * @param nearest array di appoggio, di lunghezza almeno pari al campione.
+     * @param learned statistiche delle righe assegnate a ciascun cluster nei passi precedenti.
+     * @return lo spostamento massimo tra i centroidi dei cluster.
+     */
+    double miniBatchStep(Data data, int[] batch, int[] nearest, PrototypeAccumulator[] learned) {
+        distancesCurrent = false;
+        for (int b = 0; b < batch.length; b++)
+            nearest[b] = nearestIndex(data, batch[b]);
+        boolean touched[] = new boolean[C.length];
+        for (int b = 0; b < batch.length; b++) {
+            learned[nearest[b]].add(batch[b]);
+            touched[nearest[b]] = true;
+        }
+        double maxShift = 0.0;
+        for (int j = 0; j < C.length; j++) {
+            if (touched[j])
+                maxShift = Math.max(maxShift, learned[j].updatePrototype(C[j].getCentroid()));
+        }
+        return maxShift;
+    }
+    
+    /**
+     * <p>Crea l'istantanea immutabile dei centroidi correnti, con cui assegnare
+     * nuove tuple ai cluster.
+     * @return l'istantanea dei centroidi.
+     */
+    CentroidSnapshot snapshot() {
+        Tuple centroids[] = new Tuple[C.length];
+        for (int j = 0; j < C.length; j++)
+            centroids[j] = C[j].getCentroid();
+        return new CentroidSnapshot(centroids);
+    }
+    
+    /**
+     * <p>Calcola la somma delle distanze di ciascuna tupla della tabella 
+     * {@code data} dal centroide del cluster a cui appartiene, misura della 
+     * compattezza dell'insieme dei cluster.
+     * @param data tabella assegnata ai cluster.
+     * @return la somma delle distanze delle tuple dai rispettivi centroidi.
+     */
+    double inertia(Data data) {
+        double sum = 0.0;
+        for (int id = 0; id < assignment.length; id++) {
+            if (assignment[id] >= 0)
+                sum += distance(data, id);
+        }
+        return sum;
+    }
+    
+    /**
+     * <p>Restituisce la distanza della tupla di indice {@code id} dal centroide
+     * del cluster a cui appartiene, riusando quella calcolata nell'ultimo passo
+     * di assegnazione se da allora i centroidi non si sono spostati.
+     * @param data tabella assegnata ai cluster.
+     * @param id indice di riga della tupla nella tabella.
+     * @return la distanza della tupla dal proprio centroide.
+     */
+    double distance(Data data, int id) {
+        if (distancesCurrent && data == assignedData) {
+            double distance = distances[id];
+            if (distance == distance)   //non NaN
+                return distance;
+        }
+        return C[assignment[id]].getCentroid().getDistance(data, id);
+    }
+    
     /**
      * <p>Identifica e restituisce il cluster a cui la tupla, rappresentante l'esempio
      * identificato da {@code id}, appartiene; se la tupla non è inclusa in alcun cluster 
@@ -98,21 +801,28 @@ public class ClusterSet implements Serializable{
      * @return il cluster a cui appartiene la tupla, altrimenti null.
      */
     Cluster currentCluster(int id) {
-        for (Cluster cluster : C) {
-            if(cluster.contain(id))
-                return cluster;
-        }
-        return null;
+        int cluster = clusterOf(id);
+        return cluster >= 0 ? C[cluster] : null;
     }
     
     /**
      * <p>Calcola il nuovo centro di massa (centroide) per ciascun cluster nell'insieme
-     * sulla base della tabella descritta da {@code data}.
-     * @param data tabella 
+     * sulla base delle sue statistiche sufficienti; i centroidi dei cluster che 
+     * non hanno guadagnato né perso tuple nell'ultimo passo di assegnazione non 
+     * vengono ricalcolati.
+     * @return lo spostamento massimo tra i centroidi dei cluster.
      */
-    void updateCentroids(Data data) {
-        for (int j = 0; j < C.length; j++)
-            C[j].computeCentroid(data);
+    double updateCentroids() {
+        double maxDistance = 0.0;
+        for (int j = 0; j < C.length; j++) {
+            double distance = C[j].computeCentroid();
+            if (shift != null)
+                shift[j] += distance;
+            if (distance > 0.0)
+                distancesCurrent = false;
+            maxDistance = Math.max(maxDistance, distance);
+        }
+        return maxDistance;
     }
     
     /**
@@ -122,28 +832,30 @@ public class ClusterSet implements Serializable{
      */
     @Override
     public String toString() {
-        String s = "";
+        StringBuilder s = new StringBuilder();
         int j = 0;
         for (Cluster cluster : C) {
-            s += j + ": " + cluster.toString() + "\n";
+            s.append(j).append(": ").append(cluster).append("\n");
             j++;
         }
-        return s;
+        return s.toString();
     }
     
     /**
      * <p>Restituisce la stringa che rappresenta lo stato dell'oggetto cioè lo
-     * stato di ciascun cluster da cui è formato l'insieme.
+     * stato di ciascun cluster da cui è formato l'insieme. Per tabelle molto 
+     * grandi conviene scrivere il resoconto direttamente su un flusso con 
+     * {@link ClusterReport}.
      * @param data tabella
      * @return la stringa modellante lo stato completo di ciascun cluster.
      */
     public String toString(Data data) {
-        String s = "";
-        int j = 0;
-        for (Cluster cluster : C) {
-            s += j + ": " + cluster.toString(data) + "\n";
-            j++;
+        StringWriter s = new StringWriter();
+        try {
+            new ClusterReport().write(this, data, s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     //StringWriter non solleva eccezioni
         }
-        return s;
+        return s.toString();
     }
 }
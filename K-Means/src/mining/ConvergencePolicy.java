@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+/**
+ * <p>Raccoglie i criteri con cui l'algoritmo k-means decide di smettere di 
+ * iterare: un numero massimo di iterazioni, la frazione minima di tuple che 
+ * un'iterazione deve spostare, la tolleranza sullo spostamento dei centroidi
+ * (misurato sulla distanza normalizzata, come in 
+ * {@link data.Tuple#getDistance(data.Tuple)}) e il tempo a disposizione.
+ * I criteri vengono verificati al termine di ciascuna iterazione; il primo 
+ * soddisfatto determina il {@link StopReason} riportato insieme al numero di 
+ * iterazioni.
+ * <p>Con le impostazioni predefinite l'algoritmo itera, come in origine, 
+ * finché un'iterazione non sposta alcuna tupla.
+ * @author Andrea Mercanti
+ */
+public class ConvergencePolicy {
+    /**Numero massimo di iterazioni*/
+    private int maxIterations = Integer.MAX_VALUE;
+    /**Frazione di tuple spostate al di sotto della quale (o pari alla quale) fermarsi*/
+    private double minMovedFraction = 0.0;
+    /**Spostamento dei centroidi al di sotto del quale fermarsi*/
+    private double shiftTolerance = 0.0;
+    /**Tempo a disposizione, in nanosecondi*/
+    private long timeBudget = Long.MAX_VALUE;
+
+    /**
+     * <p>Imposta il numero massimo di iterazioni (illimitato se non specificato).
+     * @param maxIterations numero massimo di iterazioni, almeno 1.
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = Math.max(1, maxIterations);
+    }
+
+    /**
+     * <p>Imposta la frazione delle tuple della tabella che un'iterazione deve 
+     * spostare perché l'algoritmo prosegua: se ne sposta al più 
+     * {@code minMovedFraction} l'algoritmo si ferma (0 se non specificato, 
+     * cioè solo quando nessuna tupla cambia cluster).
+     * @param minMovedFraction frazione minima di tuple spostate, tra 0 e 1.
+     */
+    public void setMinMovedFraction(double minMovedFraction) {
+        this.minMovedFraction = Math.max(0.0, Math.min(1.0, minMovedFraction));
+    }
+
+    /**
+     * <p>Imposta la tolleranza sullo spostamento dei centroidi: l'algoritmo si
+     * ferma quando, nel ricalcolo, nessun centroide si sposta di almeno 
+     * {@code shiftTolerance}, misurato sulla distanza normalizzata tra il 
+     * centroide prima e dopo l'aggiornamento (0 se non specificato, cioè 
+     * criterio disattivato).
+     * @param shiftTolerance spostamento minimo dei centroidi.
+     */
+    public void setShiftTolerance(double shiftTolerance) {
+        this.shiftTolerance = Math.max(0.0, shiftTolerance);
+    }
+
+    /**
+     * <p>Imposta il tempo a disposizione dell'algoritmo, oltre il quale viene
+     * restituito il migliore insieme di cluster trovato fino a quel momento 
+     * (illimitato se non specificato). Il tempo viene verificato al termine di
+     * ogni iterazione, per cui può essere superato al più della durata di 
+     * un'iterazione.
+     * @param millis tempo a disposizione, in millisecondi.
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudget = millis >= Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE : Math.max(0L, millis) * 1000000;
+    }
+
+    /**
+     * <p>Verifica se è stato impostato un tempo a disposizione.
+     * @return vero se il tempo a disposizione è limitato.
+     */
+    boolean hasTimeBudget() {
+        return timeBudget != Long.MAX_VALUE;
+    }
+
+    /**
+     * <p>Verifica se il tempo a disposizione è esaurito.
+     * @param elapsed tempo trascorso dall'inizio delle iterazioni, in nanosecondi.
+     * @return vero se il tempo trascorso ha raggiunto quello a disposizione.
+     */
+    boolean isOutOfTime(long elapsed) {
+        return elapsed >= timeBudget;
+    }
+
+    /**
+     * <p>Verifica i criteri di arresto al termine di un'iterazione.
+     * @param iterations numero di iterazioni eseguite.
+     * @param moved numero di tuple spostate nell'ultima iterazione.
+     * @param rows numero di tuple della tabella.
+     * @param maxShift spostamento massimo dei centroidi nell'ultima iterazione.
+     * @param elapsed tempo trascorso dall'inizio delle iterazioni, in nanosecondi.
+     * @return il motivo per cui fermarsi, null se l'algoritmo deve proseguire.
+     */
+    StopReason check(int iterations, int moved, int rows, double maxShift, long elapsed) {
+        if (moved == 0)
+            return StopReason.CONVERGED;
+        if (moved <= minMovedFraction * rows)
+            return StopReason.MOVED_FRACTION;
+        if (maxShift < shiftTolerance)
+            return StopReason.CENTROID_SHIFT;
+        if (iterations >= maxIterations)
+            return StopReason.MAX_ITERATIONS;
+        if (isOutOfTime(elapsed))
+            return StopReason.TIME_BUDGET;
+        return null;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>Aggiorna, per ciascuna riga di un intervallo di blocchi della tabella, il
+ * quadrato della distanza dal centroide candidato più vicino, rispetto a un
+ * gruppo di nuovi candidati; è il passo comune alle inizializzazioni k-means++
+ * e k-means||. Per ogni blocco calcola inoltre la somma dei quadrati delle 
+ * distanze, così che la scelta pesata di una riga non debba riscandire l'intera
+ * tabella. I blocchi sono gli stessi di {@link AssignmentTask}.
+ * @author Andrea Mercanti
+ */
+class DistanceUpdateTask extends RecursiveAction {
+    /**Versione della forma serializzata, richiesta da RecursiveAction anche se il task non viene serializzato*/
+    private static final long serialVersionUID = 1L;
+    /**Tabella con i dati*/
+    private Data data;
+    /**Indici di riga dei centroidi candidati*/
+    private int[] centers;
+    /**Posizione in centers del primo nuovo candidato*/
+    private int fromCenter;
+    /**Posizione in centers successiva all'ultimo nuovo candidato*/
+    private int toCenter;
+    /**Quadrato della distanza di ciascuna riga dal candidato più vicino*/
+    private double[] d2;
+    /**Posizione in centers del candidato più vicino a ciascuna riga*/
+    private int[] closest;
+    /**Somma di d2 su ciascun blocco*/
+    private double[] blockSums;
+    /**Primo blocco (incluso) dell'intervallo da elaborare*/
+    private int fromBlock;
+    /**Ultimo blocco (escluso) dell'intervallo da elaborare*/
+    private int toBlock;
+
+    /**
+     * <p>Crea il task di aggiornamento per i blocchi nell'intervallo
+     * [{@code fromBlock}, {@code toBlock}).
+     */
+    private DistanceUpdateTask(Data data, int[] centers, int fromCenter, int toCenter, double[] d2, int[] closest, double[] blockSums, int fromBlock, int toBlock) {
+        this.data = data;
+        this.centers = centers;
+        this.fromCenter = fromCenter;
+        this.toCenter = toCenter;
+        this.d2 = d2;
+        this.closest = closest;
+        this.blockSums = blockSums;
+        this.fromBlock = fromBlock;
+        this.toBlock = toBlock;
+    }
+
+    /**
+     * <p>Aggiorna {@code d2}, {@code closest} e {@code blockSums} rispetto ai 
+     * candidati in posizione [{@code fromCenter}, {@code toCenter}) di {@code centers}.
+     * @param data tabella con i dati.
+     * @param centers indici di riga dei centroidi candidati.
+     * @param fromCenter posizione del primo nuovo candidato.
+     * @param toCenter posizione successiva all'ultimo nuovo candidato.
+     * @param d2 quadrato della distanza di ciascuna riga dal candidato più vicino.
+     * @param closest posizione in centers del candidato più vicino a ciascuna riga.
+     * @param blockSums somma di d2 su ciascun blocco.
+     * @param pool pool su cui eseguire l'aggiornamento in parallelo, null per l'esecuzione sequenziale.
+     */
+    static void update(Data data, int[] centers, int fromCenter, int toCenter, double[] d2, int[] closest, double[] blockSums, ForkJoinPool pool) {
+        DistanceUpdateTask task = new DistanceUpdateTask(data, centers, fromCenter, toCenter, d2, closest, blockSums, 0, blockSums.length);
+        if (pool == null) {
+            for (int b = 0; b < blockSums.length; b++)
+                task.computeBlock(b);
+        } else
+            pool.invoke(task);
+    }
+
+    /**
+     * <p>Sceglie una riga con probabilità proporzionale al quadrato della sua 
+     * distanza dal candidato più vicino.
+     * @param d2 quadrato della distanza di ciascuna riga dal candidato più vicino.
+     * @param blockSums somma di d2 su ciascun blocco.
+     * @param u valore uniformemente distribuito in [0,1).
+     * @return l'indice della riga scelta, -1 se tutte le righe coincidono con un candidato.
+     */
+    static int sample(double[] d2, double[] blockSums, double u) {
+        double total = 0.0;
+        for (double sum : blockSums)
+            total += sum;
+        if (total <= 0.0)
+            return -1;
+        double target = u * total;
+        int lastBlock = -1;
+        for (int b = 0; b < blockSums.length; b++) {
+            if (blockSums[b] <= 0.0)
+                continue;
+            lastBlock = b;
+            if (target >= blockSums[b]) {
+                target -= blockSums[b];
+                continue;
+            }
+            int end = Math.min((b + 1) * AssignmentTask.BLOCK_SIZE, d2.length);
+            for (int i = b * AssignmentTask.BLOCK_SIZE; i < end; i++) {
+                if (d2[i] > 0.0 && target < d2[i])
+                    return i;
+                target -= d2[i];
+            }
+            return lastPositive(d2, b);
+        }
+        return lastPositive(d2, lastBlock);     //errore di arrotondamento oltre l'ultimo blocco
+    }
+
+    /**
+     * <p>Restituisce l'ultima riga del blocco {@code block} con distanza positiva
+     * dal candidato più vicino.
+     * @param d2 quadrato della distanza di ciascuna riga dal candidato più vicino.
+     * @param block indice del blocco.
+     * @return l'indice dell'ultima riga del blocco con distanza positiva, -1 se non esiste.
+     */
+    private static int lastPositive(double[] d2, int block) {
+        int end = Math.min((block + 1) * AssignmentTask.BLOCK_SIZE, d2.length);
+        for (int i = end - 1; i >= block * AssignmentTask.BLOCK_SIZE; i--) {
+            if (d2[i] > 0.0)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * <p>Elabora i blocchi dell'intervallo, suddividendolo a metà finché non
+     * resta un solo blocco.
+     */
+    @Override
+    protected void compute() {
+        if (toBlock - fromBlock <= 1) {
+            for (int block = fromBlock; block < toBlock; block++)
+                computeBlock(block);
+        } else {
+            int middle = (fromBlock + toBlock) >>> 1;
+            invokeAll(new DistanceUpdateTask(data, centers, fromCenter, toCenter, d2, closest, blockSums, fromBlock, middle),
+                      new DistanceUpdateTask(data, centers, fromCenter, toCenter, d2, closest, blockSums, middle, toBlock));
+        }
+    }
+
+    /**
+     * <p>Aggiorna le distanze delle righe del blocco {@code block} rispetto ai
+     * nuovi candidati e ne ricalcola la somma.
+     * @param block indice del blocco da elaborare.
+     */
+    void computeBlock(int block) {
+        double sum = 0.0;
+        int end = Math.min((block + 1) * AssignmentTask.BLOCK_SIZE, d2.length);
+        for (int i = block * AssignmentTask.BLOCK_SIZE; i < end; i++) {
+            for (int c = fromCenter; c < toCenter; c++) {
+                double d = data.getDistance(i, centers[c]);
+                d *= d;
+                if (d < d2[i]) {
+                    d2[i] = d;
+                    closest[i] = c;
+                }
+            }
+            sum += d2[i];
+        }
+        blockSums[block] = sum;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import events.EventFactory;
+
+/**
+ * <p>Misura un'iterazione dell'algoritmo k-means. Se la JVM offre Flight 
+ * Recorder la sonda è un evento {@code IterationEvent}, altrimenti non 
+ * registra nulla.
+ * @author Andrea Mercanti
+ */
+interface IterationProbe {
+    /**Sonda che non registra nulla*/
+    IterationProbe DISABLED = new IterationProbe() {
+        @Override
+        public void begin() {}
+
+        @Override
+        public void complete(int iteration, int clusters, int rows, int moved) {}
+    };
+    /**Fabbrica delle sonde*/
+    EventFactory<IterationProbe> EVENTS = EventFactory.load("mining.IterationEvent", IterationProbe.class, DISABLED);
+
+    /**
+     * <p>Avvia la misura dell'iterazione.
+     */
+    void begin();
+
+    /**
+     * <p>Conclude la misura dell'iterazione.
+     * @param iteration numero ordinale dell'iterazione.
+     * @param clusters numero di cluster.
+     * @param rows numero di righe della tabella.
+     * @param moved numero di righe che hanno cambiato cluster.
+     */
+    void complete(int iteration, int clusters, int rows, int moved);
+}
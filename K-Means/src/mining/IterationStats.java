@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+/**
+ * <p>Raccoglie le misure di un'iterazione dell'algoritmo k-means: la durata 
+ * del passo di assegnazione e del calcolo dei centroidi, il numero di tuple 
+ * che hanno cambiato cluster, la somma delle distanze delle tuple dai centroidi
+ * a cui sono state assegnate, il numero di distanze calcolate ed evitate 
+ * grazie ai limiti di Hamerly e la stima della memoria allocata.
+ * @author Andrea Mercanti
+ */
+public final class IterationStats {
+    /**Numero ordinale dell'iterazione, a partire da 1*/
+    private final int iteration;
+    /**Durata del passo di assegnazione, in nanosecondi*/
+    private final long assignmentNanos;
+    /**Durata del calcolo dei nuovi centroidi, in nanosecondi*/
+    private final long updateNanos;
+    /**Numero di tuple che hanno cambiato cluster*/
+    private final int moved;
+    /**Somma delle distanze delle tuple dai centroidi a cui sono state assegnate*/
+    private final double inertia;
+    /**Numero di distanze tra tuple e centroidi calcolate*/
+    private final long distanceEvaluations;
+    /**Numero di distanze tra tuple e centroidi evitate*/
+    private final long skippedDistanceEvaluations;
+    /**Stima dei byte allocati durante l'iterazione (-1 se non disponibile)*/
+    private final long allocatedBytes;
+
+    /**
+     * <p>Crea le misure di un'iterazione.
+     * @param iteration numero ordinale dell'iterazione.
+     * @param assignmentNanos durata del passo di assegnazione.
+     * @param updateNanos durata del calcolo dei nuovi centroidi.
+     * @param moved numero di tuple che hanno cambiato cluster.
+     * @param inertia somma delle distanze delle tuple dai centroidi assegnati.
+     * @param distanceEvaluations numero di distanze calcolate.
+     * @param skippedDistanceEvaluations numero di distanze evitate.
+     * @param allocatedBytes stima dei byte allocati, -1 se non disponibile.
+     */
+    IterationStats(int iteration, long assignmentNanos, long updateNanos, int moved, double inertia,
+                   long distanceEvaluations, long skippedDistanceEvaluations, long allocatedBytes) {
+        this.iteration = iteration;
+        this.assignmentNanos = assignmentNanos;
+        this.updateNanos = updateNanos;
+        this.moved = moved;
+        this.inertia = inertia;
+        this.distanceEvaluations = distanceEvaluations;
+        this.skippedDistanceEvaluations = skippedDistanceEvaluations;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * <p>Restituisce il numero ordinale dell'iterazione.
+     * @return il numero dell'iterazione, a partire da 1.
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * <p>Restituisce la durata del passo di assegnazione.
+     * @return la durata in nanosecondi.
+     */
+    public long getAssignmentNanos() {
+        return assignmentNanos;
+    }
+
+    /**
+     * <p>Restituisce la durata del calcolo dei nuovi centroidi.
+     * @return la durata in nanosecondi.
+     */
+    public long getUpdateNanos() {
+        return updateNanos;
+    }
+
+    /**
+     * <p>Restituisce il numero di tuple che nel passo di assegnazione hanno 
+     * cambiato cluster (alla prima iterazione, tutte le tuple).
+     * @return il numero di tuple spostate.
+     */
+    public int getMoved() {
+        return moved;
+    }
+
+    /**
+     * <p>Restituisce la somma delle distanze delle tuple dai centroidi a cui 
+     * sono state assegnate, calcolata prima dello spostamento dei centroidi.
+     * @return la distanza complessiva.
+     */
+    public double getInertia() {
+        return inertia;
+    }
+
+    /**
+     * <p>Restituisce il numero di distanze tra tuple e centroidi calcolate nel
+     * passo di assegnazione.
+     * @return il numero di distanze calcolate.
+     */
+    public long getDistanceEvaluations() {
+        return distanceEvaluations;
+    }
+
+    /**
+     * <p>Restituisce il numero di distanze tra tuple e centroidi che i limiti
+     * di Hamerly hanno permesso di non calcolare (0 se non sono abilitati).
+     * @return il numero di distanze evitate.
+     */
+    public long getSkippedDistanceEvaluations() {
+        return skippedDistanceEvaluations;
+    }
+
+    /**
+     * <p>Restituisce la stima dei byte allocati nella JVM durante l'iterazione,
+     * comprensiva delle allocazioni degli altri thread eventualmente attivi.
+     * @return il numero di byte allocati, -1 se la JVM non ne consente la misura.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * <p>Restituisce la stringa che riassume le misure dell'iterazione.
+     * @return la stringa con le misure.
+     */
+    @Override
+    public String toString() {
+        return "iteration=" + iteration + " assignment_ns=" + assignmentNanos + " update_ns=" + updateNanos
+               + " moved=" + moved + " inertia=" + inertia + " distances=" + distanceEvaluations
+               + " skipped=" + skippedDistanceEvaluations + " allocated=" + allocatedBytes;
+    }
+}
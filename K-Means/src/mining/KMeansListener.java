@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+/**
+ * <p>Riceve le notifiche sull'avanzamento dell'algoritmo k-means eseguito da 
+ * {@link KMeansMiner#kmeans(data.Data)}: la scelta dei centroidi iniziali, 
+ * ciascuna iterazione e la conclusione dell'esecuzione. Le notifiche sono 
+ * inviate dal thread che esegue l'algoritmo; quando non è registrato alcun 
+ * ascoltatore le misure più costose (distanza complessiva e memoria allocata)
+ * non vengono calcolate.
+ * @author Andrea Mercanti
+ */
+public interface KMeansListener {
+    
+    /**
+     * <p>Notifica la conclusione della scelta dei centroidi iniziali.
+     * @param nanos durata della scelta, in nanosecondi.
+     */
+    void seedingCompleted(long nanos);
+
+    /**
+     * <p>Notifica la conclusione di un'iterazione, cioè di un passo di 
+     * assegnazione seguito dal calcolo dei nuovi centroidi.
+     * @param stats misure dell'iterazione.
+     */
+    void iterationCompleted(IterationStats stats);
+
+    /**
+     * <p>Notifica la conclusione dell'esecuzione dell'algoritmo.
+     * @param iterations numero di iterazioni eseguite.
+     * @param nanos durata complessiva dell'esecuzione, scelta dei centroidi 
+     *              iniziali inclusa, in nanosecondi.
+     */
+    void runCompleted(int iterations, long nanos);
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>Ascoltatore che accumula le misure delle esecuzioni dell'algoritmo 
+ * k-means e le espone tramite JMX, così da poterle consultare (per esempio con
+ * jconsole) mentre l'applicazione è in esercizio. Lo stesso oggetto può essere
+ * registrato presso più istanze di {@link KMeansMiner}, anche eseguite in 
+ * parallelo, e ne somma le misure.
+ * @author Andrea Mercanti
+ */
+public class KMeansMetrics implements KMeansListener, KMeansMetricsMBean {
+    /**Nome con cui l'oggetto è registrato presso il server JMX, null se non registrato*/
+    private ObjectName name;
+    /**Numero di esecuzioni concluse*/
+    private long runs;
+    /**Numero complessivo di iterazioni*/
+    private long iterations;
+    /**Numero di iterazioni dell'ultima esecuzione*/
+    private int lastRunIterations;
+    /**Durata dell'ultima esecuzione, in nanosecondi*/
+    private long lastRunNanos;
+    /**Durata complessiva della scelta dei centroidi iniziali, in nanosecondi*/
+    private long seedingNanos;
+    /**Durata complessiva dei passi di assegnazione, in nanosecondi*/
+    private long assignmentNanos;
+    /**Durata complessiva del calcolo dei centroidi, in nanosecondi*/
+    private long updateNanos;
+    /**Numero complessivo di tuple spostate*/
+    private long moved;
+    /**Numero di tuple spostate nell'ultima iterazione*/
+    private int lastMoved;
+    /**Distanza complessiva delle tuple dai centroidi nell'ultima iterazione*/
+    private double lastInertia = Double.NaN;
+    /**Numero complessivo di distanze calcolate*/
+    private long distanceEvaluations;
+    /**Numero complessivo di distanze evitate*/
+    private long skippedDistanceEvaluations;
+    /**Stima complessiva dei byte allocati (-1 se non disponibile)*/
+    private long allocatedBytes;
+
+    /**
+     * <p>Registra l'oggetto presso il server JMX della piattaforma con il nome
+     * {@code mining:type=KMeansMetrics,name=<name>}.
+     * @param name nome che identifica le esecuzioni misurate.
+     * @throws JMException se il nome non è valido o è già registrato.
+     */
+    public synchronized void register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("mining:type=KMeansMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.name = objectName;
+    }
+
+    /**
+     * <p>Annulla la registrazione dell'oggetto presso il server JMX, se registrato.
+     * @throws JMException se l'annullamento fallisce.
+     */
+    public synchronized void unregister() throws JMException {
+        if (name == null)
+            return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name))
+            server.unregisterMBean(name);
+        name = null;
+    }
+
+    @Override
+    public synchronized void seedingCompleted(long nanos) {
+        seedingNanos += nanos;
+    }
+
+    @Override
+    public synchronized void iterationCompleted(IterationStats stats) {
+        iterations++;
+        assignmentNanos += stats.getAssignmentNanos();
+        updateNanos += stats.getUpdateNanos();
+        moved += stats.getMoved();
+        lastMoved = stats.getMoved();
+        lastInertia = stats.getInertia();
+        distanceEvaluations += stats.getDistanceEvaluations();
+        skippedDistanceEvaluations += stats.getSkippedDistanceEvaluations();
+        if (stats.getAllocatedBytes() < 0 || allocatedBytes < 0)
+            allocatedBytes = -1;
+        else
+            allocatedBytes += stats.getAllocatedBytes();
+    }
+
+    @Override
+    public synchronized void runCompleted(int iterations, long nanos) {
+        runs++;
+        lastRunIterations = iterations;
+        lastRunNanos = nanos;
+    }
+
+    @Override
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    @Override
+    public synchronized long getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public synchronized int getLastRunIterations() {
+        return lastRunIterations;
+    }
+
+    @Override
+    public synchronized long getLastRunNanos() {
+        return lastRunNanos;
+    }
+
+    @Override
+    public synchronized long getSeedingNanos() {
+        return seedingNanos;
+    }
+
+    @Override
+    public synchronized long getAssignmentNanos() {
+        return assignmentNanos;
+    }
+
+    @Override
+    public synchronized long getUpdateNanos() {
+        return updateNanos;
+    }
+
+    @Override
+    public synchronized long getMoved() {
+        return moved;
+    }
+
+    @Override
+    public synchronized int getLastMoved() {
+        return lastMoved;
+    }
+
+    @Override
+    public synchronized double getLastInertia() {
+        return lastInertia;
+    }
+
+    @Override
+    public synchronized long getDistanceEvaluations() {
+        return distanceEvaluations;
+    }
+
+    @Override
+    public synchronized long getSkippedDistanceEvaluations() {
+        return skippedDistanceEvaluations;
+    }
+
+    @Override
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public synchronized void reset() {
+        runs = iterations = 0;
+        lastRunIterations = lastMoved = 0;
+        lastRunNanos = seedingNanos = assignmentNanos = updateNanos = 0;
+        moved = distanceEvaluations = skippedDistanceEvaluations = allocatedBytes = 0;
+        lastInertia = Double.NaN;
+    }
+}
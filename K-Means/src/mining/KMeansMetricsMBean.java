@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+/**
+ * <p>Interfaccia di gestione JMX delle misure raccolte da {@link KMeansMetrics}
+ * sulle esecuzioni dell'algoritmo k-means: i totali su tutte le esecuzioni e i
+ * valori dell'ultima iterazione o esecuzione.
+ * @author Andrea Mercanti
+ */
+public interface KMeansMetricsMBean {
+    
+    /**
+     * <p>Restituisce il numero di esecuzioni concluse.
+     * @return il numero di esecuzioni.
+     */
+    long getRuns();
+
+    /**
+     * <p>Restituisce il numero complessivo di iterazioni eseguite.
+     * @return il numero di iterazioni.
+     */
+    long getIterations();
+
+    /**
+     * <p>Restituisce il numero di iterazioni dell'ultima esecuzione conclusa.
+     * @return il numero di iterazioni.
+     */
+    int getLastRunIterations();
+
+    /**
+     * <p>Restituisce la durata dell'ultima esecuzione conclusa.
+     * @return la durata in nanosecondi.
+     */
+    long getLastRunNanos();
+
+    /**
+     * <p>Restituisce la durata complessiva della scelta dei centroidi iniziali.
+     * @return la durata in nanosecondi.
+     */
+    long getSeedingNanos();
+
+    /**
+     * <p>Restituisce la durata complessiva dei passi di assegnazione.
+     * @return la durata in nanosecondi.
+     */
+    long getAssignmentNanos();
+
+    /**
+     * <p>Restituisce la durata complessiva del calcolo dei nuovi centroidi.
+     * @return la durata in nanosecondi.
+     */
+    long getUpdateNanos();
+
+    /**
+     * <p>Restituisce il numero complessivo di tuple che hanno cambiato cluster.
+     * @return il numero di tuple spostate.
+     */
+    long getMoved();
+
+    /**
+     * <p>Restituisce il numero di tuple che hanno cambiato cluster nell'ultima
+     * iterazione.
+     * @return il numero di tuple spostate.
+     */
+    int getLastMoved();
+
+    /**
+     * <p>Restituisce la distanza complessiva delle tuple dai centroidi 
+     * nell'ultima iterazione.
+     * @return la distanza complessiva, NaN se non è stata eseguita alcuna iterazione.
+     */
+    double getLastInertia();
+
+    /**
+     * <p>Restituisce il numero complessivo di distanze calcolate.
+     * @return il numero di distanze calcolate.
+     */
+    long getDistanceEvaluations();
+
+    /**
+     * <p>Restituisce il numero complessivo di distanze evitate con i limiti di
+     * Hamerly.
+     * @return il numero di distanze evitate.
+     */
+    long getSkippedDistanceEvaluations();
+
+    /**
+     * <p>Restituisce la stima complessiva dei byte allocati durante le iterazioni.
+     * @return il numero di byte allocati, -1 se la misura non è disponibile.
+     */
+    long getAllocatedBytes();
+
+    /**
+     * <p>Azzera tutte le misure.
+     */
+    void reset();
+}
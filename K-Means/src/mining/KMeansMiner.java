@@ -17,9 +17,19 @@
 
 package mining;
 
+import data.CentroidSnapshot;
 import data.Data;
 import data.OutOfRangeSampleSize;
+import data.PrototypeAccumulator;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * <p>Include l'implementazione dell’algoritmo K-Means.
@@ -28,6 +38,26 @@ import java.io.*;
 public class KMeansMiner {
     /**Insieme dei cluster*/
     private ClusterSet C;
+    /**Numero di thread impiegati nel passo di assegnazione (1 per l'esecuzione sequenziale)*/
+    private int parallelism = 1;
+    /**Strategia di scelta dei centroidi iniziali*/
+    private SeedingStrategy seeding = new KMeansPlusPlusSeeding();
+    /**Seme del generatore pseudo-casuale usato nella scelta dei centroidi iniziali*/
+    private long seed = System.currentTimeMillis();
+    /**Vero se il passo di assegnazione evita, dove possibile, il calcolo delle distanze*/
+    private boolean pruning = false;
+    /**Numero di iterazioni dopo il quale le esecuzioni ripetute in svantaggio vengono abbandonate*/
+    private int abandonAfter = 5;
+    /**Scarto relativo dalla migliore distanza complessiva oltre il quale un'esecuzione è in svantaggio*/
+    private double abandonMargin = 0.02;
+    /**Criteri di arresto delle iterazioni*/
+    private ConvergencePolicy convergence = new ConvergencePolicy();
+    /**Motivo per cui si è fermata l'ultima esecuzione dell'algoritmo (null se non eseguito)*/
+    private StopReason stopReason;
+    /**Somma delle distanze delle tuple dai rispettivi centroidi (NaN se non calcolata)*/
+    private double inertia = Double.NaN;
+    /**Ascoltatori a cui notificare l'avanzamento dell'algoritmo*/
+    private final Listeners listeners = new Listeners();
     
     /**
      * <p>Crea la struttura per l'insieme dei {@code k} cluster da popolare.
@@ -37,11 +67,25 @@ public class KMeansMiner {
         C = new ClusterSet(k);
     }
     
+    /**
+     * <p>Crea la struttura per l'insieme dei {@code k} cluster da popolare,
+     * eseguendo il passo di assegnazione dell'algoritmo su {@code parallelism}
+     * thread. Il risultato non dipende dal livello di parallelismo scelto.
+     * @param k numero di cluster da generare.
+     * @param parallelism numero di thread da impiegare (1 per l'esecuzione sequenziale).
+     */
+    public KMeansMiner(int k, int parallelism) {
+        this(k);
+        this.parallelism = Math.max(1, parallelism);
+    }
+    
     /**
      * <p>Apre il file identificato da {@code fileName}, legge l'oggetto ivi 
      * memorizzato e lo assegna a {@code C}; in questo modo la computazione può
      * partire da un punto definito in precedenza, salvato nel file {@code fileName}
-     * che si sta leggendo.
+     * che si sta leggendo. Il file è letto nel formato di {@link ModelFormat}, 
+     * mappandolo in memoria; i file salvati con la serializzazione Java dalle 
+     * versioni precedenti vengono ancora riconosciuti e letti.
      * @param fileName percorso + nome del file dal quale recuperare l'oggetto serializzato.
      * @throws FileNotFoundException nel caso in cui il nome del file non indichi 
      *                               un file reale nel file system.
@@ -50,10 +94,19 @@ public class KMeansMiner {
      *                                cartella reale nel file system.
      */
     public KMeansMiner(String fileName) throws FileNotFoundException, IOException, ClassNotFoundException {
+        ModelFileProbe event = ModelFileProbe.EVENTS.create();
+        event.begin();
+        if (ModelFormat.isModel(fileName)) {
+            C = ModelFormat.read(fileName);
+            event.complete("load", fileName);
+            return;
+        }
+        //modello salvato con la serializzazione Java dalle versioni precedenti
         BufferedInputStream inBuffer = new BufferedInputStream(new FileInputStream(fileName));
         ObjectInputStream inStream = new ObjectInputStream(inBuffer);
         C = (ClusterSet) inStream.readObject();
         inStream.close();
+        event.complete("load-serialized", fileName);
     }
     
     /**
@@ -64,15 +117,76 @@ public class KMeansMiner {
         return C;
     }
     
+    /**
+     * <p>Restituisce un'istantanea immutabile dei centroidi correnti, con cui 
+     * assegnare ai cluster nuove righe o le tuple di una tabella con schema 
+     * compatibile, anche da più thread contemporaneamente. L'istantanea non 
+     * risente delle successive esecuzioni dell'algoritmo.
+     * @return l'istantanea dei centroidi.
+     */
+    public CentroidSnapshot getCentroidSnapshot() {
+        return C.snapshot();
+    }
+    
+    /**
+     * <p>Imposta la strategia di scelta dei centroidi iniziali (k-means++ se 
+     * non specificata).
+     * @param seeding strategia di scelta dei centroidi iniziali.
+     */
+    public void setSeeding(SeedingStrategy seeding) {
+        this.seeding = seeding;
+    }
+    
+    /**
+     * <p>Imposta il seme del generatore pseudo-casuale usato nella scelta dei
+     * centroidi iniziali, così da rendere ripetibile l'esecuzione dell'algoritmo.
+     * @param seed seme del generatore pseudo-casuale.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * <p>Abilita o disabilita l'assegnazione accelerata: per ciascuna riga si
+     * mantengono dei limiti alla distanza dai centroidi che, per la disuguaglianza
+     * triangolare, permettono di evitare gran parte del calcolo delle distanze 
+     * dopo le prime iterazioni. Il risultato dell'algoritmo non cambia.
+     * @param pruning vero per abilitare l'assegnazione accelerata.
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+    
+    /**
+     * <p>Registra l'ascoltatore {@code listener}, a cui saranno notificate la
+     * scelta dei centroidi iniziali, le misure di ciascuna iterazione e la 
+     * conclusione di {@link #kmeans(Data)}. Finché non è registrato alcun 
+     * ascoltatore l'algoritmo non esegue alcuna misura.
+     * @param listener ascoltatore da registrare.
+     */
+    public void addListener(KMeansListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * <p>Annulla la registrazione dell'ascoltatore {@code listener}.
+     * @param listener ascoltatore da rimuovere.
+     */
+    public void removeListener(KMeansListener listener) {
+        listeners.remove(listener);
+    }
+    
     /**
      * <p>Esegue l’algoritmo k-means, riferendosi alla tabella descritta da 
      * {@code data}, eseguendo i passi dello pseudo-codice:
      * <ol>
-     * <li>Scelta casuale di centroidi per k clusters;</li>
+     * <li>Scelta dei centroidi iniziali per k clusters secondo la strategia impostata (k-means++ se non specificata);</li>
      * <li>Assegnazione di ciascuna riga della matrice in data al cluster avente centroide più vicino all'esempio;</li>
      * <li>Calcolo dei nuovi centroidi per ciascun cluster;</li>
-     * <li>Ripetere i passi 2 e 3 finché due iterazioni consecuitive non restituiscono centroidi uguali.</li>
+     * <li>Ripetere i passi 2 e 3 finché due iterazioni consecuitive non restituiscono centroidi uguali
+     * o non è soddisfatto un altro dei criteri impostati con {@link #setConvergencePolicy(ConvergencePolicy)}.</li>
      * </ol>
+     * <p>Il motivo per cui l'algoritmo si è fermato è restituito da {@link #getStopReason()}.
      * @param data tabella con i dati da modellare.
      * @return il numero di iterazioni servite per assestare la configurazione 
      *         dei cluster rispetto alla matrice data.
@@ -80,45 +194,302 @@ public class KMeansMiner {
      *                                  un numero di cluster non permesso.
      */
     public int kmeans(Data data) throws OutOfRangeSampleSize{
-        int numberOfIterations = 0;
-        //STEP 1
-        C.initializeCentroids(data);
-        boolean changedCluster = false;
-        do{
-            numberOfIterations++;
-            //STEP 2
-            changedCluster = false;
-            for(int i = 0; i < data.getNumberOfExamples(); i++){
-                Cluster nearestCluster = C.nearestCluster(data.getItemSet(i));
-                Cluster oldCluster = C.currentCluster(i);
-                boolean currentChange = nearestCluster.addData(i);
-                if(currentChange)
-                    changedCluster = true;
-                //rimuovo la tupla dal vecchio cluster
-                if(currentChange && oldCluster != null)
-                //il nodo va rimosso dal suo vecchio cluster
-                    oldCluster.removeTuple(i);
+        inertia = Double.NaN;
+        stopReason = null;
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            if (listeners.isEmpty()) {
+                //STEP 1
+                C.initializeCentroids(data, seeding, seed, pool);
+                C.setPruning(pruning);
+                //STEP 2-4
+                int numberOfIterations = C.converge(data, pool, null, convergence);
+                stopReason = C.getStopReason();
+                return numberOfIterations;
             }
-            //STEP 3
-            C.updateCentroids(data);
-        } while(changedCluster);
+            long start = System.nanoTime();
+            C.initializeCentroids(data, seeding, seed, pool);
+            listeners.seedingCompleted(System.nanoTime() - start);
+            C.setPruning(pruning);
+            int numberOfIterations = C.converge(data, pool, listeners, convergence);
+            stopReason = C.getStopReason();
+            listeners.runCompleted(numberOfIterations, System.nanoTime() - start);
+            return numberOfIterations;
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+    }
+    
+    /**
+     * <p>Imposta i criteri con cui {@link #kmeans(Data)} e {@link #kmeans(Data, int)}
+     * smettono di iterare (in assenza di criteri, finché un'iterazione non 
+     * sposta alcuna tupla).
+     * @param convergence criteri di arresto delle iterazioni.
+     */
+    public void setConvergencePolicy(ConvergencePolicy convergence) {
+        this.convergence = convergence != null ? convergence : new ConvergencePolicy();
+    }
+    
+    /**
+     * <p>Restituisce il motivo per cui si è fermata l'ultima esecuzione di 
+     * {@link #kmeans(Data)} o, per {@link #kmeans(Data, int)}, l'esecuzione scelta.
+     * Dopo {@link #miniBatchKmeans(Data, int, int, double)} il motivo è 
+     * {@link StopReason#CONVERGED} se l'ultimo campione non ha spostato alcun 
+     * centroide, {@link StopReason#CENTROID_SHIFT} se li ha spostati non oltre 
+     * la tolleranza e {@link StopReason#MAX_ITERATIONS} altrimenti.
+     * @return il motivo dell'arresto, null se l'algoritmo non è stato eseguito.
+     */
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+    
+    /**
+     * <p>Imposta il criterio con cui {@link #kmeans(Data, int)} abbandona le 
+     * esecuzioni in svantaggio: dopo {@code afterIterations} iterazioni, 
+     * un'esecuzione viene abbandonata se la sua distanza complessiva supera di 
+     * oltre la frazione {@code margin} la migliore tra quelle delle altre 
+     * esecuzioni (5 iterazioni e 0.02 se non specificato).
+     * @param afterIterations iterazioni da eseguire prima di poter abbandonare un'esecuzione.
+     * @param margin scarto relativo oltre il quale un'esecuzione viene abbandonata.
+     */
+    public void setAbandonment(int afterIterations, double margin) {
+        this.abandonAfter = Math.max(1, afterIterations);
+        this.abandonMargin = margin;
+    }
+    
+    /**
+     * <p>Restituisce la somma delle distanze delle tuple dal centroide del 
+     * proprio cluster, calcolata da {@link #kmeans(Data, int)} per confrontare
+     * le esecuzioni.
+     * @return la distanza complessiva dell'insieme dei cluster scelto, NaN se
+     *         non è stata calcolata.
+     */
+    public double getInertia() {
+        return inertia;
+    }
+    
+    /**
+     * <p>Esegue {@code restarts} volte l’algoritmo k-means sulla tabella 
+     * {@code data}, con semi diversi per la scelta dei centroidi iniziali, e 
+     * mantiene l'insieme dei cluster con la minima somma delle distanze delle 
+     * tuple dal centroide del proprio cluster. La prima esecuzione usa il seme
+     * impostato, così che con una sola esecuzione il risultato coincida con 
+     * quello di {@link #kmeans(Data)}.
+     * <p>Le esecuzioni condividono la tabella in sola lettura e avanzano a turni
+     * di un'iterazione, in parallelo su {@code parallelism} thread. A ogni turno,
+     * superate le prime iterazioni, le esecuzioni la cui distanza complessiva è 
+     * chiaramente peggiore della migliore (vedi 
+     * {@link #setAbandonment(int, double)}) vengono abbandonate, così che il 
+     * costo complessivo resti ben al di sotto di {@code restarts} esecuzioni 
+     * complete. Poiché le decisioni vengono prese tra un turno e l'altro, il 
+     * risultato non dipende dal numero di thread.
+     * <p>I criteri di arresto impostati con {@link #setConvergencePolicy(ConvergencePolicy)}
+     * si applicano a ciascuna esecuzione; il tempo a disposizione vale invece 
+     * per l'insieme delle esecuzioni: esaurito, quelle ancora in corso vengono
+     * fermate e si sceglie la migliore tra tutte nello stato raggiunto.
+     * @param data tabella con i dati da modellare.
+     * @param restarts numero di esecuzioni indipendenti.
+     * @return il numero di iterazioni dell'esecuzione scelta.
+     * @throws data.OutOfRangeSampleSize nel caso in cui si sta cercando di creare 
+     *                                  un numero di cluster non permesso.
+     */
+    public int kmeans(Data data, int restarts) throws OutOfRangeSampleSize{
+        RestartRun chosen = null;
+        for (RestartRun run : restart(data, restarts)) {
+            if (!run.isAbandoned() && (chosen == null || run.getInertia() < chosen.getInertia()))
+                chosen = run;
+        }
+        C = chosen.getClusterSet();
+        inertia = chosen.getInertia();
+        stopReason = chosen.getStopReason();
+        return chosen.getIterations();
+    }
+    
+    /**
+     * <p>Esegue le {@code restarts} esecuzioni di {@link #kmeans(Data, int)}, 
+     * abbandonando quelle in svantaggio, e le restituisce tutte nell'ordine 
+     * dei semi, comprese quelle abbandonate, senza sceglierne alcuna.
+     * @param data tabella con i dati da modellare.
+     * @param restarts numero di esecuzioni indipendenti.
+     * @return le esecuzioni nello stato in cui si sono fermate.
+     * @throws data.OutOfRangeSampleSize nel caso in cui si sta cercando di creare 
+     *                                  un numero di cluster non permesso.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    List<RestartRun> restart(Data data, int restarts) throws OutOfRangeSampleSize{
+        List<RestartRun> active = new ArrayList<RestartRun>();
+        List<RestartRun> runs = new ArrayList<RestartRun>();
+        for (int r = 0; r < Math.max(1, restarts); r++)
+            runs.add(new RestartRun(data, C.getNumberOfClusters(), seeding, seed + r * 0x9E3779B97F4A7C15L, pruning, abandonAfter, convergence));
+        active.addAll(runs);
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            advance(active, pool);      //scelta dei centroidi iniziali
+            long start = System.nanoTime();
+            while (!active.isEmpty()) {
+                advance(active, pool);
+                double best = Double.POSITIVE_INFINITY;
+                for (RestartRun run : runs) {
+                    if (!run.isAbandoned() && run.getInertia() < best)
+                        best = run.getInertia();
+                }
+                Iterator<RestartRun> it = active.iterator();
+                while (it.hasNext()) {
+                    RestartRun run = it.next();
+                    if (run.isConverged())
+                        it.remove();
+                    else if (run.getIterations() >= abandonAfter && run.getInertia() > best * (1 + abandonMargin)) {
+                        run.abandon();
+                        it.remove();
+                    }
+                }
+                if (!active.isEmpty() && convergence.isOutOfTime(System.nanoTime() - start)) {
+                    for (RestartRun run : active)
+                        run.stop(StopReason.TIME_BUDGET);
+                    active.clear();
+                }
+            }
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+        return runs;
+    }
+    
+    /**
+     * <p>Fa avanzare di un passo ciascuna delle esecuzioni {@code runs}, in 
+     * parallelo sul pool {@code pool} oppure nel thread corrente se 
+     * {@code pool} è null, e attende che tutte abbiano terminato.
+     * @param runs esecuzioni da far avanzare.
+     * @param pool pool su cui eseguire le esecuzioni, null per l'esecuzione sequenziale.
+     * @throws data.OutOfRangeSampleSize se la scelta dei centroidi iniziali fallisce.
+     */
+    private void advance(List<RestartRun> runs, ForkJoinPool pool) throws OutOfRangeSampleSize{
+        try {
+            if (pool == null) {
+                for (RestartRun run : runs)
+                    run.call();
+            } else {
+                for (Future<Void> step : pool.invokeAll(runs))
+                    step.get();
+            }
+        } catch (ExecutionException ex) {
+            rethrow(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (Exception ex) {
+            rethrow(ex);
+        }
+    }
+    
+    /**
+     * <p>Rilancia l'eccezione {@code cause} sollevata da un'esecuzione.
+     * @param cause eccezione da rilanciare.
+     * @throws data.OutOfRangeSampleSize se {@code cause} è di questo tipo.
+     */
+    private static void rethrow(Throwable cause) throws OutOfRangeSampleSize{
+        if (cause instanceof OutOfRangeSampleSize)
+            throw (OutOfRangeSampleSize) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        throw new IllegalStateException(cause);
+    }
+    
+    /**
+     * <p>Esegue la variante a mini-batch dell’algoritmo k-means, adatta a tabelle
+     * molto grandi, riferendosi alla tabella descritta da {@code data}:
+     * <ol>
+     * <li>Scelta dei centroidi iniziali per k clusters secondo la strategia impostata;</li>
+     * <li>Estrazione casuale di un campione di {@code batchSize} righe;</li>
+     * <li>Assegnazione di ciascuna riga del campione al cluster più vicino e 
+     * spostamento del centroide verso la riga, con tasso di apprendimento pari 
+     * all'inverso del numero di righe assegnate fino a quel momento al cluster;</li>
+     * <li>Ripetere i passi 2 e 3 finché nessun centroide si sposta più di 
+     * {@code tolerance} o fino a {@code maxIterations} iterazioni.</li>
+     * </ol>
+     * <p>Al termine ciascuna riga della tabella viene assegnata al cluster più 
+     * vicino, così che l'insieme dei cluster possa essere visualizzato e salvato
+     * con {@link #salva(String)} come quello prodotto da {@link #kmeans(Data)}.
+     * @param data tabella con i dati da modellare.
+     * @param batchSize numero di righe di ciascun campione.
+     * @param maxIterations numero massimo di campioni da elaborare.
+     * @param tolerance spostamento massimo dei centroidi, nella distanza tra 
+     *                  tuple, al di sotto del quale l'algoritmo termina.
+     * @return il numero di iterazioni (campioni) eseguite.
+     * @throws data.OutOfRangeSampleSize nel caso in cui si sta cercando di creare 
+     *                                  un numero di cluster non permesso.
+     */
+    public int miniBatchKmeans(Data data, int batchSize, int maxIterations, double tolerance) throws OutOfRangeSampleSize{
+        inertia = Double.NaN;
+        stopReason = null;
+        int numberOfIterations = 0;
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            //STEP 1
+            C.initializeCentroids(data, seeding, seed, pool);
+            Random rand = new Random(seed);
+            int batch[] = new int[Math.max(1, batchSize)];
+            int nearest[] = new int[batch.length];
+            PrototypeAccumulator learned[] = new PrototypeAccumulator[C.getNumberOfClusters()];
+            for (int j = 0; j < learned.length; j++)
+                learned[j] = new PrototypeAccumulator(data);
+            double maxShift;
+            do {
+                numberOfIterations++;
+                //STEP 2
+                for (int b = 0; b < batch.length; b++)
+                    batch[b] = rand.nextInt(data.getNumberOfExamples());
+                //STEP 3
+                maxShift = C.miniBatchStep(data, batch, nearest, learned);
+            } while (maxShift > tolerance && numberOfIterations < maxIterations);
+            if (maxShift > tolerance)
+                stopReason = StopReason.MAX_ITERATIONS;
+            else
+                stopReason = maxShift > 0.0 ? StopReason.CENTROID_SHIFT : StopReason.CONVERGED;
+            C.assign(data, pool);
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
         return numberOfIterations;
     }
     
     /**
      * Apre il file identificato da {@code fileName} e salva l'oggetto riferito 
-     * da {@code C} in tale file.
-     * @param fileName percorso + nome del file in cui serializzare l'oggetto {@code this}.
+     * da {@code C} in tale file, insieme all'assegnazione delle righe ai cluster.
+     * @param fileName percorso + nome del file in cui salvare l'insieme dei cluster.
      * @throws FileNotFoundException nel caso in cui il nome del file non indichi
      *                               un file reale nel file system o si tenti di
      *                               scrivere qualora il file è di sola lettura.
      * @throws IOException per un qualsiasi errore di input/output.
+     * @see #salva(String, boolean)
      */
     public void salva(String fileName) throws FileNotFoundException, IOException {
-        BufferedOutputStream outBuffer = new BufferedOutputStream(new FileOutputStream(fileName));
-        ObjectOutputStream outStream = new ObjectOutputStream(outBuffer);
-        outStream.writeObject(C);
-        outStream.close();
+        salva(fileName, true);
+    }
+
+    /**
+     * Apre il file identificato da {@code fileName} e salva l'oggetto riferito 
+     * da {@code C} in tale file, nel formato binario versionato di 
+     * {@link ModelFormat}: lo schema con i dizionari degli attributi, i 
+     * centroidi come valori primitivi e, se {@code withAssignment} è vero, 
+     * l'assegnazione compressa delle righe ai cluster.
+     * @param fileName percorso + nome del file in cui salvare l'insieme dei cluster.
+     * @param withAssignment vero per salvare anche l'assegnazione delle righe.
+     * @throws FileNotFoundException nel caso in cui il nome del file non indichi
+     *                               un file reale nel file system o si tenti di
+     *                               scrivere qualora il file è di sola lettura.
+     * @throws IOException per un qualsiasi errore di input/output.
+     */
+    public void salva(String fileName, boolean withAssignment) throws FileNotFoundException, IOException {
+        ModelFileProbe event = ModelFileProbe.EVENTS.create();
+        event.begin();
+        ModelFormat.write(C, fileName, withAssignment);
+        event.complete("save", fileName);
     }
 
     /**
@@ -130,4 +501,55 @@ public class KMeansMiner {
     public String toString() {
         return C.toString();
     }
+
+    /**
+     * <p>Inoltra le notifiche dell'algoritmo a ciascuno degli ascoltatori 
+     * registrati; la lista può essere modificata anche durante l'esecuzione.
+     */
+    private static class Listeners implements KMeansListener {
+        /**Ascoltatori registrati*/
+        private final List<KMeansListener> registered = new CopyOnWriteArrayList<KMeansListener>();
+
+        /**
+         * <p>Registra l'ascoltatore {@code listener}.
+         * @param listener ascoltatore da registrare.
+         */
+        void add(KMeansListener listener) {
+            registered.add(listener);
+        }
+
+        /**
+         * <p>Annulla la registrazione dell'ascoltatore {@code listener}.
+         * @param listener ascoltatore da rimuovere.
+         */
+        void remove(KMeansListener listener) {
+            registered.remove(listener);
+        }
+
+        /**
+         * <p>Verifica se non è registrato alcun ascoltatore.
+         * @return vero se non ci sono ascoltatori.
+         */
+        boolean isEmpty() {
+            return registered.isEmpty();
+        }
+
+        @Override
+        public void seedingCompleted(long nanos) {
+            for (KMeansListener listener : registered)
+                listener.seedingCompleted(nanos);
+        }
+
+        @Override
+        public void iterationCompleted(IterationStats stats) {
+            for (KMeansListener listener : registered)
+                listener.iterationCompleted(stats);
+        }
+
+        @Override
+        public void runCompleted(int iterations, long nanos) {
+            for (KMeansListener listener : registered)
+                listener.runCompleted(iterations, nanos);
+        }
+    }
 }
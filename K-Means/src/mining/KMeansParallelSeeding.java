@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Sceglie i centroidi iniziali secondo la strategia k-means||, variante 
+ * di k-means++ adatta a tabelle molto grandi: invece di scandire la tabella una
+ * volta per ciascun centroide, in pochi passi campiona in blocco circa 
+ * {@code oversampling * k} candidati per passo, ciascuno con probabilità 
+ * proporzionale al quadrato della distanza dai candidati già scelti; i candidati
+ * vengono poi pesati con il numero di righe a cui sono più vicini e ridotti a 
+ * {@code k} con k-means++ pesato. L'aggiornamento delle distanze, che è la 
+ * parte costosa, è eseguito in parallelo sui blocchi della tabella.
+ * @author Andrea Mercanti
+ */
+public class KMeansParallelSeeding implements SeedingStrategy {
+    /**Numero atteso di candidati campionati a ogni passo, in rapporto a k*/
+    private double oversampling;
+    /**Numero di passi di campionamento*/
+    private int rounds;
+
+    /**
+     * <p>Crea la strategia con fattore di sovracampionamento 2 e 5 passi di campionamento.
+     */
+    public KMeansParallelSeeding() {
+        this(2.0, 5);
+    }
+
+    /**
+     * <p>Crea la strategia con il fattore di sovracampionamento {@code oversampling}
+     * e il numero di passi di campionamento {@code rounds}.
+     * @param oversampling numero atteso di candidati per passo, in rapporto a k.
+     * @param rounds numero di passi di campionamento.
+     */
+    public KMeansParallelSeeding(double oversampling, int rounds) {
+        this.oversampling = oversampling;
+        this.rounds = rounds;
+    }
+
+    /**
+     * <p>Sceglie {@code k} righe distinte della tabella {@code data} secondo la
+     * strategia k-means||.
+     * @param data tabella da modellare.
+     * @param k numero di cluster da generare.
+     * @param seed seme del generatore pseudo-casuale.
+     * @param pool pool su cui aggiornare le distanze in parallelo, null per l'esecuzione sequenziale.
+     * @return l'array con gli indici delle k righe scelte come centroidi.
+     * @throws OutOfRangeSampleSize se {@code k} non è compreso tra 1 e il numero
+     *                              di tuple distinte della tabella.
+     */
+    @Override
+    public int[] select(Data data, int k, long seed, ForkJoinPool pool) throws OutOfRangeSampleSize {
+        int n = data.getNumberOfExamples();
+        if (k <= 0 || k > n)
+            throw new OutOfRangeSampleSize(k, "Il numero di cluster inserito non è valido: ");
+        Random rand = new Random(seed);
+        double d2[] = new double[n];
+        Arrays.fill(d2, Double.POSITIVE_INFINITY);
+        int closest[] = new int[n];
+        double blockSums[] = new double[AssignmentTask.numberOfBlocks(data)];
+        
+        /*Campionamento dei candidati*/
+        int candidates[] = new int[Math.max(16, k)];
+        int size = 0;
+        candidates[size++] = rand.nextInt(n);
+        DistanceUpdateTask.update(data, candidates, 0, size, d2, closest, blockSums, pool);
+        double expected = oversampling * k;
+        for (int round = 0; round < rounds; round++) {
+            double phi = 0.0;
+            for (double sum : blockSums)
+                phi += sum;
+            if (phi <= 0.0)
+                break;
+            int from = size;
+            for (int i = 0; i < n; i++) {
+                if (d2[i] > 0.0 && rand.nextDouble() * phi < expected * d2[i]) {
+                    if (size == candidates.length)
+                        candidates = Arrays.copyOf(candidates, size * 2);
+                    candidates[size++] = i;
+                }
+            }
+            DistanceUpdateTask.update(data, candidates, from, size, d2, closest, blockSums, pool);
+        }
+        
+        /*Peso di ciascun candidato: numero di righe a cui è il più vicino*/
+        double weights[] = new double[size];
+        for (int i = 0; i < n; i++)
+            weights[closest[i]]++;
+        
+        /*Riduzione dei candidati a k centroidi con k-means++ pesato*/
+        int centers[] = new int[k];
+        int chosen = reduce(data, candidates, weights, size, centers, rand);
+        if (chosen < k) {
+            /*Candidati distinti insufficienti: si prosegue con k-means++ sull'intera tabella*/
+            Arrays.fill(d2, Double.POSITIVE_INFINITY);
+            DistanceUpdateTask.update(data, centers, 0, chosen - 1, d2, closest, blockSums, pool);
+            KMeansPlusPlusSeeding.choose(data, centers, chosen, d2, closest, blockSums, rand, pool);
+        }
+        return centers;
+    }
+
+    /**
+     * <p>Sceglie fino a {@code centers.length} centroidi tra i candidati, con 
+     * k-means++ in cui la probabilità di ciascun candidato è moltiplicata per il
+     * suo peso.
+     * @param data tabella da modellare.
+     * @param candidates indici di riga dei candidati.
+     * @param weights peso di ciascun candidato.
+     * @param size numero di candidati.
+     * @param centers array in cui memorizzare gli indici di riga dei centroidi scelti.
+     * @param rand generatore pseudo-casuale.
+     * @return il numero di centroidi scelti, minore di {@code centers.length} 
+     *         se i candidati distinti non sono sufficienti.
+     */
+    private static int reduce(Data data, int[] candidates, double[] weights, int size, int[] centers, Random rand) {
+        double d2[] = new double[size];
+        Arrays.fill(d2, Double.POSITIVE_INFINITY);
+        int chosen = 0;
+        while (chosen < centers.length) {
+            double total = 0.0;
+            for (int c = 0; c < size; c++)
+                total += probability(weights[c], d2[c], chosen);
+            if (total <= 0.0)
+                break;
+            double target = rand.nextDouble() * total;
+            int pick = -1;
+            for (int c = 0; c < size; c++) {
+                double p = probability(weights[c], d2[c], chosen);
+                if (p > 0.0) {
+                    pick = c;
+                    if (target < p)
+                        break;
+                    target -= p;
+                }
+            }
+            centers[chosen++] = candidates[pick];
+            for (int c = 0; c < size; c++) {
+                double d = data.getDistance(candidates[c], candidates[pick]);
+                d2[c] = Math.min(d2[c], d * d);
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * <p>Restituisce il peso, non normalizzato, con cui un candidato viene scelto:
+     * il suo peso per il primo centroide, il peso moltiplicato per il quadrato 
+     * della distanza dal centroide più vicino per i successivi.
+     * @param weight peso del candidato.
+     * @param d2 quadrato della distanza del candidato dal centroide più vicino.
+     * @param chosen numero di centroidi già scelti.
+     * @return il peso del candidato nella scelta.
+     */
+    private static double probability(double weight, double d2, int chosen) {
+        return chosen == 0 ? weight : weight * d2;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Sceglie i centroidi iniziali secondo la strategia k-means++: il primo in 
+ * modo uniformemente casuale, ciascuno dei successivi con probabilità 
+ * proporzionale al quadrato della distanza (misurata come in 
+ * {@link data.Tuple#getDistance(data.Tuple)}) dal centroide già scelto più vicino.
+ * Centroidi iniziali ben distribuiti riducono il numero di iterazioni 
+ * necessarie all'algoritmo per assestarsi.
+ * @author Andrea Mercanti
+ */
+public class KMeansPlusPlusSeeding implements SeedingStrategy {
+    /**
+     * <p>Sceglie {@code k} righe distinte della tabella {@code data} secondo la
+     * strategia k-means++.
+     * @param data tabella da modellare.
+     * @param k numero di cluster da generare.
+     * @param seed seme del generatore pseudo-casuale.
+     * @param pool pool su cui aggiornare le distanze in parallelo, null per l'esecuzione sequenziale.
+     * @return l'array con gli indici delle k righe scelte come centroidi.
+     * @throws OutOfRangeSampleSize se {@code k} non è compreso tra 1 e il numero
+     *                              di tuple distinte della tabella.
+     */
+    @Override
+    public int[] select(Data data, int k, long seed, ForkJoinPool pool) throws OutOfRangeSampleSize {
+        int n = data.getNumberOfExamples();
+        if (k <= 0 || k > n)
+            throw new OutOfRangeSampleSize(k, "Il numero di cluster inserito non è valido: ");
+        Random rand = new Random(seed);
+        int centers[] = new int[k];
+        centers[0] = rand.nextInt(n);
+        double d2[] = new double[n];
+        Arrays.fill(d2, Double.POSITIVE_INFINITY);
+        choose(data, centers, 1, d2, new int[n], new double[AssignmentTask.numberOfBlocks(data)], rand, pool);
+        return centers;
+    }
+
+    /**
+     * <p>Completa la scelta dei centroidi in {@code centers}, a partire dalla 
+     * posizione {@code chosen}, secondo la strategia k-means++; {@code d2} deve 
+     * contenere il quadrato della distanza di ciascuna riga dal più vicino dei 
+     * centroidi già scelti, escluso l'ultimo.
+     * @param data tabella da modellare.
+     * @param centers indici di riga dei centroidi, scelti fino alla posizione {@code chosen} esclusa.
+     * @param chosen numero di centroidi già scelti (almeno uno).
+     * @param d2 quadrato della distanza di ciascuna riga dal centroide più vicino.
+     * @param closest posizione in centers del centroide più vicino a ciascuna riga.
+     * @param blockSums somma di d2 su ciascun blocco di righe.
+     * @param rand generatore pseudo-casuale.
+     * @param pool pool su cui aggiornare le distanze in parallelo, null per l'esecuzione sequenziale.
+     * @throws OutOfRangeSampleSize se la tabella contiene meno tuple distinte dei centroidi richiesti.
+     */
+    static void choose(Data data, int[] centers, int chosen, double[] d2, int[] closest, double[] blockSums, Random rand, ForkJoinPool pool) throws OutOfRangeSampleSize {
+        for (int c = chosen; c < centers.length; c++) {
+            DistanceUpdateTask.update(data, centers, c - 1, c, d2, closest, blockSums, pool);
+            centers[c] = DistanceUpdateTask.sample(d2, blockSums, rand.nextDouble());
+            if (centers[c] < 0)
+                throw new OutOfRangeSampleSize(centers.length, "Il numero di cluster inserito supera il numero di tuple distinte: ");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import events.EventFactory;
+
+/**
+ * <p>Misura il salvataggio o il caricamento di un modello. Se la JVM offre 
+ * Flight Recorder la sonda è un evento {@code ModelFileEvent}, altrimenti non 
+ * registra nulla.
+ * @author Andrea Mercanti
+ */
+interface ModelFileProbe {
+    /**Sonda che non registra nulla*/
+    ModelFileProbe DISABLED = new ModelFileProbe() {
+        @Override
+        public void begin() {}
+
+        @Override
+        public void complete(String operation, String path) {}
+    };
+    /**Fabbrica delle sonde*/
+    EventFactory<ModelFileProbe> EVENTS = EventFactory.load("mining.ModelFileEvent", ModelFileProbe.class, DISABLED);
+
+    /**
+     * <p>Avvia la misura dell'operazione sul file.
+     */
+    void begin();
+
+    /**
+     * <p>Conclude la misura dell'operazione sul file.
+     * @param operation operazione eseguita.
+     * @param path percorso del file.
+     */
+    void complete(String operation, String path);
+}
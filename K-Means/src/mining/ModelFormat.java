@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Attribute;
+import data.BinaryFormat;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * <p>Modella il formato binario versionato con cui {@link KMeansMiner} salva e
+ * carica un insieme di cluster, in sostituzione della serializzazione Java: il
+ * file non dipende dalla struttura interna delle classi e viene letto mappandolo
+ * in memoria, così che un processo che deve solo assegnare nuove tuple ai 
+ * cluster possa aprire il modello quasi istantaneamente.
+ * <p>Il formato è il seguente, con gli interi in ordine big-endian:
+ * <pre>
+ * int    MAGIC, int VERSION, int flag, int k
+ *        schema dei centroidi, come in {@link BinaryFormat#writeSchema(java.io.DataOutput, data.Tuple)}
+ * per ciascun cluster: il centroide, come in {@link BinaryFormat#writeTuple(java.io.DataOutput, data.Tuple)}
+ * se il flag ASSIGNMENT è impostato:
+ *        int n, byte b, long[] con l'assegnazione delle n righe, 
+ *        b bit per riga (indice del cluster + 1, 0 per le righe non assegnate)
+ * </pre>
+ * @author Andrea Mercanti
+ */
+class ModelFormat {
+    /**Numero magico che identifica un file di modello*/
+    static final int MAGIC = 0x4B4D4D4F;
+    /**Versione del formato del file*/
+    static final int VERSION = 1;
+    /**Flag che indica la presenza dell'assegnazione delle righe ai cluster*/
+    static final int ASSIGNMENT = 1;
+
+    /**
+     * <p>Verifica se il file {@code fileName} è un modello in questo formato, 
+     * leggendone il numero magico.
+     * @param fileName percorso + nome del file.
+     * @return vero se il file inizia con il numero magico del formato.
+     * @throws IOException in caso di errori di lettura.
+     */
+    static boolean isModel(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+            return in.readInt() == MAGIC;
+        } catch (java.io.EOFException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * <p>Salva nel file {@code fileName} l'insieme dei cluster {@code C}, 
+     * includendo l'assegnazione delle righe ai cluster se {@code withAssignment}
+     * è vero.
+     * @param C insieme dei cluster da salvare.
+     * @param fileName percorso + nome del file.
+     * @param withAssignment vero per salvare anche l'assegnazione delle righe.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    static void write(ClusterSet C, String fileName, boolean withAssignment) throws IOException {
+        int k = C.getNumberOfClusters();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(withAssignment ? ASSIGNMENT : 0);
+            out.writeInt(k);
+            BinaryFormat.writeSchema(out, C.get(0).getCentroid());
+            for (int j = 0; j < k; j++)
+                BinaryFormat.writeTuple(out, C.get(j).getCentroid());
+            if (withAssignment) {
+                int assignment[] = C.getAssignment();
+                int bits = bitsPerRow(k);
+                out.writeInt(assignment.length);
+                out.writeByte(bits);
+                for (long word : pack(assignment, bits))
+                    out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * <p>Carica l'insieme dei cluster salvato nel file {@code fileName}, 
+     * mappandolo in memoria.
+     * @param fileName percorso + nome del file.
+     * @return l'insieme dei cluster, con l'assegnazione delle righe se presente
+     *         nel file.
+     * @throws IOException in caso di errori di lettura o se il file non è un 
+     *                     modello valido in una versione supportata.
+     */
+    static ClusterSet read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Il file " + fileName + " non contiene un modello");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Versione del modello non supportata: " + version);
+            int flags = buffer.getInt();
+            int k = buffer.getInt();
+            List<Attribute> schema = BinaryFormat.readSchema(buffer);
+            ClusterSet C = new ClusterSet(k);
+            for (int j = 0; j < k; j++)
+                C.add(new Cluster(BinaryFormat.readTuple(buffer, schema)));
+            if ((flags & ASSIGNMENT) != 0) {
+                int rows = buffer.getInt();
+                int bits = buffer.get();
+                long words[] = new long[wordsFor(rows, bits)];
+                LongBuffer packed = buffer.asLongBuffer();
+                packed.get(words);
+                C.restoreAssignment(unpack(words, rows, bits));
+            }
+            return C;
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IOException("Il file " + fileName + " non è un modello valido", ex);
+        }
+    }
+
+    /**
+     * <p>Restituisce il numero di bit necessari a rappresentare l'assegnazione
+     * di una riga a uno dei {@code k} cluster o a nessuno.
+     * @param k numero di cluster.
+     * @return il numero di bit per riga.
+     */
+    private static int bitsPerRow(int k) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(k));
+    }
+
+    /**
+     * <p>Restituisce il numero di parole da 64 bit necessarie a contenere 
+     * {@code rows} valori da {@code bits} bit.
+     * @param rows numero di valori.
+     * @param bits bit per valore.
+     * @return il numero di parole.
+     */
+    private static int wordsFor(int rows, int bits) {
+        return (int) (((long) rows * bits + 63) >>> 6);
+    }
+
+    /**
+     * <p>Comprime l'assegnazione {@code assignment} memorizzando per ciascuna 
+     * riga l'indice del cluster incrementato di uno in {@code bits} bit.
+     * @param assignment indice del cluster di ciascuna riga (-1 se non assegnata).
+     * @param bits bit per riga.
+     * @return le parole che contengono l'assegnazione compressa.
+     */
+    private static long[] pack(int[] assignment, int bits) {
+        long words[] = new long[wordsFor(assignment.length, bits)];
+        for (int i = 0; i < assignment.length; i++) {
+            long value = assignment[i] + 1;
+            long position = (long) i * bits;
+            int word = (int) (position >>> 6), offset = (int) (position & 63);
+            words[word] |= value << offset;
+            if (offset + bits > 64)
+                words[word + 1] |= value >>> (64 - offset);
+        }
+        return words;
+    }
+
+    /**
+     * <p>Ricostruisce l'assegnazione compressa da {@link #pack(int[], int)}.
+     * @param words parole che contengono l'assegnazione compressa.
+     * @param rows numero di righe.
+     * @param bits bit per riga.
+     * @return l'indice del cluster di ciascuna riga (-1 se non assegnata).
+     */
+    private static int[] unpack(long[] words, int rows, int bits) {
+        int assignment[] = new int[rows];
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < rows; i++) {
+            long position = (long) i * bits;
+            int word = (int) (position >>> 6), offset = (int) (position & 63);
+            long value = words[word] >>> offset;
+            if (offset + bits > 64)
+                value |= words[word + 1] << (64 - offset);
+            assignment[i] = (int) (value & mask) - 1;
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+/**
+ * <p>Modella il risultato della scelta automatica del numero di cluster 
+ * eseguita da {@link ModelSelector}: per ciascun valore di k valutato, la 
+ * somma delle distanze delle tuple dal centroide del proprio cluster (per il 
+ * metodo del gomito) e la silhouette media stimata su un campione di tuple, 
+ * oltre all'insieme dei cluster scelto.
+ * @author Andrea Mercanti
+ */
+public class ModelSelection {
+    /**Valori di k valutati, in ordine crescente*/
+    private int[] ks;
+    /**Somma delle distanze delle tuple dai rispettivi centroidi, per ciascun k*/
+    private double[] inertia;
+    /**Silhouette media del campione, per ciascun k*/
+    private double[] silhouette;
+    /**Posizione del k scelto*/
+    private int chosen;
+    /**Insieme dei cluster del k scelto*/
+    private ClusterSet clusterSet;
+
+    /**
+     * <p>Crea il risultato della scelta.
+     * @param ks valori di k valutati.
+     * @param inertia somma delle distanze per ciascun k.
+     * @param silhouette silhouette media per ciascun k.
+     * @param chosen posizione del k scelto.
+     * @param clusterSet insieme dei cluster del k scelto.
+     */
+    ModelSelection(int[] ks, double[] inertia, double[] silhouette, int chosen, ClusterSet clusterSet) {
+        this.ks = ks;
+        this.inertia = inertia;
+        this.silhouette = silhouette;
+        this.chosen = chosen;
+        this.clusterSet = clusterSet;
+    }
+
+    /**
+     * <p>Restituisce il numero di cluster scelto.
+     * @return il k con la silhouette media più alta.
+     */
+    public int getChosenK() {
+        return ks[chosen];
+    }
+
+    /**
+     * <p>Restituisce l'insieme dei cluster del k scelto.
+     * @return l'insieme dei cluster scelto.
+     */
+    public ClusterSet getClusterSet() {
+        return clusterSet;
+    }
+
+    /**
+     * <p>Restituisce i valori di k valutati.
+     * @return i valori di k, in ordine crescente.
+     */
+    public int[] getKs() {
+        return ks.clone();
+    }
+
+    /**
+     * <p>Restituisce la curva della somma delle distanze delle tuple dal 
+     * centroide del proprio cluster.
+     * @return la somma delle distanze per ciascun k di {@link #getKs()}.
+     */
+    public double[] getInertia() {
+        return inertia.clone();
+    }
+
+    /**
+     * <p>Restituisce la curva della silhouette media stimata sul campione.
+     * @return la silhouette media per ciascun k di {@link #getKs()}.
+     */
+    public double[] getSilhouette() {
+        return silhouette.clone();
+    }
+
+    /**
+     * <p>Restituisce la stringa che rappresenta le curve delle metriche, una 
+     * riga per ciascun k valutato, con il k scelto contrassegnato da un asterisco.
+     * @return la stringa con le metriche di ciascun k.
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("k\tinertia\tsilhouette\n");
+        for (int i = 0; i < ks.length; i++) {
+            s.append(ks[i]).append(i == chosen ? "*" : "").append('\t')
+             .append(inertia[i]).append('\t').append(silhouette[i]).append('\n');
+        }
+        return s.toString();
+    }
+}
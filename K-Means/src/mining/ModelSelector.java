@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.Tuple;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Sceglie automaticamente il numero di cluster con cui modellare una tabella,
+ * valutando con l'algoritmo k-means un intervallo di valori di k sulla stessa 
+ * istanza di {@code Data}. Per ciascun k si calcolano la somma delle distanze 
+ * delle tuple dal centroide del proprio cluster (per il metodo del gomito) e la
+ * silhouette media di un campione fisso di tuple, e si sceglie il k con la 
+ * silhouette più alta.
+ * <p>I valori di k sono valutati a turni di {@link #setWidth(int) width} 
+ * candidati consecutivi, eseguiti in parallelo. Ogni candidato parte a caldo 
+ * dalla soluzione con il k più alto del turno precedente: ne riusa i centroidi
+ * e aggiunge quelli mancanti scegliendo le tuple con probabilità proporzionale
+ * al quadrato della distanza dal centroide più vicino, come in k-means++. 
+ * L'esplorazione si ferma quando per {@link #setPatience(int) patience} turni
+ * consecutivi la silhouette non migliora di almeno {@link #setTolerance(double) 
+ * tolerance}. Poiché l'ampiezza dei turni non dipende dal numero di thread, il
+ * risultato non dipende dal livello di parallelismo.
+ * @author Andrea Mercanti
+ */
+public class ModelSelector {
+    /**Minimo numero di cluster da valutare*/
+    private int minK;
+    /**Massimo numero di cluster da valutare*/
+    private int maxK;
+    /**Numero di candidati valutati a ogni turno*/
+    private int width = 4;
+    /**Numero di thread impiegati nella valutazione*/
+    private int parallelism = 1;
+    /**Seme del generatore pseudo-casuale*/
+    private long seed = System.currentTimeMillis();
+    /**Numero di tuple del campione su cui stimare la silhouette*/
+    private int sampleSize = 1000;
+    /**Miglioramento minimo della silhouette perché un turno non sia considerato stabile*/
+    private double tolerance = 0.01;
+    /**Numero di turni stabili consecutivi dopo i quali l'esplorazione si ferma*/
+    private int patience = 1;
+    /**Strategia di scelta dei centroidi del primo candidato*/
+    private SeedingStrategy seeding = new KMeansPlusPlusSeeding();
+
+    /**
+     * <p>Crea il selettore per i valori di k compresi tra {@code minK} e 
+     * {@code maxK} (inclusi); la silhouette richiede almeno due cluster.
+     * @param minK minimo numero di cluster da valutare.
+     * @param maxK massimo numero di cluster da valutare.
+     */
+    public ModelSelector(int minK, int maxK) {
+        this.minK = Math.max(2, minK);
+        this.maxK = Math.max(this.minK, maxK);
+    }
+
+    /**
+     * <p>Imposta il numero di candidati consecutivi valutati a ogni turno (4 se
+     * non specificato).
+     * @param width numero di candidati per turno.
+     */
+    public void setWidth(int width) {
+        this.width = Math.max(1, width);
+    }
+
+    /**
+     * <p>Imposta il numero di thread impiegati nella valutazione dei candidati.
+     * @param parallelism numero di thread (1 per l'esecuzione sequenziale).
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * <p>Imposta il seme del generatore pseudo-casuale, così da rendere 
+     * ripetibile la scelta.
+     * @param seed seme del generatore pseudo-casuale.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * <p>Imposta il numero di tuple del campione su cui stimare la silhouette 
+     * (1000 se non specificato); il costo della stima cresce con il quadrato 
+     * della dimensione del campione.
+     * @param sampleSize numero di tuple del campione.
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = Math.max(2, sampleSize);
+    }
+
+    /**
+     * <p>Imposta il miglioramento minimo della silhouette al di sotto del quale
+     * un turno è considerato stabile (0.01 se non specificato).
+     * @param tolerance miglioramento minimo della silhouette.
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * <p>Imposta il numero di turni stabili consecutivi dopo i quali 
+     * l'esplorazione si ferma (1 se non specificato).
+     * @param patience numero di turni stabili consecutivi.
+     */
+    public void setPatience(int patience) {
+        this.patience = Math.max(1, patience);
+    }
+
+    /**
+     * <p>Imposta la strategia di scelta dei centroidi del primo candidato 
+     * (k-means++ se non specificata).
+     * @param seeding strategia di scelta dei centroidi iniziali.
+     */
+    public void setSeeding(SeedingStrategy seeding) {
+        this.seeding = seeding;
+    }
+
+    /**
+     * <p>Valuta i valori di k sulla tabella {@code data} e sceglie quello con 
+     * la silhouette media più alta (il minore, a parità di silhouette).
+     * @param data tabella con i dati da modellare.
+     * @return l'insieme dei cluster scelto e le curve delle metriche.
+     * @throws data.OutOfRangeSampleSize se la tabella non contiene almeno 
+     *                                  {@code minK} tuple distinte.
+     */
+    @SuppressWarnings("Convert2Diamond")
+    public ModelSelection select(final Data data) throws OutOfRangeSampleSize {
+        int sample[] = sample(data.getNumberOfExamples(), new Random(seed));
+        double distances[][] = new double[sample.length][sample.length];
+        for (int a = 0; a < sample.length; a++)
+            for (int b = 0; b < a; b++)
+                distances[a][b] = distances[b][a] = data.getDistance(sample[a], sample[b]);
+        
+        List<Candidate> evaluated = new ArrayList<Candidate>();
+        Candidate best;
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            ClusterSet first = new ClusterSet(minK);
+            first.initializeCentroids(data, seeding, seed, pool);
+            first.converge(data, pool);
+            Candidate base = new Candidate(data, minK, null, sample, distances);
+            base.evaluate(first);
+            evaluated.add(base);
+            
+            best = base;
+            int stable = 0;
+            for (int from = minK + 1; from <= maxK && stable < patience; from += width) {
+                int to = Math.min(maxK, from + width - 1);
+                int added[] = warmStart(data, base.clusterSet, to - base.k, new Random(seed + from));
+                to = base.k + added.length;
+                if (to < from)
+                    break;      //non ci sono altre tuple distinte da usare come centroidi
+                
+                List<Candidate> round = new ArrayList<Candidate>();
+                for (int k = from; k <= to; k++) {
+                    Tuple centroids[] = new Tuple[k];
+                    for (int j = 0; j < base.k; j++)
+                        centroids[j] = base.clusterSet.get(j).getCentroid().copy();
+                    for (int j = base.k; j < k; j++)
+                        centroids[j] = data.getItemSet(added[j - base.k]);
+                    round.add(new Candidate(data, k, centroids, sample, distances));
+                }
+                run(round, pool);
+                
+                boolean improved = false;
+                for (Candidate candidate : round) {
+                    evaluated.add(candidate);
+                    if (candidate.silhouette > best.silhouette + tolerance)
+                        improved = true;
+                    if (candidate.silhouette > best.silhouette)
+                        best = candidate;
+                }
+                stable = improved ? 0 : stable + 1;
+                base = round.get(round.size() - 1);
+            }
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+        
+        int ks[] = new int[evaluated.size()];
+        double inertia[] = new double[ks.length], silhouette[] = new double[ks.length];
+        int chosen = 0;
+        for (int i = 0; i < ks.length; i++) {
+            Candidate candidate = evaluated.get(i);
+            ks[i] = candidate.k;
+            inertia[i] = candidate.inertia;
+            silhouette[i] = candidate.silhouette;
+            if (candidate == best)
+                chosen = i;
+        }
+        return new ModelSelection(ks, inertia, silhouette, chosen, best.clusterSet);
+    }
+
+    /**
+     * <p>Sceglie fino a {@code count} tuple di {@code data} da aggiungere come 
+     * centroidi a quelli dell'insieme {@code base}, una alla volta, ciascuna con
+     * probabilità proporzionale al quadrato della sua distanza dal centroide 
+     * più vicino tra quelli già presenti o scelti.
+     * @param data tabella modellata.
+     * @param base insieme dei cluster da cui partire, assegnato a {@code data}.
+     * @param count numero di centroidi da aggiungere.
+     * @param rand generatore pseudo-casuale.
+     * @return gli indici di riga delle tuple scelte, meno di {@code count} se 
+     *         tutte le tuple coincidono ormai con un centroide.
+     */
+    private static int[] warmStart(Data data, ClusterSet base, int count, Random rand) {
+        int n = data.getNumberOfExamples();
+        double d2[] = new double[n];
+        for (int i = 0; i < n; i++) {
+            double d = base.distance(data, i);
+            d2[i] = d * d;
+        }
+        int chosen[] = new int[Math.max(0, count)];
+        for (int c = 0; c < chosen.length; c++) {
+            double total = 0.0;
+            for (double weight : d2)
+                total += weight;
+            if (!(total > 0.0))
+                return Arrays.copyOf(chosen, c);
+            double u = rand.nextDouble() * total;
+            int next = n - 1;
+            for (int i = 0; i < n; i++) {
+                u -= d2[i];
+                if (u < 0 && d2[i] > 0) {
+                    next = i;
+                    break;
+                }
+            }
+            while (d2[next] == 0.0)
+                next--;
+            chosen[c] = next;
+            for (int i = 0; i < n; i++) {
+                double d = data.getDistance(i, next);
+                d2[i] = Math.min(d2[i], d * d);
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * <p>Estrae senza ripetizione fino a {@link #sampleSize} indici di riga 
+     * tra i primi {@code n}.
+     * @param n numero di righe della tabella.
+     * @param rand generatore pseudo-casuale.
+     * @return gli indici di riga del campione.
+     */
+    private int[] sample(int n, Random rand) {
+        int indexes[] = new int[n];
+        for (int i = 0; i < n; i++)
+            indexes[i] = i;
+        int size = Math.min(n, sampleSize);
+        for (int i = 0; i < size; i++) {
+            int j = i + rand.nextInt(n - i);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        return Arrays.copyOf(indexes, size);
+    }
+
+    /**
+     * <p>Esegue i candidati {@code round}, in parallelo sul pool {@code pool}
+     * oppure nel thread corrente se {@code pool} è null.
+     * @param round candidati da valutare.
+     * @param pool pool su cui eseguire i candidati, null per l'esecuzione sequenziale.
+     */
+    private static void run(List<Candidate> round, ForkJoinPool pool) {
+        if (pool == null) {
+            for (Candidate candidate : round)
+                candidate.call();
+            return;
+        }
+        try {
+            for (Future<Void> evaluation : pool.invokeAll(round))
+                evaluation.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * <p>Modella un valore di k da valutare: l'esecuzione dell'algoritmo a 
+     * partire dai centroidi iniziali e il calcolo delle metriche.
+     */
+    private static class Candidate implements Callable<Void> {
+        /**Tabella con i dati da modellare, condivisa in sola lettura*/
+        private final Data data;
+        /**Numero di cluster*/
+        private final int k;
+        /**Centroidi iniziali*/
+        private final Tuple[] centroids;
+        /**Indici di riga del campione*/
+        private final int[] sample;
+        /**Distanze tra le tuple del campione*/
+        private final double[][] distances;
+        /**Insieme dei cluster ottenuto*/
+        private ClusterSet clusterSet;
+        /**Somma delle distanze delle tuple dai rispettivi centroidi*/
+        private double inertia;
+        /**Silhouette media del campione*/
+        private double silhouette;
+
+        /**
+         * <p>Crea il candidato con {@code k} cluster.
+         * @param data tabella con i dati da modellare.
+         * @param k numero di cluster.
+         * @param centroids centroidi iniziali.
+         * @param sample indici di riga del campione.
+         * @param distances distanze tra le tuple del campione.
+         */
+        Candidate(Data data, int k, Tuple[] centroids, int[] sample, double[][] distances) {
+            this.data = data;
+            this.k = k;
+            this.centroids = centroids;
+            this.sample = sample;
+            this.distances = distances;
+        }
+
+        /**
+         * <p>Esegue l'algoritmo a partire dai centroidi iniziali e ne calcola 
+         * le metriche.
+         * @return null.
+         */
+        @Override
+        public Void call() {
+            ClusterSet C = new ClusterSet(k);
+            C.initializeCentroids(data, centroids);
+            C.converge(data, null);
+            evaluate(C);
+            return null;
+        }
+
+        /**
+         * <p>Calcola le metriche dell'insieme dei cluster {@code C}, già 
+         * assegnato alla tabella, e lo memorizza come risultato del candidato.
+         * @param C insieme dei cluster da valutare.
+         */
+        void evaluate(ClusterSet C) {
+            clusterSet = C;
+            inertia = C.inertia(data);
+            silhouette = silhouette(C);
+        }
+
+        /**
+         * <p>Stima la silhouette media delle tuple del campione: per ciascuna,
+         * la differenza tra la distanza media dalle tuple del campione degli 
+         * altri cluster (il più vicino) e quella dalle tuple del proprio 
+         * cluster, rapportata alla maggiore delle due; è 0 per le tuple che nel
+         * campione sono le sole del proprio cluster.
+         * @param C insieme dei cluster assegnato alla tabella.
+         * @return la silhouette media, tra -1 e 1.
+         */
+        private double silhouette(ClusterSet C) {
+            int labels[] = new int[sample.length];
+            for (int a = 0; a < sample.length; a++)
+                labels[a] = C.clusterOf(sample[a]);
+            double sums[] = new double[k];
+            int counts[] = new int[k];
+            double total = 0.0;
+            for (int a = 0; a < sample.length; a++) {
+                Arrays.fill(sums, 0.0);
+                Arrays.fill(counts, 0);
+                for (int b = 0; b < sample.length; b++) {
+                    if (b != a) {
+                        sums[labels[b]] += distances[a][b];
+                        counts[labels[b]]++;
+                    }
+                }
+                int own = labels[a];
+                if (counts[own] == 0)
+                    continue;
+                double inside = sums[own] / counts[own];
+                double outside = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < k; c++) {
+                    if (c != own && counts[c] > 0)
+                        outside = Math.min(outside, sums[c] / counts[c]);
+                }
+                if (outside == Double.POSITIVE_INFINITY)
+                    continue;
+                double scale = Math.max(inside, outside);
+                if (scale > 0.0)
+                    total += (outside - inside) / scale;
+            }
+            return total / sample.length;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import java.util.concurrent.Callable;
+
+/**
+ * <p>Modella una delle esecuzioni indipendenti dell'algoritmo k-means avviate
+ * da {@link KMeansMiner#kmeans(Data, int)}, ciascuna con il proprio insieme di
+ * cluster e il proprio seme per la scelta dei centroidi iniziali. La tabella è 
+ * condivisa in sola lettura da tutte le esecuzioni.
+ * <p>Ogni invocazione di {@link #call()} fa avanzare l'esecuzione di un passo:
+ * la prima sceglie i centroidi iniziali, le successive eseguono un'iterazione
+ * (assegnazione e aggiornamento dei centroidi). Le esecuzioni avanzano quindi 
+ * a turni, così che le decisioni prese tra un turno e l'altro, come 
+ * l'abbandono delle esecuzioni in svantaggio, non dipendano dall'ordine in cui
+ * i thread le eseguono.
+ * @author Andrea Mercanti
+ */
+class RestartRun implements Callable<Void> {
+    /**Insieme dei cluster dell'esecuzione*/
+    private ClusterSet C;
+    /**Tabella con i dati da modellare, condivisa in sola lettura*/
+    private Data data;
+    /**Strategia di scelta dei centroidi iniziali*/
+    private SeedingStrategy seeding;
+    /**Seme del generatore pseudo-casuale dell'esecuzione*/
+    private long seed;
+    /**Vero se il passo di assegnazione usa i limiti di Hamerly*/
+    private boolean pruning;
+    /**Numero di iterazioni da cui iniziare a calcolare la distanza complessiva*/
+    private int measureFrom;
+    /**Vero se i centroidi iniziali sono stati scelti*/
+    private boolean started;
+    /**Numero di iterazioni eseguite*/
+    private int iterations;
+    /**Criteri di arresto delle iterazioni*/
+    private ConvergencePolicy policy;
+    /**Motivo per cui l'esecuzione si è fermata (null se è ancora in corso)*/
+    private StopReason stopReason;
+    /**Vero se l'esecuzione è stata abbandonata*/
+    private boolean abandoned;
+    /**Somma delle distanze delle tuple dal centroide del proprio cluster, 
+    dopo l'ultima iterazione (NaN se non calcolata)*/
+    private double inertia = Double.NaN;
+
+    /**
+     * <p>Crea un'esecuzione dell'algoritmo con {@code k} cluster sulla tabella
+     * {@code data}.
+     * @param data tabella con i dati da modellare.
+     * @param k numero di cluster.
+     * @param seeding strategia di scelta dei centroidi iniziali.
+     * @param seed seme del generatore pseudo-casuale.
+     * @param pruning vero per usare i limiti di Hamerly nel passo di assegnazione.
+     * @param measureFrom numero di iterazioni dopo il quale calcolare, a ogni
+     *                    turno, la distanza complessiva.
+     * @param policy criteri di arresto delle iterazioni; il tempo a disposizione
+     *               viene verificato da chi fa avanzare l'esecuzione.
+     */
+    RestartRun(Data data, int k, SeedingStrategy seeding, long seed, boolean pruning, int measureFrom, ConvergencePolicy policy) {
+        this.C = new ClusterSet(k);
+        this.data = data;
+        this.seeding = seeding;
+        this.seed = seed;
+        this.pruning = pruning;
+        this.measureFrom = measureFrom;
+        this.policy = policy;
+    }
+
+    /**
+     * <p>Fa avanzare l'esecuzione di un passo: sceglie i centroidi iniziali se
+     * non sono ancora stati scelti, altrimenti esegue un'iterazione 
+     * dell'algoritmo; al termine dell'iterazione, se l'esecuzione è giunta a 
+     * convergenza o ha superato le prime iterazioni, ne calcola la distanza 
+     * complessiva.
+     * @return null.
+     * @throws Exception se la scelta dei centroidi iniziali fallisce.
+     */
+    @Override
+    public Void call() throws Exception {
+        if (!started) {
+            C.initializeCentroids(data, seeding, seed, null);
+            C.setPruning(pruning);
+            started = true;
+            return null;
+        }
+        iterations++;
+        int moved = C.assign(data, null);
+        double maxShift = C.updateCentroids();
+        stopReason = policy.check(iterations, moved, data.getNumberOfExamples(), maxShift, 0L);
+        if (stopReason != null || iterations >= measureFrom)
+            inertia = C.inertia(data);
+        return null;
+    }
+
+    /**
+     * <p>Restituisce l'insieme dei cluster dell'esecuzione.
+     * @return l'insieme dei cluster.
+     */
+    ClusterSet getClusterSet() {
+        return C;
+    }
+
+    /**
+     * <p>Restituisce il numero di iterazioni eseguite.
+     * @return il numero di iterazioni.
+     */
+    int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * <p>Verifica se l'esecuzione è giunta a convergenza.
+     * @return vero se l'esecuzione ha soddisfatto uno dei criteri di arresto.
+     */
+    boolean isConverged() {
+        return stopReason != null;
+    }
+
+    /**
+     * <p>Restituisce il motivo per cui l'esecuzione si è fermata.
+     * @return il motivo dell'arresto, null se l'esecuzione è ancora in corso.
+     */
+    StopReason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * <p>Ferma l'esecuzione per il motivo {@code reason}, calcolandone la 
+     * distanza complessiva se non è ancora disponibile, così che possa essere
+     * confrontata con le altre.
+     * @param reason motivo dell'arresto.
+     */
+    void stop(StopReason reason) {
+        stopReason = reason;
+        if (inertia != inertia)     //NaN
+            inertia = C.inertia(data);
+    }
+
+    /**
+     * <p>Verifica se l'esecuzione è stata abbandonata.
+     * @return vero se l'esecuzione è stata abbandonata.
+     */
+    boolean isAbandoned() {
+        return abandoned;
+    }
+
+    /**
+     * <p>Abbandona l'esecuzione, che non verrà più fatta avanzare.
+     */
+    void abandon() {
+        abandoned = true;
+    }
+
+    /**
+     * <p>Restituisce la somma delle distanze delle tuple dal centroide del 
+     * proprio cluster dopo l'ultima iterazione.
+     * @return la distanza complessiva, NaN se non ancora calcolata.
+     */
+    double getInertia() {
+        return inertia;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Modella una strategia di scelta delle tuple della tabella da usare come
+ * centroidi iniziali dell'algoritmo k-means.
+ * @author Andrea Mercanti
+ */
+public interface SeedingStrategy {
+    /**
+     * <p>Sceglie {@code k} righe distinte della tabella {@code data} come 
+     * centroidi iniziali. A parità di seme {@code seed} la scelta è sempre la 
+     * stessa, qualunque sia il pool su cui vengono eseguiti i calcoli.
+     * @param data tabella da modellare.
+     * @param k numero di cluster da generare.
+     * @param seed seme del generatore pseudo-casuale.
+     * @param pool pool su cui eseguire i calcoli in parallelo, null per l'esecuzione sequenziale.
+     * @return l'array con gli indici delle k righe scelte come centroidi.
+     * @throws OutOfRangeSampleSize se {@code k} non è compreso tra 1 e il numero
+     *                              di tuple distinte della tabella.
+     */
+    int[] select(Data data, int k, long seed, ForkJoinPool pool) throws OutOfRangeSampleSize;
+}
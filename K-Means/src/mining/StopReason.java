@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mining;
+
+/**
+ * <p>Modella il motivo per cui l'algoritmo k-means ha smesso di iterare, 
+ * secondo i criteri di una {@link ConvergencePolicy}.
+ * @author Andrea Mercanti
+ */
+public enum StopReason {
+    /**L'ultima iterazione non ha spostato alcuna tupla*/
+    CONVERGED,
+    /**L'ultima iterazione ha spostato una frazione di tuple non superiore a quella minima*/
+    MOVED_FRACTION,
+    /**Nessun centroide si è spostato almeno della tolleranza impostata*/
+    CENTROID_SHIFT,
+    /**È stato raggiunto il numero massimo di iterazioni*/
+    MAX_ITERATIONS,
+    /**È stato esaurito il tempo a disposizione*/
+    TIME_BUDGET
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Registra le latenze delle richieste servite in un istogramma a intervalli
+ * di ampiezza crescente: i valori fino a 15 ns hanno un intervallo ciascuno, 
+ * mentre ogni potenza di due successiva è suddivisa in 8 intervalli, così che
+ * i percentili siano stimati con un errore relativo al più del 12.5% usando 
+ * una quantità di memoria fissa. La registrazione non richiede 
+ * sincronizzazione e può avvenire da più thread contemporaneamente.
+ * @author Andrea Mercanti
+ */
+class LatencyRecorder {
+    /**Numero di intervalli in cui è suddivisa ogni potenza di due*/
+    private static final int SUB_BUCKETS = 8;
+    /**Numero di valori piccoli registrati con un intervallo ciascuno*/
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+
+    /**Numero di latenze registrate in ciascun intervallo*/
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + (63 - 4) * SUB_BUCKETS + SUB_BUCKETS);
+
+    /**
+     * <p>Registra una latenza.
+     * @param nanos latenza in nanosecondi.
+     */
+    void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+
+    /**
+     * <p>Restituisce il numero di latenze registrate.
+     * @return il numero di latenze registrate.
+     */
+    long getCount() {
+        long total = 0;
+        for (int b = 0; b < counts.length(); b++)
+            total += counts.get(b);
+        return total;
+    }
+
+    /**
+     * <p>Stima il percentile {@code q} delle latenze registrate come estremo 
+     * superiore dell'intervallo in cui esso cade.
+     * @param q percentile da stimare, tra 0 e 1 (per esempio 0.99).
+     * @return la stima del percentile in nanosecondi, 0 se non è stata 
+     *         registrata alcuna latenza.
+     */
+    long percentile(double q) {
+        long snapshot[] = new long[counts.length()];
+        long total = 0;
+        for (int b = 0; b < snapshot.length; b++) {
+            snapshot[b] = counts.get(b);
+            total += snapshot[b];
+        }
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < snapshot.length; b++) {
+            seen += snapshot[b];
+            if (seen >= rank)
+                return upperBound(b);
+        }
+        return upperBound(snapshot.length - 1);
+    }
+
+    /**
+     * <p>Restituisce l'intervallo in cui cade la latenza {@code nanos}.
+     * @param nanos latenza non negativa in nanosecondi.
+     * @return l'indice dell'intervallo.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < LINEAR)
+            return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * <p>Restituisce il massimo valore che cade nell'intervallo {@code bucket}.
+     * @param bucket indice dell'intervallo.
+     * @return l'estremo superiore dell'intervallo in nanosecondi.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR)
+            return bucket;
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        if (exponent == 62 && sub == SUB_BUCKETS - 1)
+            return Long.MAX_VALUE;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+}
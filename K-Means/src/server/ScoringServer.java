@@ -0,0 +1,417 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import data.CentroidSnapshot;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import mining.KMeansMiner;
+
+/**
+ * <p>Servizio HTTP locale che assegna ai cluster di un modello salvato le righe 
+ * ricevute da altri processi, senza avviare una JVM per ogni richiesta. Il 
+ * modello viene caricato una sola volta e tenuto come {@link CentroidSnapshot}
+ * immutabile, così che le richieste siano servite contemporaneamente senza 
+ * sincronizzazione; il servizio accetta connessioni soltanto dall'interfaccia
+ * di loopback.
+ * <p>Il servizio risponde alle seguenti richieste:
+ * <ul>
+ * <li>{@code POST /score}: il corpo contiene una riga per tupla, con i valori 
+ * separati da virgola nell'ordine dello schema; la risposta contiene, per 
+ * ciascuna tupla, l'indice del cluster e la distanza dal centroide separati 
+ * da un carattere di tabulazione. Una singola tupla è un lotto di una riga.</li>
+ * <li>{@code POST /reload}: carica il modello dal file indicato nel corpo (o, 
+ * se il corpo è vuoto, dal file di avvio) e lo sostituisce atomicamente a 
+ * quello corrente; le richieste in corso terminano con il modello precedente.
+ * Se il caricamento fallisce resta in uso il modello precedente. Il file deve
+ * trovarsi nella cartella dei modelli del servizio (un percorso relativo è 
+ * risolto rispetto ad essa), altrimenti la richiesta è rifiutata con il 
+ * codice 403.</li>
+ * <li>{@code GET /schema}: restituisce nome e tipo degli attributi attesi.</li>
+ * <li>{@code GET /stats}: restituisce il numero di richieste servite e di 
+ * tuple assegnate, la mediana e il 99° percentile della latenza delle richieste
+ * servite, in microsecondi, e il numero di richieste rifiutate (metodo errato
+ * o tuple non valide), che non concorrono alla latenza.</li>
+ * </ul>
+ * <p>Ogni richiesta è servita da un thread virtuale quando la JVM li supporta 
+ * (Java 21 o successiva), altrimenti da un thread di un pool che cresce 
+ * secondo necessità.
+ * @author Andrea Mercanti
+ */
+public class ScoringServer {
+    /**Porta predefinita del servizio*/
+    private static final int DEFAULT_PORT = 8090;
+
+    /**Server HTTP*/
+    private HttpServer server;
+    /**Esecutore su cui sono servite le richieste*/
+    private ExecutorService executor;
+    /**File del modello caricato all'avvio*/
+    private String modelFile;
+    /**Cartella, in forma canonica, da cui possono essere ricaricati i modelli*/
+    private File modelDirectory;
+    /**Istantanea dei centroidi del modello corrente*/
+    private final AtomicReference<CentroidSnapshot> model = new AtomicReference<>();
+    /**Latenze delle richieste di assegnazione servite*/
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    /**Numero di richieste di assegnazione rifiutate*/
+    private final AtomicLong rejected = new AtomicLong();
+    /**Numero di tuple assegnate*/
+    private final AtomicLong rows = new AtomicLong();
+
+    /**
+     * <p>Crea il servizio per il modello salvato nel file {@code modelFile}, 
+     * caricandolo, in ascolto sulla porta {@code port} dell'interfaccia di 
+     * loopback.
+     * @param modelFile percorso + nome del file del modello.
+     * @param port porta su cui accettare le connessioni (0 per una porta libera).
+     * @throws IOException se il modello non può essere caricato o la porta non
+     *                     può essere aperta.
+     */
+    public ScoringServer(String modelFile, int port) throws IOException {
+        this(modelFile, new File(modelFile).getAbsoluteFile().getParentFile(), port);
+    }
+
+    /**
+     * <p>Crea il servizio per il modello salvato nel file {@code modelFile}, 
+     * caricandolo, in ascolto sulla porta {@code port} dell'interfaccia di 
+     * loopback; la richiesta {@code /reload} accetta soltanto i modelli 
+     * contenuti nella cartella {@code modelDirectory} o nelle sue sottocartelle.
+     * @param modelFile percorso + nome del file del modello.
+     * @param modelDirectory cartella dei modelli ricaricabili.
+     * @param port porta su cui accettare le connessioni (0 per una porta libera).
+     * @throws IOException se il modello non può essere caricato o la porta non
+     *                     può essere aperta.
+     */
+    public ScoringServer(String modelFile, File modelDirectory, int port) throws IOException {
+        this.modelFile = modelFile;
+        this.modelDirectory = modelDirectory.getCanonicalFile();
+        model.set(load(modelFile));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/score", new ScoreHandler());
+        server.createContext("/reload", new ReloadHandler());
+        server.createContext("/schema", new SchemaHandler());
+        server.createContext("/stats", new StatsHandler());
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * <p>Avvia il servizio.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * <p>Arresta il servizio, attendendo al più un secondo il completamento 
+     * delle richieste in corso.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * <p>Restituisce la porta su cui il servizio accetta le connessioni.
+     * @return la porta del servizio.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * <p>Carica il modello dal file {@code fileName} e lo sostituisce 
+     * atomicamente a quello corrente.
+     * @param fileName percorso + nome del file del modello.
+     * @throws IOException se il modello non può essere caricato; in tal caso
+     *                     resta in uso il modello corrente.
+     */
+    public void reload(String fileName) throws IOException {
+        model.set(load(fileName));
+    }
+
+    /**
+     * <p>Risolve il nome di file {@code fileName}, ricevuto da una richiesta, 
+     * rispetto alla cartella dei modelli. Il percorso è ridotto alla forma 
+     * canonica, così che né i componenti {@code ..} né i collegamenti 
+     * simbolici permettano di uscire dalla cartella.
+     * @param fileName nome del file, relativo alla cartella dei modelli o assoluto.
+     * @return il file canonico del modello, null se non è contenuto nella 
+     *         cartella dei modelli.
+     * @throws IOException se il percorso non può essere risolto.
+     */
+    File resolveModel(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.isAbsolute())
+            file = new File(modelDirectory, fileName);
+        file = file.getCanonicalFile();
+        return file.toPath().startsWith(modelDirectory.toPath()) && !file.equals(modelDirectory) ? file : null;
+    }
+
+    /**
+     * <p>Carica il modello salvato nel file {@code fileName} e ne crea 
+     * l'istantanea dei centroidi.
+     * @param fileName percorso + nome del file del modello.
+     * @return l'istantanea dei centroidi del modello.
+     * @throws IOException se il modello non può essere caricato.
+     */
+    private static CentroidSnapshot load(String fileName) throws IOException {
+        try {
+            return new KMeansMiner(fileName).getCentroidSnapshot();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("Modello non leggibile: " + fileName, ex);
+        }
+    }
+
+    /**
+     * <p>Crea l'esecutore delle richieste: un thread virtuale per richiesta se 
+     * la JVM li supporta, altrimenti un pool di thread demoni che cresce 
+     * secondo necessità. I thread virtuali sono ottenuti per riflessione, così
+     * che il servizio possa essere compilato anche per versioni di Java che 
+     * non li prevedono.
+     * @return l'esecutore delle richieste.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "scoring");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * <p>Legge l'intero corpo della richiesta {@code exchange}.
+     * @param exchange richiesta da leggere.
+     * @return il corpo della richiesta come testo UTF-8.
+     * @throws IOException in caso di errori di lettura.
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte buffer[] = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0)
+                body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <p>Invia la risposta {@code text} con il codice di stato {@code status}.
+     * @param exchange richiesta a cui rispondere.
+     * @param status codice di stato HTTP.
+     * @param text corpo della risposta.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    private static void send(HttpExchange exchange, int status, CharSequence text) throws IOException {
+        byte bytes[] = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * <p>Verifica che la richiesta usi il metodo {@code method}, rispondendo 
+     * con il codice 405 in caso contrario.
+     * @param exchange richiesta da verificare.
+     * @param method metodo HTTP atteso.
+     * @return vero se il metodo è quello atteso.
+     * @throws IOException in caso di errori di scrittura.
+     */
+    private static boolean expect(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod()))
+            return true;
+        send(exchange, 405, "Metodo non consentito, usare " + method + "\n");
+        return false;
+    }
+
+    /**
+     * <p>Assegna ai cluster le tuple contenute nel corpo della richiesta.
+     */
+    private class ScoreHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            boolean served = false;
+            try {
+                if (!expect(exchange, "POST"))
+                    return;
+                CentroidSnapshot snapshot = model.get();
+                String lines[] = readBody(exchange).split("\\r?\\n");
+                int count = 0;
+                Object batch[][] = new Object[lines.length][];
+                for (String line : lines) {
+                    if (line.trim().isEmpty())
+                        continue;
+                    String values[] = line.split(",", -1);
+                    if (values.length != snapshot.getNumberOfAttributes()) {
+                        send(exchange, 400, "Riga " + (count + 1) + ": attesi " + snapshot.getNumberOfAttributes() + " valori\n");
+                        return;
+                    }
+                    Object row[] = new Object[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        String value = values[j].trim();
+                        try {
+                            row[j] = snapshot.isDiscrete(j) ? value : (Object) Double.parseDouble(value);
+                        } catch (NumberFormatException ex) {
+                            send(exchange, 400, "Riga " + (count + 1) + ": valore non numerico per " + snapshot.getAttributeName(j) + "\n");
+                            return;
+                        }
+                    }
+                    batch[count++] = row;
+                }
+                if (count < batch.length) {
+                    Object trimmed[][] = new Object[count][];
+                    System.arraycopy(batch, 0, trimmed, 0, count);
+                    batch = trimmed;
+                }
+                int clusters[] = new int[count];
+                double distances[] = new double[count];
+                snapshot.score(batch, clusters, distances);
+                StringBuilder response = new StringBuilder(count * 24);
+                for (int r = 0; r < count; r++)
+                    response.append(clusters[r]).append('\t').append(distances[r]).append('\n');
+                send(exchange, 200, response);
+                served = true;
+                rows.addAndGet(count);
+            } finally {
+                if (served)
+                    latencies.record(System.nanoTime() - start);
+                else
+                    rejected.incrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * <p>Sostituisce il modello corrente con quello salvato nel file indicato
+     * nel corpo della richiesta, o con il file di avvio.
+     */
+    private class ReloadHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!expect(exchange, "POST"))
+                    return;
+                String fileName = readBody(exchange).trim();
+                if (fileName.isEmpty())
+                    fileName = modelFile;
+                else {
+                    File file = resolveModel(fileName);
+                    if (file == null) {
+                        send(exchange, 403, "Il file " + fileName + " non è nella cartella dei modelli\n");
+                        return;
+                    }
+                    fileName = file.getPath();
+                }
+                try {
+                    reload(fileName);
+                } catch (IOException ex) {
+                    send(exchange, 500, "Caricamento di " + fileName + " fallito: " + ex.getMessage() + "\n");
+                    return;
+                }
+                send(exchange, 200, "Caricato " + fileName + " (" + model.get().getNumberOfClusters() + " cluster)\n");
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * <p>Descrive lo schema delle tuple attese dal modello corrente.
+     */
+    private class SchemaHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                CentroidSnapshot snapshot = model.get();
+                StringBuilder response = new StringBuilder();
+                for (int j = 0; j < snapshot.getNumberOfAttributes(); j++)
+                    response.append(snapshot.getAttributeName(j)).append('\t')
+                            .append(snapshot.isDiscrete(j) ? "string" : "number").append('\n');
+                send(exchange, 200, response);
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * <p>Riporta i contatori delle richieste di assegnazione.
+     */
+    private class StatsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                send(exchange, 200, "requests=" + latencies.getCount() + "\n"
+                                    + "rows=" + rows.get() + "\n"
+                                    + "p50_us=" + latencies.percentile(0.50) / 1000.0 + "\n"
+                                    + "p99_us=" + latencies.percentile(0.99) / 1000.0 + "\n"
+                                    + "rejected=" + rejected.get() + "\n");
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * <p>Avvia il servizio per il modello indicato come primo argomento, sulla
+     * porta indicata come secondo argomento (8090 se non specificata).
+     * @param args percorso del file del modello ed eventualmente la porta.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Uso: ScoringServer <modello> [porta]");
+            return;
+        }
+        try {
+            ScoringServer scoring = new ScoringServer(args[0], args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+            scoring.start();
+            System.out.println("Servizio in ascolto su http://localhost:" + scoring.getPort() + "/score");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che il nucleo dei centroidi calcoli le stesse distanze di 
+ * {@link Tuple#getDistance(Data, int)}.
+ * @author Andrea Mercanti
+ */
+public class CentroidKernelTest {
+    
+    /*centroide calcolato come prototipo delle righe from, from + step, ...*/
+    private static Tuple prototype(Data data, int from, int step) {
+        Set<Integer> members = new HashSet<>();
+        for (int i = from; i < data.getNumberOfExamples(); i += step)
+            members.add(i);
+        Tuple centroid = data.getItemSet(from).copy();
+        for (int j = 0; j < centroid.getLength(); j++)
+            centroid.get(j).update(data, members);
+        return centroid;
+    }
+    
+    private static void assertSameDistances(Data data, Tuple[] centroids) {
+        CentroidKernel kernel = new CentroidKernel(centroids, data);
+        DistanceKernel created = CentroidKernel.create(centroids, data);
+        assertEquals(centroids.length, kernel.getNumberOfClusters());
+        assertEquals(centroids.length, created.getNumberOfClusters());
+        double[] distances = new double[centroids.length];
+        double[] createdDistances = new double[centroids.length];
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            kernel.distances(i, distances);
+            created.distances(i, createdDistances);
+            for (int c = 0; c < centroids.length; c++) {
+                double expected = centroids[c].getDistance(data, i);
+                assertEquals(expected, distances[c], 1e-12);
+                assertEquals(expected, kernel.distance(i, c), 1e-12);
+                //il nucleo vettoriale somma nello stesso ordine di quello scalare
+                assertEquals(distances[c], createdDistances[c], 0.0);
+                assertEquals(distances[c], created.distance(i, c), 0.0);
+            }
+        }
+    }
+    
+    @Test
+    public void rowCentroidsGiveTupleDistances() {
+        Data data = SampleData.playTennis();
+        assertSameDistances(data, new Tuple[]{data.getItemSet(0), data.getItemSet(6), data.getItemSet(13)});
+    }
+    
+    @Test
+    public void prototypeCentroidsGiveTupleDistances() {
+        Data data = SampleData.random(2000, 7, 4, 157L);
+        Tuple[] centroids = new Tuple[5];
+        for (int c = 0; c < centroids.length; c++)
+            centroids[c] = prototype(data, c, centroids.length);
+        assertSameDistances(data, centroids);
+    }
+    
+    @Test
+    public void mixedCentroidsIncludeTheirOwnRowAtDistanceZero() {
+        Data data = SampleData.random(500, 5, 3, 163L);
+        Tuple[] centroids = {prototype(data, 0, 2), prototype(data, 1, 2), data.getItemSet(7)};
+        assertSameDistances(data, centroids);
+        assertEquals(0.0, new CentroidKernel(centroids, data).distance(7, 2), 0.0);
+    }
+    
+    @Test
+    public void createdKernelMatchesTheScalarOneForEveryNumberOfClusters() {
+        Data data = SampleData.random(300, 6, 5, 173L);
+        for (int k = 1; k <= 19; k++) {
+            Tuple[] centroids = new Tuple[k];
+            for (int c = 0; c < k; c++)
+                centroids[c] = c % 2 == 0 ? prototype(data, c, k) : data.getItemSet(c * 11);
+            assertSameDistances(data, centroids);
+        }
+    }
+    
+    @Test
+    public void vectorKernelIsUsedWhenAvailable() {
+        Data data = SampleData.playTennis();
+        DistanceKernel kernel = CentroidKernel.create(new Tuple[]{data.getItemSet(0)}, data);
+        assertEquals(!CentroidKernel.isVectorAvailable(), kernel instanceof CentroidKernel);
+    }
+}
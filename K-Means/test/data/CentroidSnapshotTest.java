@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che l'istantanea dei centroidi assegni le tuple come il calcolo
+ * delle distanze sulle tuple, anche per tabelle caricate separatamente.
+ * @author Andrea Mercanti
+ */
+public class CentroidSnapshotTest {
+    
+    private static Tuple[] centroids(Data data, int... rows) {
+        Tuple[] centroids = new Tuple[rows.length];
+        for (int c = 0; c < rows.length; c++)
+            centroids[c] = data.getItemSet(rows[c]);
+        return centroids;
+    }
+    
+    private static Object[][] rows(Data data) {
+        Object[][] rows = new Object[data.getNumberOfExamples()][data.getNumberOfExplanatoryAttributes()];
+        for (int i = 0; i < rows.length; i++)
+            for (int j = 0; j < rows[i].length; j++)
+                rows[i][j] = data.getAttributeValue(i, j);
+        return rows;
+    }
+    
+    @Test
+    public void scoringMatchesTupleDistances() {
+        Data data = SampleData.random(2000, 5, 3, 71L);
+        Tuple[] centroids = centroids(data, 5, 500, 1000, 1500);
+        CentroidSnapshot snapshot = new CentroidSnapshot(centroids);
+        int n = data.getNumberOfExamples();
+        int[] clusters = new int[n];
+        double[] distances = new double[n];
+        snapshot.score(data, 0, n, clusters, distances);
+        for (int i = 0; i < n; i++) {
+            int nearest = 0;
+            double min = centroids[0].getDistance(data, i);
+            for (int c = 1; c < centroids.length; c++) {
+                double distance = centroids[c].getDistance(data, i);
+                if (distance < min) {
+                    min = distance;
+                    nearest = c;
+                }
+            }
+            assertEquals(nearest, clusters[i]);
+            assertEquals(min, distances[i], 1e-12);
+        }
+        
+        int[] byRows = new int[n];
+        snapshot.score(rows(data), byRows, null);
+        assertArrayEquals(clusters, byRows);
+    }
+    
+    @Test
+    public void separatelyLoadedTablesAreTranslated() {
+        Data training = SampleData.random(500, 5, 4, 73L);
+        Data other = SampleData.random(300, 5, 6, 79L);
+        CentroidSnapshot snapshot = new CentroidSnapshot(centroids(training, 1, 2, 3));
+        int[] byTable = new int[other.getNumberOfExamples()], byRows = new int[other.getNumberOfExamples()];
+        double[] tableDistances = new double[byTable.length], rowDistances = new double[byRows.length];
+        snapshot.score(other, 0, byTable.length, byTable, tableDistances);
+        snapshot.score(rows(other), byRows, rowDistances);
+        assertArrayEquals(byRows, byTable);
+        assertArrayEquals(rowDistances, tableDistances, 0.0);
+    }
+    
+    @Test
+    public void unknownValuesMatchNoCentroid() {
+        Data data = SampleData.playTennis();
+        CentroidSnapshot snapshot = new CentroidSnapshot(centroids(data, 0));
+        int[] clusters = new int[2];
+        double[] distances = new double[2];
+        snapshot.score(new Object[][]{{"Sunny", 30.3, "High", "Weak", "No"}, {"Snow", 30.3, "High", "Weak", "Maybe"}}, clusters, distances);
+        assertEquals(0.0, distances[0], 0.0);
+        assertEquals(2.0, distances[1], 0.0);
+    }
+    
+    @Test
+    public void concurrentScoringGivesTheSameResult() throws InterruptedException {
+        final Data data = SampleData.random(8000, 5, 3, 83L);
+        final CentroidSnapshot snapshot = new CentroidSnapshot(centroids(data, 0, 10, 20, 30, 40));
+        final int n = data.getNumberOfExamples();
+        int[] expected = new int[n];
+        snapshot.score(data, 0, n, expected, null);
+        final int[] clusters = new int[n];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int from = t * n / 4, to = (t + 1) * n / 4;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    snapshot.score(data, from, to, clusters, null);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertArrayEquals(expected, clusters);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rowsWithTheWrongLengthAreRejected() {
+        new CentroidSnapshot(centroids(SampleData.playTennis(), 0)).score(new Object[][]{{"Sunny", 30.3}}, new int[1], null);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void incompatibleSchemaIsRejected() {
+        CentroidSnapshot snapshot = new CentroidSnapshot(centroids(SampleData.playTennis(), 0));
+        snapshot.score(SampleData.random(10, 5, 3, 1L), 0, 10, new int[10], null);
+    }
+}
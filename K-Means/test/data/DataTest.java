@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import database.ConnectionPool;
+import database.DatabaseConnectionException;
+import database.DbAccess;
+import database.EmbeddedDatabase;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica la memorizzazione a colonne di {@link Data} e la compatibilità 
+ * della forma serializzata delle classi del package.
+ * @author Andrea Mercanti
+ */
+public class DataTest {
+    
+    @Test
+    public void columnsKeepTheLoadedValues() {
+        Data data = SampleData.playTennis();
+        assertEquals(14, data.getNumberOfExamples());
+        assertEquals(5, data.getNumberOfExplanatoryAttributes());
+        assertEquals("Overcast", data.getAttributeValue(2, 0));
+        assertEquals(29.21, (Double) data.getAttributeValue(12, 1), 0.0);
+        assertEquals("No", data.getAttributeValue(13, 4));
+        Tuple tuple = data.getItemSet(4);
+        assertEquals("Rain", tuple.get(0).getValue());
+        assertEquals(0.0, (Double) tuple.get(1).getValue(), 0.0);
+    }
+    
+    @Test
+    public void rowDistanceMatchesTupleDistance() {
+        Data data = SampleData.random(60, 5, 3, 7L);
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            Tuple row = data.getItemSet(i);
+            for (int j = 0; j < data.getNumberOfExamples(); j++)
+                assertEquals(row.getDistance(data.getItemSet(j)), data.getDistance(i, j), 1e-12);
+        }
+    }
+    
+    @Test
+    public void discardedOriginalValuesAreRecoveredFromScaledColumns() {
+        Data data = SampleData.random(3000, 5, 3, 173L);
+        Data scaledOnly = SampleData.random(3000, 5, 3, 173L);
+        scaledOnly.discardOriginalValues();
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            for (int j = 0; j < data.getNumberOfExplanatoryAttributes(); j++) {
+                if (data.getAttribute(j) instanceof ContinuousAttribute)
+                    assertEquals((Double) data.getAttributeValue(i, j), (Double) scaledOnly.getAttributeValue(i, j), 1e-9);
+                else
+                    assertEquals(data.getAttributeValue(i, j), scaledOnly.getAttributeValue(i, j));
+            }
+            assertEquals(0.0, scaledOnly.getItemSet(i).getDistance(scaledOnly, i), 0.0);
+            assertEquals(data.getDistance(i, 0), scaledOnly.getDistance(i, 0), 0.0);
+            assertEquals(data.getItemSet(i).getDistance(data, 7), scaledOnly.getItemSet(i).getDistance(scaledOnly, 7), 0.0);
+        }
+    }
+    
+    @Test
+    public void constantColumnsRecoverTheirValue() {
+        ContinuousAttribute constant = new ContinuousAttribute("c", 0, 4.2, 4.2);
+        assertEquals(4.2, constant.getOriginalValue(constant.getScaledValue(4.2)), 0.0);
+    }
+    
+    @Test
+    public void samplingIsDeterministicAndPicksDistinctRows() throws OutOfRangeSampleSize {
+        Data data = SampleData.playTennis();
+        int[] first = data.sampling(5, 42L);
+        assertArrayEquals(first, data.sampling(5, 42L));
+        for (int a = 0; a < first.length; a++)
+            for (int b = a + 1; b < first.length; b++)
+                assertFalse(data.getItemSet(first[a]).getDistance(data.getItemSet(first[b])) == 0.0);
+    }
+    
+    @Test(expected = OutOfRangeSampleSize.class)
+    public void samplingRejectsTooManyClusters() throws OutOfRangeSampleSize {
+        SampleData.playTennis().sampling(15, 1L);
+    }
+    
+    @Test
+    public void serialVersionsMatchTheOriginalClasses() {
+        assertEquals(-7846684369220748843L, uid(Item.class));
+        assertEquals(7956306878486820732L, uid(ContinuousItem.class));
+        assertEquals(-1546258941180953221L, uid(DiscreteItem.class));
+        assertEquals(8808401679732229021L, uid(Attribute.class));
+        assertEquals(-9219051323030754116L, uid(ContinuousAttribute.class));
+        assertEquals(-3966790741000172968L, uid(DiscreteAttribute.class));
+        assertEquals(-7270923201009328199L, uid(Tuple.class));
+    }
+    
+    @Test
+    public void deserializedTupleRebuildsDerivedFields() throws IOException, ClassNotFoundException {
+        Data data = SampleData.playTennis();
+        Tuple tuple = data.getItemSet(12);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(tuple);
+        }
+        Tuple copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Tuple) in.readObject();
+        }
+        assertEquals(0.0, copy.getDistance(tuple), 0.0);
+        for (int j = 0; j < data.getNumberOfExamples(); j++)
+            assertEquals(tuple.getDistance(data.getItemSet(j)), copy.getDistance(data.getItemSet(j)), 0.0);
+    }
+    
+    private static long uid(Class<?> type) {
+        return ObjectStreamClass.lookup(type).getSerialVersionUID();
+    }
+    
+    @Test
+    public void loadsDistinctRowsFromTheDatabase() throws SQLException, DatabaseConnectionException, IOException {
+        ConnectionPool pool = EmbeddedDatabase.pool("load");
+        try {
+            EmbeddedDatabase.playTennis(pool);
+            Data loaded = new Data("playtennis", new DbAccess(pool));
+            assertEquals(14, loaded.getNumberOfExamples());
+            assertEquals(rows(SampleData.playTennis()), rows(loaded));
+        } finally {
+            pool.close();
+        }
+    }
+    
+    @Test
+    public void streamingLoadComputesRangesAndDictionaries() throws SQLException, DatabaseConnectionException {
+        ConnectionPool pool = EmbeddedDatabase.pool("statistics");
+        try {
+            EmbeddedDatabase.playTennis(pool);
+            Data loaded = new Data("playtennis", new DbAccess(pool));
+            ContinuousAttribute temperature = (ContinuousAttribute) loaded.getAttribute(1);
+            assertEquals(0.0, temperature.getMin(), 0.0);
+            assertEquals(30.3, temperature.getMax(), 0.0);
+            DiscreteAttribute outlook = (DiscreteAttribute) loaded.getAttribute(0);
+            assertEquals(3, outlook.getNumberOfDistinctValues());
+            assertEquals("Overcast", outlook.getValue(0));
+            assertEquals("Rain", outlook.getValue(1));
+            assertEquals("Sunny", outlook.getValue(2));
+            for (int i = 0; i < loaded.getNumberOfExamples(); i++)
+                assertEquals(loaded.getAttributeValue(i, 0), outlook.getValue(loaded.getDiscreteCode(i, 0)));
+        } finally {
+            pool.close();
+        }
+    }
+    
+    @Test
+    public void loadedTablesKeepOriginalValuesOnlyOnRequest() throws SQLException, DatabaseConnectionException {
+        ConnectionPool pool = EmbeddedDatabase.pool("original");
+        try {
+            Random rand = new Random(179L);
+            StringBuilder insert = new StringBuilder("INSERT INTO readings VALUES ");
+            for (int i = 0; i < 200; i++)
+                insert.append(i > 0 ? ", (" : "(").append(i).append(", ").append(rand.nextDouble() * 1000).append(')');
+            EmbeddedDatabase.execute(pool, "CREATE TABLE readings (id INTEGER, reading DOUBLE)", insert.toString());
+            Data scaled = new Data("readings", new DbAccess(pool));
+            Data exact = new Data("readings", new DbAccess(pool), null, true);
+            rand = new Random(179L);
+            int inexact = 0;
+            for (int i = 0; i < 200; i++) {
+                double reading = rand.nextDouble() * 1000;
+                assertEquals(reading, (Double) exact.getAttributeValue(i, 1), 0.0);
+                double recovered = (Double) scaled.getAttributeValue(i, 1);
+                assertEquals(reading, recovered, 4 * Math.ulp(1000.0));
+                if (recovered != reading)
+                    inexact++;
+                assertEquals(exact.getScaledValue(i, 1), scaled.getScaledValue(i, 1), 0.0);
+            }
+            assertTrue(inexact > 0);
+        } finally {
+            pool.close();
+        }
+    }
+    
+    private static List<String> rows(Data data) throws IOException {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            StringWriter row = new StringWriter();
+            data.writeExample(row, i, ",");
+            rows.add(row.toString());
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
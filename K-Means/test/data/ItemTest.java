@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che le distanze calcolate sulle colonne della tabella, misurate
+ * dai micro-benchmark, coincidano con quelle calcolate confrontando gli item.
+ * @author Andrea Mercanti
+ */
+public class ItemTest {
+    
+    @Test
+    public void continuousDistanceIsTheScaledDifference() {
+        Data data = SampleData.playTennis();
+        ContinuousAttribute temperature = (ContinuousAttribute) data.getAttribute(1);
+        ContinuousItem item = (ContinuousItem) data.getItemSet(3).get(1);
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            double value = (Double) data.getAttributeValue(i, 1);
+            double expected = Math.abs(temperature.getScaledValue(13.0) - temperature.getScaledValue(value));
+            assertEquals(expected, item.distance(data, i), 1e-12);
+            assertEquals(item.distance(data.getItemSet(i).get(1)), item.distance(data, i), 0.0);
+            assertTrue(item.distance(data, i) <= 1.0);
+        }
+    }
+    
+    @Test
+    public void discreteDistanceComparesValues() {
+        Data data = SampleData.playTennis();
+        DiscreteItem item = (DiscreteItem) data.getItemSet(0).get(0);
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            double expected = "Sunny".equals(data.getAttributeValue(i, 0)) ? 0.0 : 1.0;
+            assertEquals(expected, item.distance(data, i), 0.0);
+            assertEquals(expected, item.distance(data.getItemSet(i).get(0)), 0.0);
+        }
+    }
+    
+    @Test
+    public void rowDistanceMatchesItemDistances() {
+        Data data = SampleData.random(500, 7, 5, 127L);
+        Tuple centroid = data.getItemSet(17);
+        for (int i = 0; i < data.getNumberOfExamples(); i++) {
+            Tuple row = data.getItemSet(i);
+            double sum = 0.0;
+            for (int j = 0; j < row.getLength(); j++)
+                sum += centroid.get(j).distance(row.get(j));
+            assertEquals(sum, centroid.getDistance(row), 1e-12);
+            assertEquals(sum, centroid.getDistance(data, i), 1e-12);
+        }
+    }
+}
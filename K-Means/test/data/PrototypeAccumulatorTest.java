@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che le statistiche sufficienti aggiornate per differenze diano 
+ * gli stessi prototipi calcolati dall'insieme delle righe.
+ * @author Andrea Mercanti
+ */
+public class PrototypeAccumulatorTest {
+    
+    @Test
+    public void incrementalStatisticsMatchRecomputation() {
+        Data data = SampleData.random(300, 5, 4, 3L);
+        PrototypeAccumulator statistics = new PrototypeAccumulator(data);
+        Set<Integer> members = new HashSet<>();
+        for (int id = 0; id < 200; id++) {
+            statistics.add(id);
+            members.add(id);
+        }
+        PrototypeAccumulator delta = new PrototypeAccumulator(data);
+        for (int id = 50; id < 120; id++) {
+            delta.remove(id);
+            members.remove(id);
+        }
+        for (int id = 200; id < 260; id++) {
+            delta.add(id);
+            members.add(id);
+        }
+        statistics.merge(delta);
+        assertEquals(members.size(), statistics.getSize());
+        
+        Tuple incremental = data.getItemSet(0), recomputed = data.getItemSet(0);
+        statistics.updatePrototype(incremental);
+        for (int j = 0; j < recomputed.getLength(); j++)
+            recomputed.get(j).update(data, members);
+        for (int j = 0; j < recomputed.getLength(); j++) {
+            if (recomputed.get(j) instanceof ContinuousItem)
+                assertEquals((Double) recomputed.get(j).getValue(), (Double) incremental.get(j).getValue(), 1e-9);
+            else
+                assertEquals(recomputed.get(j).getValue(), incremental.get(j).getValue());
+        }
+    }
+    
+    @Test
+    public void updatePrototypeReturnsTheShift() {
+        Data data = SampleData.playTennis();
+        PrototypeAccumulator statistics = new PrototypeAccumulator(data);
+        statistics.add(4);
+        Tuple centroid = data.getItemSet(4);
+        assertEquals(0.0, statistics.updatePrototype(centroid), 0.0);
+        centroid = data.getItemSet(0);
+        assertEquals(centroid.getDistance(data.getItemSet(4)), statistics.updatePrototype(centroid), 1e-12);
+        assertEquals(0.0, centroid.getDistance(data.getItemSet(4)), 1e-12);
+    }
+    
+    @Test
+    public void emptyStatisticsLeaveTheCentroidUnchanged() {
+        Data data = SampleData.playTennis();
+        PrototypeAccumulator statistics = new PrototypeAccumulator(data);
+        statistics.add(3);
+        statistics.remove(3);
+        assertTrue(statistics.isUpdated());
+        Tuple centroid = data.getItemSet(7);
+        assertEquals(0.0, statistics.updatePrototype(centroid), 0.0);
+        assertEquals(0.0, centroid.getDistance(data.getItemSet(7)), 0.0);
+        statistics.clear();
+        assertFalse(statistics.isUpdated());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * <p>Costruisce in memoria le tabelle usate dai test, senza passare per la 
+ * base di dati: la tabella <i>playtennis</i> degli esempi e tabelle casuali 
+ * con attributi continui e discreti generate da un seme.
+ * @author Andrea Mercanti
+ */
+public class SampleData {
+    
+    private static final String[] OUTLOOK = {"Sunny", "Sunny", "Overcast", "Rain", "Rain", "Rain", "Overcast", "Sunny", "Sunny", "Rain", "Sunny", "Overcast", "Overcast", "Rain"};
+    private static final double[] TEMPERATURE = {30.3, 30.3, 30.0, 13.0, 0.0, 0.0, 0.1, 13.0, 0.1, 12.0, 12.5, 12.5, 29.21, 12.5};
+    private static final String[] HUMIDITY = {"High", "High", "High", "High", "Normal", "Normal", "Normal", "High", "Normal", "Normal", "Normal", "High", "Normal", "High"};
+    private static final String[] WIND = {"Weak", "Strong", "Weak", "Weak", "Weak", "Strong", "Strong", "Weak", "Weak", "Weak", "Strong", "Strong", "Weak", "Strong"};
+    private static final String[] PLAY = {"No", "No", "Yes", "Yes", "Yes", "No", "Yes", "No", "Yes", "Yes", "Yes", "Yes", "Yes", "No"};
+    
+    private SampleData() {}
+    
+    /**
+     * <p>Restituisce la tabella <i>playtennis</i> di 14 righe, con l'attributo 
+     * continuo <i>temperature</i> e quattro attributi discreti.
+     * @return la tabella playtennis.
+     */
+    public static Data playTennis() {
+        String[][] discrete = {OUTLOOK, null, HUMIDITY, WIND, PLAY};
+        String[] names = {"outlook", "temperature", "humidity", "wind", "play"};
+        List<Attribute> attributes = new ArrayList<>();
+        double[][] continuousColumns = new double[names.length][];
+        int[][] discreteColumns = new int[names.length][];
+        for (int j = 0; j < names.length; j++) {
+            if (discrete[j] == null) {
+                attributes.add(new ContinuousAttribute(names[j], j, min(TEMPERATURE), max(TEMPERATURE)));
+                continuousColumns[j] = TEMPERATURE.clone();
+            } else {
+                DiscreteAttribute attribute = new DiscreteAttribute(names[j], j, domain(discrete[j]));
+                attributes.add(attribute);
+                discreteColumns[j] = encode(attribute, discrete[j]);
+            }
+        }
+        return new Data(attributes, continuousColumns, discreteColumns, TEMPERATURE.length);
+    }
+    
+    /**
+     * <p>Genera una tabella di {@code rows} righe in cui gli attributi si 
+     * alternano tra continui e discreti, a partire da un attributo continuo; i
+     * valori continui si addensano attorno a pochi centri, così che la tabella
+     * abbia una struttura a gruppi, e quelli discreti sono scelti tra 
+     * {@code symbols} simboli.
+     * @param rows numero di righe.
+     * @param attributes numero di attributi.
+     * @param symbols numero di valori dei domini discreti.
+     * @param seed seme del generatore pseudo-casuale.
+     * @return la tabella generata.
+     */
+    public static Data random(int rows, int attributes, int symbols, long seed) {
+        Random random = new Random(seed);
+        List<Attribute> schema = new ArrayList<>();
+        double[][] continuousColumns = new double[attributes][];
+        int[][] discreteColumns = new int[attributes][];
+        int[] group = new int[rows];
+        for (int i = 0; i < rows; i++)
+            group[i] = random.nextInt(4);
+        for (int j = 0; j < attributes; j++) {
+            if (j % 2 == 0) {
+                double[] column = new double[rows];
+                for (int i = 0; i < rows; i++)
+                    column[i] = Math.round((group[i] * 25.0 + random.nextGaussian() * 6.0) * 100.0) / 100.0;
+                schema.add(new ContinuousAttribute("c" + j, j, min(column), max(column)));
+                continuousColumns[j] = column;
+            } else {
+                String[] values = new String[rows];
+                for (int i = 0; i < rows; i++)
+                    values[i] = "v" + (random.nextInt(4) == 0 ? random.nextInt(symbols) : group[i] % symbols);
+                DiscreteAttribute attribute = new DiscreteAttribute("d" + j, j, domain(values));
+                schema.add(attribute);
+                discreteColumns[j] = encode(attribute, values);
+            }
+        }
+        return new Data(schema, continuousColumns, discreteColumns, rows);
+    }
+    
+    private static TreeSet<String> domain(String[] values) {
+        TreeSet<String> domain = new TreeSet<>();
+        for (String value : values)
+            domain.add(value);
+        return domain;
+    }
+    
+    private static int[] encode(DiscreteAttribute attribute, String[] values) {
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++)
+            codes[i] = attribute.getCode(values[i]);
+        return codes;
+    }
+    
+    private static double min(double[] column) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : column)
+            min = Math.min(min, value);
+        return min;
+    }
+    
+    private static double max(double[] column) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : column)
+            max = Math.max(max, value);
+        return max;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import database.ConnectionPool;
+import database.DatabaseConnectionException;
+import database.DbAccess;
+import database.EmbeddedDatabase;
+import database.TableData;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica la lettura, la scrittura e l'invalidazione delle istantanee 
+ * delle tabelle.
+ * @author Andrea Mercanti
+ */
+public class TableSnapshotTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private ConnectionPool pool;
+    
+    @Before
+    public void createTable() throws SQLException, DatabaseConnectionException {
+        pool = EmbeddedDatabase.pool("snapshot");
+        EmbeddedDatabase.execute(pool, "DROP TABLE IF EXISTS playtennis");
+        EmbeddedDatabase.playTennis(pool);
+    }
+    
+    @After
+    public void closePool() {
+        if (pool != null)
+            pool.close();
+    }
+    
+    @Test
+    public void snapshotRoundTrip() throws IOException {
+        Data data = SampleData.random(1000, 5, 3, 47L);
+        File file = new File(folder.getRoot(), "random.snapshot");
+        TableSnapshot.write(file, 1000, 7, data);
+        TableSnapshot snapshot = TableSnapshot.read(file, 1000, 7);
+        assertNotNull(snapshot);
+        assertEquals(1000, snapshot.getNumberOfExamples());
+        Data copy = new Data(snapshot.getAttributes(), snapshot.getContinuousColumns(), snapshot.getDiscreteColumns(), snapshot.getNumberOfExamples());
+        for (int i = 0; i < data.getNumberOfExamples(); i++)
+            for (int j = 0; j < data.getNumberOfExplanatoryAttributes(); j++)
+                assertEquals(data.getAttributeValue(i, j), copy.getAttributeValue(i, j));
+    }
+    
+    @Test
+    public void staleOrDamagedSnapshotsAreIgnored() throws IOException {
+        File file = new File(folder.getRoot(), "playtennis.snapshot");
+        TableSnapshot.write(file, 14, 3, SampleData.playTennis());
+        assertNull(TableSnapshot.read(file, 15, 3));
+        assertNull(TableSnapshot.read(file, 14, 4));
+        assertNull(TableSnapshot.read(new File(folder.getRoot(), "missing.snapshot"), 14, 3));
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        assertNull(TableSnapshot.read(file, 14, 3));
+    }
+    
+    @Test
+    public void withoutAModificationProbeTheSnapshotIsNotUsed() throws Exception {
+        File directory = folder.getRoot();
+        DbAccess db = new DbAccess(pool);
+        db.initConnection();
+        String name;
+        try {
+            TableData table = new TableData(db);
+            assertEquals(TableData.UNKNOWN_PROBE, table.getModificationProbe("playtennis"));
+            name = table.getQualifiedName("playtennis");
+        } finally {
+            db.closeConnection();
+        }
+        assertEquals("SNAPSHOT.PUBLIC.playtennis", name);
+        
+        /*Un'istantanea registrata con la sonda sconosciuta non viene letta, e
+        il caricamento non ne salva una nuova*/
+        File snapshot = new File(directory, name + ".snapshot");
+        TableSnapshot.write(snapshot, 14, TableData.UNKNOWN_PROBE, SampleData.random(14, 5, 3, 3L));
+        long written = snapshot.lastModified();
+        Data first = new Data("playtennis", new DbAccess(pool), directory);
+        assertEquals(14, first.getNumberOfExamples());
+        assertTrue(rowOf(first, 29.21) >= 0);
+        assertEquals(written, snapshot.lastModified());
+        assertEquals(1, directory.list().length);
+        
+        /*Stesso numero di righe: la modifica è comunque visibile*/
+        EmbeddedDatabase.execute(pool, "UPDATE playtennis SET temperature = 30.3 WHERE temperature = 29.21");
+        assertEquals(-1, rowOf(new Data("playtennis", new DbAccess(pool), directory), 29.21));
+    }
+    
+    private static int rowOf(Data data, double temperature) {
+        for (int i = 0; i < data.getNumberOfExamples(); i++)
+            if ((Double) data.getAttributeValue(i, 1) == temperature)
+                return i;
+        return -1;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica il pool di connessioni e la cache delle istruzioni preparate 
+ * su una base di dati H2 in memoria.
+ * @author Andrea Mercanti
+ */
+public class ConnectionPoolTest {
+    
+    private ConnectionPool pool;
+    
+    private ConnectionPool pool(int maxSize, long idleTimeout) {
+        EmbeddedDatabase.pool("pool").close();    //salta il test se manca il driver
+        pool = new ConnectionPool(EmbeddedDatabase.DRIVER, EmbeddedDatabase.url("pool"), "sa", "", maxSize, idleTimeout);
+        pool.setAcquireTimeout(2000);
+        return pool;
+    }
+    
+    @After
+    public void closePool() {
+        if (pool != null)
+            pool.close();
+    }
+    
+    @Test
+    public void releasedConnectionsAreReused() throws SQLException {
+        pool(2, 60000);
+        PooledConnection first = pool.acquire();
+        pool.release(first);
+        assertSame(first, pool.acquire());
+    }
+    
+    @Test
+    public void acquireTimesOutWhenThePoolIsExhausted() throws SQLException {
+        pool(1, 60000).setAcquireTimeout(100);
+        pool.acquire();
+        long start = System.currentTimeMillis();
+        try {
+            pool.acquire();
+            fail();
+        } catch (SQLException ex) {
+            assertTrue(System.currentTimeMillis() - start >= 100);
+        }
+    }
+    
+    @Test
+    public void waitingRequestGetsTheReleasedConnection() throws Exception {
+        pool(1, 60000);
+        final PooledConnection held = pool.acquire();
+        final AtomicReference<PooledConnection> received = new AtomicReference<>();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    received.set(pool.acquire());
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        pool.release(held);
+        waiter.join(2000);
+        assertSame(held, received.get());
+    }
+    
+    @Test
+    public void invalidConnectionsAreReplaced() throws SQLException {
+        pool(1, 60000);
+        PooledConnection broken = pool.acquire();
+        broken.getConnection().close();
+        pool.release(broken);
+        PooledConnection replacement = pool.acquire();
+        assertNotSame(broken, replacement);
+        assertTrue(replacement.isValid(2));
+    }
+    
+    @Test
+    public void idleConnectionsAreEvictedAndFreeTheirSlot() throws Exception {
+        pool(1, 50).setAcquireTimeout(500);
+        PooledConnection stale = pool.acquire();
+        pool.release(stale);
+        Thread.sleep(120);
+        PooledConnection fresh = pool.acquire();
+        assertNotSame(stale, fresh);
+        assertTrue(stale.getConnection().isClosed());
+    }
+    
+    @Test
+    public void releaseEvictsStaleConnections() throws Exception {
+        pool(2, 50);
+        final PooledConnection idle = pool.acquire();
+        final PooledConnection busy = pool.acquire();
+        pool.release(idle);
+        Thread.sleep(120);
+        //il rilascio di busy chiude idle, scaduta: la richiesta successiva ottiene busy
+        pool.release(busy);
+        assertSame(busy, pool.acquire());
+        assertTrue(idle.getConnection().isClosed());
+        assertNotNull(pool.acquire());
+    }
+    
+    @Test
+    public void statementCacheKeepsTheMostRecentlyUsed() throws SQLException {
+        pool(1, 60000);
+        PooledConnection connection = pool.acquire();
+        PreparedStatement first = connection.prepare("SELECT 0");
+        PreparedStatement second = connection.prepare("SELECT 1");
+        assertSame(first, connection.prepare("SELECT 0"));
+        for (int i = 2; i <= PooledConnection.MAX_STATEMENTS; i++) {
+            connection.prepare("SELECT 0");     //resta il più recente
+            connection.prepare("SELECT " + i);
+        }
+        assertSame(first, connection.prepare("SELECT 0"));
+        assertTrue(second.isClosed());
+        assertNotSame(second, connection.prepare("SELECT 1"));
+    }
+    
+    @Test(expected = SQLException.class)
+    public void closedPoolRejectsRequests() throws SQLException {
+        pool(1, 60000).close();
+        pool.acquire();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.Assume;
+
+/**
+ * <p>Crea per i test basi di dati H2 in memoria, a cui si accede con un 
+ * {@link ConnectionPool}. Se il driver H2 non è nel classpath dei test 
+ * (file.reference.h2.jar), i test che se ne servono vengono saltati.
+ * @author Andrea Mercanti
+ */
+public class EmbeddedDatabase {
+    /**Classe del driver JDBC di H2*/
+    public static final String DRIVER = "org.h2.Driver";
+    
+    private EmbeddedDatabase() {}
+    
+    /**
+     * <p>Restituisce l'URL della base di dati in memoria di nome {@code name},
+     * che resta aperta finché la macchina virtuale è attiva.
+     * @param name nome della base di dati.
+     * @return l'URL JDBC della base di dati.
+     */
+    public static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+    
+    /**
+     * <p>Crea un pool di connessioni alla base di dati in memoria di nome 
+     * {@code name}, saltando il test se il driver non è disponibile.
+     * @param name nome della base di dati.
+     * @return il pool di connessioni.
+     */
+    public static ConnectionPool pool(String name) {
+        try {
+            Class.forName(DRIVER);
+        } catch (ClassNotFoundException ex) {
+            Assume.assumeNoException("Driver H2 non disponibile", ex);
+        }
+        return new ConnectionPool(DRIVER, url(name), "sa", "", 2, 60000);
+    }
+    
+    /**
+     * <p>Esegue le istruzioni SQL {@code statements} su una connessione del pool.
+     * @param pool pool di connessioni alla base di dati.
+     * @param statements istruzioni da eseguire, nell'ordine.
+     * @throws SQLException in caso di errori nell'esecuzione.
+     * @throws DatabaseConnectionException se la connessione non è disponibile.
+     */
+    public static void execute(ConnectionPool pool, String... statements) throws SQLException, DatabaseConnectionException {
+        DbAccess db = new DbAccess(pool);
+        db.initConnection();
+        try (Statement s = db.getConnection().createStatement()) {
+            for (String sql : statements)
+                s.execute(sql);
+        } finally {
+            db.closeConnection();
+        }
+    }
+    
+    /**
+     * <p>Crea la tabella <i>playtennis</i> con le 14 righe degli esempi, di 
+     * cui le prime due sono inserite due volte.
+     * @param pool pool di connessioni alla base di dati.
+     * @throws SQLException in caso di errori nell'esecuzione.
+     * @throws DatabaseConnectionException se la connessione non è disponibile.
+     */
+    public static void playTennis(ConnectionPool pool) throws SQLException, DatabaseConnectionException {
+        execute(pool, "CREATE TABLE playtennis (outlook VARCHAR(10), temperature DOUBLE, humidity VARCHAR(10), wind VARCHAR(10), play VARCHAR(10))",
+                "INSERT INTO playtennis VALUES ('Sunny', 30.3, 'High', 'Weak', 'No'), ('Sunny', 30.3, 'High', 'Strong', 'No'), "
+                + "('Overcast', 30.0, 'High', 'Weak', 'Yes'), ('Rain', 13.0, 'High', 'Weak', 'Yes'), ('Rain', 0.0, 'Normal', 'Weak', 'Yes'), "
+                + "('Rain', 0.0, 'Normal', 'Strong', 'No'), ('Overcast', 0.1, 'Normal', 'Strong', 'Yes'), ('Sunny', 13.0, 'High', 'Weak', 'No'), "
+                + "('Sunny', 0.1, 'Normal', 'Weak', 'Yes'), ('Rain', 12.0, 'Normal', 'Weak', 'Yes'), ('Sunny', 12.5, 'Normal', 'Strong', 'Yes'), "
+                + "('Overcast', 12.5, 'High', 'Strong', 'Yes'), ('Overcast', 29.21, 'Normal', 'Weak', 'Yes'), ('Rain', 12.5, 'High', 'Strong', 'No'), "
+                + "('Sunny', 30.3, 'High', 'Weak', 'No'), ('Sunny', 30.3, 'High', 'Strong', 'No')");
+    }
+}
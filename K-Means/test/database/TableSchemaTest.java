@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package database;
+
+import java.sql.SQLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che {@link TableSchema} riconosca i tipi e trovi le tabelle di 
+ * una base di dati diversa da MySQL.
+ * @author Andrea Mercanti
+ */
+public class TableSchemaTest {
+    
+    private static TableSchema schema(ConnectionPool pool, String table) throws SQLException, DatabaseConnectionException {
+        DbAccess db = new DbAccess(pool);
+        db.initConnection();
+        try {
+            return new TableSchema(db, table);
+        } finally {
+            db.closeConnection();
+        }
+    }
+    
+    @Test
+    public void standardTypeNamesAreRecognised() throws SQLException, DatabaseConnectionException {
+        ConnectionPool pool = EmbeddedDatabase.pool("types");
+        try {
+            EmbeddedDatabase.execute(pool, "CREATE TABLE measures (label CHARACTER VARYING(10), amount DOUBLE PRECISION, "
+                                           + "hits INTEGER, code CHAR(2), taken TIMESTAMP)");
+            TableSchema schema = schema(pool, "MEASURES");
+            assertEquals(4, schema.getNumberOfAttributes());
+            assertEquals("LABEL", schema.getColumn(0).getColumnName());
+            assertFalse(schema.getColumn(0).isNumber());
+            assertTrue(schema.getColumn(1).isNumber());
+            assertTrue(schema.getColumn(2).isNumber());
+            assertFalse(schema.getColumn(3).isNumber());
+        } finally {
+            pool.close();
+        }
+    }
+    
+    @Test
+    public void unquotedTableNamesAreFoundInAnyCase() throws SQLException, DatabaseConnectionException {
+        ConnectionPool pool = EmbeddedDatabase.pool("names");
+        try {
+            EmbeddedDatabase.playTennis(pool);
+            TableSchema lower = schema(pool, "playtennis");
+            assertEquals(5, lower.getNumberOfAttributes());
+            assertTrue(lower.getColumn(1).isNumber());
+            assertEquals(lower.getNumberOfAttributes(), schema(pool, "PLAYTENNIS").getNumberOfAttributes());
+        } finally {
+            pool.close();
+        }
+    }
+    
+    @Test
+    public void missingTableHasAnEmptySchema() throws SQLException, DatabaseConnectionException {
+        ConnectionPool pool = EmbeddedDatabase.pool("missing");
+        try {
+            assertEquals(0, schema(pool, "nowhere").getNumberOfAttributes());
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package events;
+
+import data.SampleData;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.List;
+import mining.KMeansMiner;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che {@link EventFactory} crei gli eventi di Flight Recorder 
+ * quando disponibili e la sonda che non registra nulla negli altri casi. Come
+ * l'applicazione, il test accede a {@code jdk.jfr} solo per riflessione.
+ * @author Andrea Mercanti
+ */
+public class EventFactoryTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    public static class Counter implements Runnable {
+        int runs;
+        
+        @Override
+        public void run() {
+            runs++;
+        }
+    }
+    
+    private static final Runnable DISABLED = new Runnable() {
+        @Override
+        public void run() {}
+    };
+    
+    private static Class<?> flightRecorder() {
+        try {
+            return Class.forName("jdk.jfr.Event");
+        } catch (ClassNotFoundException ex) {
+            Assume.assumeNoException("Flight Recorder non disponibile", ex);
+            return null;
+        }
+    }
+    
+    @Test
+    public void missingClassGivesTheDisabledProbe() {
+        EventFactory<Runnable> factory = EventFactory.load("events.MissingEvent", Runnable.class, DISABLED);
+        assertFalse(factory.isAvailable());
+        assertSame(DISABLED, factory.create());
+    }
+    
+    @Test
+    public void classOfAnotherTypeGivesTheDisabledProbe() {
+        EventFactory<Runnable> factory = EventFactory.load("java.lang.Object", Runnable.class, DISABLED);
+        assertFalse(factory.isAvailable());
+        assertSame(DISABLED, factory.create());
+    }
+    
+    @Test
+    public void availableClassGivesANewProbeEachTime() {
+        EventFactory<Runnable> factory = EventFactory.load(Counter.class.getName(), Runnable.class, DISABLED);
+        assertTrue(factory.isAvailable());
+        Runnable first = factory.create(), second = factory.create();
+        assertTrue(first instanceof Counter);
+        assertNotSame(first, second);
+    }
+    
+    @Test
+    public void flightRecorderEventsAreLoaded() {
+        Class<?> event = flightRecorder();
+        for (String name : new String[]{"data.LoadEvent", "database.QueryEvent", "mining.IterationEvent", "mining.ModelFileEvent"})
+            assertTrue(name, event.isInstance(EventFactory.load(name, Object.class, DISABLED).create()));
+    }
+    
+    @Test
+    public void iterationsAreRecorded() throws Exception {
+        flightRecorder();
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingClass.getConstructor().newInstance();
+        int iterations;
+        File dump = new File(folder.getRoot(), "kmeans.jfr");
+        try {
+            recordingClass.getMethod("enable", String.class).invoke(recording, "kmeans.mining.Iteration");
+            recordingClass.getMethod("start").invoke(recording);
+            KMeansMiner miner = new KMeansMiner(3);
+            miner.setSeed(19L);
+            iterations = miner.kmeans(SampleData.random(2000, 5, 3, 149L));
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", java.nio.file.Path.class).invoke(recording, dump.toPath());
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+        
+        Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", java.nio.file.Path.class);
+        int recorded = 0;
+        for (Object event : (List<?>) readAllEvents.invoke(null, dump.toPath())) {
+            Object type = event.getClass().getMethod("getEventType").invoke(event);
+            if ("kmeans.mining.Iteration".equals(type.getClass().getMethod("getName").invoke(type)))
+                recorded++;
+        }
+        assertEquals(iterations, recorded);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.SampleData;
+import data.Tuple;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che il passo di assegnazione in parallelo dia lo stesso 
+ * risultato dell'esecuzione sequenziale e dell'algoritmo di riferimento.
+ * @author Andrea Mercanti
+ */
+public class AssignmentTaskTest {
+    
+    @Test
+    public void parallelAssignmentMatchesReference() {
+        Data data = SampleData.random(20000, 5, 3, 5L);
+        Tuple[] seeds = ReferenceKMeans.seeds(data, 10, 20, 30, 40);
+        int[] expected = new ReferenceKMeans(data, seeds).getAssignment();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(expected, ReferenceKMeans.converge(data, seeds, null, false).getAssignment());
+            assertArrayEquals(expected, ReferenceKMeans.converge(data, seeds, pool, false).getAssignment());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void resultDoesNotDependOnParallelism() {
+        Data data = SampleData.random(300000, 1, 2, 9L);
+        assertEquals(AssignmentTask.MAX_RANGES, AssignmentTask.numberOfRanges(data));
+        Tuple[] seeds = ReferenceKMeans.seeds(data, 0, 1, 2);
+        String expected = null;
+        int[] assignment = null;
+        for (int parallelism : new int[]{1, 3, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                ClusterSet set = ReferenceKMeans.converge(data, seeds, pool, false);
+                if (expected == null) {
+                    expected = set.toString();
+                    assignment = set.getAssignment();
+                } else {
+                    assertEquals(expected, set.toString());
+                    assertArrayEquals(assignment, set.getAssignment());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    @Test
+    public void smallTablesUseOneRangePerBlock() {
+        assertEquals(1, AssignmentTask.numberOfRanges(SampleData.playTennis()));
+        assertEquals(5, AssignmentTask.numberOfRanges(SampleData.random(4 * AssignmentTask.BLOCK_SIZE + 1, 1, 2, 1L)));
+    }
+}
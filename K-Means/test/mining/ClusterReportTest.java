@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.SampleData;
+import data.Tuple;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che il resoconto scritto da {@link ClusterReport} abbia il 
+ * formato di quello costruito sulle tuple della prima versione.
+ * @author Andrea Mercanti
+ */
+public class ClusterReportTest {
+    
+    /*resoconto costruito come nella prima versione, ricalcolando le distanze sulle tuple*/
+    private static String reference(ClusterSet set, Data data) {
+        StringBuilder s = new StringBuilder();
+        int[] assignment = set.getAssignment();
+        for (int j = 0; j < set.getNumberOfClusters(); j++) {
+            Tuple centroid = set.get(j).getCentroid();
+            Set<Integer> members = new TreeSet<>();
+            for (int id = 0; id < assignment.length; id++) {
+                if (assignment[id] == j)
+                    members.add(id);
+            }
+            s.append(j).append(": Centroid=(");
+            for (int i = 0; i < centroid.getLength(); i++)
+                s.append(centroid.get(i)).append(" ");
+            s.append(")\nExamples:\n");
+            for (int id : members) {
+                s.append("[");
+                for (int a = 0; a < data.getNumberOfExplanatoryAttributes(); a++)
+                    s.append(data.getAttributeValue(id, a)).append(" ");
+                s.append("] dist=").append(centroid.getDistance(data.getItemSet(id))).append("\n");
+            }
+            s.append("\nAvgDistance=").append(centroid.avgDistance(data, members)).append("\n");
+        }
+        return s.toString();
+    }
+    
+    /*confronta due resoconti riga per riga, ammettendo sulle distanze lo scarto dovuto all'ordine delle somme*/
+    private static void assertSameReport(String expected, String actual) {
+        String[] expectedLines = expected.split("\n", -1), actualLines = actual.split("\n", -1);
+        assertEquals(expectedLines.length, actualLines.length);
+        for (int l = 0; l < expectedLines.length; l++) {
+            int e = expectedLines[l].lastIndexOf("dist"), a = actualLines[l].lastIndexOf("dist");
+            if (e < 0 && (e = expectedLines[l].lastIndexOf("Distance=")) >= 0)
+                a = actualLines[l].lastIndexOf("Distance=");
+            if (e < 0) {
+                assertEquals(expectedLines[l], actualLines[l]);
+                continue;
+            }
+            int ev = expectedLines[l].indexOf('=', e) + 1, av = actualLines[l].indexOf('=', a) + 1;
+            assertEquals(expectedLines[l].substring(0, ev), actualLines[l].substring(0, av));
+            assertEquals(Double.parseDouble(expectedLines[l].substring(ev)), Double.parseDouble(actualLines[l].substring(av)), 1e-12);
+        }
+    }
+    
+    private static ClusterSet clustered(Data data, int... seeds) {
+        return ReferenceKMeans.converge(data, ReferenceKMeans.seeds(data, seeds), null, false);
+    }
+    
+    @Test
+    public void reportMatchesTheTupleFormat() {
+        Data data = SampleData.playTennis();
+        ClusterSet set = clustered(data, 0, 6, 13);
+        assertSameReport(reference(set, data), set.toString(data));
+        
+        data = SampleData.random(3000, 5, 3, 107L);
+        set = clustered(data, 1, 2, 3, 4);
+        assertSameReport(reference(set, data), set.toString(data));
+    }
+    
+    @Test
+    public void singleClusterReportMatchesTheSetReport() {
+        Data data = SampleData.random(1000, 5, 3, 109L);
+        ClusterSet set = clustered(data, 10, 20, 30);
+        String report = set.toString(data);
+        for (int j = 0; j < set.getNumberOfClusters(); j++) {
+            String cluster = set.get(j).toString(data);
+            assertTrue(report.contains(j + ": " + cluster + "\n"));
+        }
+    }
+    
+    @Test
+    public void pagesListPartOfTheExamples() throws IOException {
+        Data data = SampleData.playTennis();
+        ClusterSet set = clustered(data, 0, 6, 13);
+        String full = set.toString(data);
+        ClusterReport report = new ClusterReport();
+        report.setOffset(1);
+        report.setLimit(2);
+        StringWriter out = new StringWriter();
+        report.write(set, data, out);
+        String[] pages = out.toString().split("\n\n?(?=\\d+: )");
+        String[] clusters = full.split("\n\n?(?=\\d+: )");
+        assertEquals(clusters.length, pages.length);
+        for (int j = 0; j < clusters.length; j++) {
+            String[] all = clusters[j].split("\n");
+            int examples = 0;
+            for (String line : all) {
+                if (line.startsWith("["))
+                    examples++;
+            }
+            int shown = Math.max(0, Math.min(2, examples - 1));
+            String[] page = pages[j].split("\n");
+            assertEquals(all[0], page[0]);
+            for (int m = 0; m < shown; m++)
+                assertEquals(all[3 + m], page[2 + m]);
+            if (examples > shown)
+                assertEquals("... " + (examples - shown) + " examples not shown", page[2 + shown]);
+            assertEquals(all[all.length - 1], page[page.length - 1]);
+        }
+    }
+    
+    @Test
+    public void byteStreamReportIsUtf8() throws IOException {
+        Data data = SampleData.random(500, 5, 3, 113L);
+        ClusterSet set = clustered(data, 5, 6, 7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ClusterReport().write(set, data, out);
+        assertEquals(set.toString(data), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.SampleData;
+import data.Tuple;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica il passo di assegnazione di {@link ClusterSet} sulla tabella 
+ * letta per indice di riga, confrontandolo con l'algoritmo di riferimento.
+ * @author Andrea Mercanti
+ */
+public class ClusterSetTest {
+    
+    @Test
+    public void nearestIndexMatchesTupleComparison() {
+        Data data = SampleData.random(200, 5, 3, 11L);
+        ClusterSet set = new ClusterSet(4);
+        set.initializeCentroids(data, ReferenceKMeans.seeds(data, 3, 50, 100, 150));
+        for (int id = 0; id < data.getNumberOfExamples(); id++)
+            assertSame(set.nearestCluster(data.getItemSet(id)), set.nearestCluster(data, id));
+    }
+    
+    @Test
+    public void assignmentMatchesReference() {
+        Data data = SampleData.random(500, 5, 3, 21L);
+        Tuple[] seeds = ReferenceKMeans.seeds(data, 0, 1, 2, 3, 4);
+        ReferenceKMeans reference = new ReferenceKMeans(data, seeds);
+        ClusterSet set = ReferenceKMeans.converge(data, seeds, null, false);
+        assertArrayEquals(reference.getAssignment(), set.getAssignment());
+        for (int c = 0; c < seeds.length; c++)
+            assertEquals(0.0, reference.getCentroids()[c].getDistance(set.get(c).getCentroid()), 1e-9);
+    }
+    
+    @Test
+    public void playTennisMatchesReference() {
+        Data data = SampleData.playTennis();
+        Tuple[] seeds = ReferenceKMeans.seeds(data, 0, 6, 13);
+        assertArrayEquals(new ReferenceKMeans(data, seeds).getAssignment(), 
+                          ReferenceKMeans.converge(data, seeds, null, false).getAssignment());
+    }
+    
+    @Test
+    public void pruningMatchesExhaustiveAssignment() {
+        Data data = SampleData.random(20000, 5, 3, 31L);
+        Tuple[] seeds = ReferenceKMeans.seeds(data, 7, 700, 7000, 17000, 19000, 3);
+        int[] expected = new ReferenceKMeans(data, seeds).getAssignment();
+        assertArrayEquals(expected, ReferenceKMeans.converge(data, seeds, null, true).getAssignment());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(expected, ReferenceKMeans.converge(data, seeds, pool, true).getAssignment());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void pruningSkipsDistanceEvaluations() {
+        Data data = SampleData.random(5000, 5, 3, 37L);
+        Tuple[] seeds = ReferenceKMeans.seeds(data, 1, 2, 3, 4, 5, 6, 7, 8);
+        final long[] totals = new long[2];
+        ClusterSet set = new ClusterSet(seeds.length);
+        set.initializeCentroids(data, seeds);
+        set.setPruning(true);
+        set.converge(data, null, new KMeansListener() {
+            @Override
+            public void seedingCompleted(long nanos) {}
+
+            @Override
+            public void iterationCompleted(IterationStats stats) {
+                totals[0] += stats.getDistanceEvaluations();
+                totals[1] += stats.getSkippedDistanceEvaluations();
+            }
+
+            @Override
+            public void runCompleted(int iterations, long nanos) {}
+        }, new ConvergencePolicy());
+        assertTrue(totals[1] > 0);
+        assertTrue(totals[0] + totals[1] > 0);
+    }
+    
+    @Test
+    public void everyAssignmentPathMatchesReference() {
+        int[] rows = {11, 1200, 5300, 9100, 14000, 19999, 42};
+        Data data = SampleData.random(20000, 5, 3, 167L);
+        int[] expected = new ReferenceKMeans(data, ReferenceKMeans.seeds(data, rows)).getAssignment();
+        Data scaledOnly = SampleData.random(20000, 5, 3, 167L);
+        scaledOnly.discardOriginalValues();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Data table : new Data[]{data, scaledOnly}) {
+                Tuple[] seeds = ReferenceKMeans.seeds(table, rows);
+                for (ForkJoinPool threads : new ForkJoinPool[]{null, pool})
+                    for (boolean pruning : new boolean[]{false, true}) {
+                        ClusterSet set = ReferenceKMeans.converge(table, seeds, threads, pruning);
+                        assertArrayEquals(expected, set.getAssignment());
+                        for (int id = 0; id < table.getNumberOfExamples(); id += 97)
+                            assertEquals(set.clusterOf(id), set.nearestIndex(table, id));
+                    }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.SampleData;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che l'appartenenza delle tuple ai cluster, memorizzata 
+ * nell'assegnazione dell'insieme, sia coerente con le operazioni sui cluster.
+ * @author Andrea Mercanti
+ */
+public class ClusterTest {
+    
+    private static ClusterSet clusters(Data data) {
+        ClusterSet set = new ClusterSet(3);
+        set.initializeCentroids(data, ReferenceKMeans.seeds(data, 0, 6, 13));
+        return set;
+    }
+    
+    @Test
+    public void membershipFollowsMoves() {
+        Data data = SampleData.playTennis();
+        ClusterSet set = clusters(data);
+        Cluster first = set.get(0), second = set.get(1);
+        assertTrue(first.addData(4));
+        assertFalse(first.addData(4));
+        assertTrue(first.contain(4));
+        assertSame(first, set.currentCluster(4));
+        assertTrue(second.addData(4));
+        assertFalse(first.contain(4));
+        assertTrue(second.contain(4));
+        assertEquals(0, first.getClusteredData().size());
+        second.removeTuple(4);
+        assertNull(set.currentCluster(4));
+        assertEquals(-1, set.clusterOf(4));
+        assertEquals(-1, set.clusterOf(99));
+    }
+    
+    @Test
+    public void clusteredDataIsAViewOnTheAssignment() {
+        Data data = SampleData.playTennis();
+        ClusterSet set = clusters(data);
+        set.converge(data, null);
+        int[] assignment = set.getAssignment();
+        int total = 0;
+        for (int c = 0; c < set.getNumberOfClusters(); c++) {
+            Set<Integer> expected = new HashSet<>();
+            for (int id = 0; id < assignment.length; id++)
+                if (assignment[id] == c)
+                    expected.add(id);
+            Set<Integer> members = set.get(c).getClusteredData();
+            assertEquals(expected, new HashSet<>(members));
+            assertEquals(expected.size(), members.size());
+            for (int id = 0; id < assignment.length; id++)
+                assertEquals(expected.contains(id), members.contains(id));
+            total += members.size();
+        }
+        assertEquals(data.getNumberOfExamples(), total);
+    }
+    
+    @Test
+    public void restoredAssignmentRecountsClusters() {
+        Data data = SampleData.playTennis();
+        ClusterSet set = clusters(data);
+        int[] assignment = new int[data.getNumberOfExamples()];
+        Arrays.fill(assignment, 2);
+        assignment[0] = -1;
+        set.restoreAssignment(assignment);
+        assertEquals(0, set.get(0).getClusteredData().size());
+        assertEquals(13, set.get(2).getClusteredData().size());
+        assertFalse(set.get(2).contain(0));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void restoredAssignmentRejectsUnknownClusters() {
+        Data data = SampleData.playTennis();
+        clusters(data).restoreAssignment(new int[]{0, 3});
+    }
+}
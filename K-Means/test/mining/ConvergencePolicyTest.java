@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SampleData;
+import org.junit.Assume;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica i criteri di arresto di {@link ConvergencePolicy} e il motivo 
+ * dell'arresto riportato da {@link KMeansMiner}.
+ * @author Andrea Mercanti
+ */
+public class ConvergencePolicyTest {
+    
+    private static final Data DATA = SampleData.random(20000, 5, 3, 151L);
+    
+    private static KMeansMiner miner(ConvergencePolicy policy) {
+        KMeansMiner miner = new KMeansMiner(8);
+        miner.setSeeding(new RandomSeeding());
+        miner.setSeed(23L);
+        if (policy != null)
+            miner.setConvergencePolicy(policy);
+        return miner;
+    }
+    
+    private static int unconstrainedIterations() throws OutOfRangeSampleSize {
+        KMeansMiner miner = miner(null);
+        int iterations = miner.kmeans(DATA);
+        assertEquals(StopReason.CONVERGED, miner.getStopReason());
+        Assume.assumeTrue(iterations > 3);
+        return iterations;
+    }
+    
+    @Test
+    public void criteriaAreCheckedInOrder() {
+        ConvergencePolicy policy = new ConvergencePolicy();
+        policy.setMaxIterations(10);
+        policy.setMinMovedFraction(0.01);
+        policy.setShiftTolerance(0.001);
+        policy.setTimeBudget(1000);
+        assertEquals(StopReason.CONVERGED, policy.check(10, 0, 1000, 0.0, Long.MAX_VALUE));
+        assertEquals(StopReason.MOVED_FRACTION, policy.check(10, 10, 1000, 0.0, Long.MAX_VALUE));
+        assertEquals(StopReason.CENTROID_SHIFT, policy.check(10, 11, 1000, 0.0, Long.MAX_VALUE));
+        assertEquals(StopReason.MAX_ITERATIONS, policy.check(10, 11, 1000, 0.001, Long.MAX_VALUE));
+        assertEquals(StopReason.TIME_BUDGET, policy.check(9, 11, 1000, 0.001, 1000000000L));
+        assertNull(policy.check(9, 11, 1000, 0.001, 999999999L));
+    }
+    
+    @Test
+    public void defaultPolicyStopsOnlyWhenNothingMoves() {
+        ConvergencePolicy policy = new ConvergencePolicy();
+        assertFalse(policy.hasTimeBudget());
+        assertNull(policy.check(Integer.MAX_VALUE - 1, 1, Integer.MAX_VALUE, 0.0, Long.MAX_VALUE - 1));
+        assertEquals(StopReason.CONVERGED, policy.check(1, 0, 10, 1.0, 0L));
+    }
+    
+    @Test
+    public void iterationCapStopsTheRun() throws OutOfRangeSampleSize {
+        unconstrainedIterations();
+        ConvergencePolicy policy = new ConvergencePolicy();
+        policy.setMaxIterations(2);
+        KMeansMiner miner = miner(policy);
+        assertEquals(2, miner.kmeans(DATA));
+        assertEquals(StopReason.MAX_ITERATIONS, miner.getStopReason());
+    }
+    
+    @Test
+    public void movedFractionStopsBeforeConvergence() throws OutOfRangeSampleSize {
+        int iterations = unconstrainedIterations();
+        ConvergencePolicy policy = new ConvergencePolicy();
+        policy.setMinMovedFraction(0.05);
+        KMeansMiner miner = miner(policy);
+        assertTrue(miner.kmeans(DATA) < iterations);
+        assertEquals(StopReason.MOVED_FRACTION, miner.getStopReason());
+    }
+    
+    @Test
+    public void shiftToleranceStopsWhenCentroidsSettle() throws OutOfRangeSampleSize {
+        unconstrainedIterations();
+        ConvergencePolicy policy = new ConvergencePolicy();
+        policy.setShiftTolerance(Double.MAX_VALUE);
+        KMeansMiner miner = miner(policy);
+        assertEquals(1, miner.kmeans(DATA));
+        assertEquals(StopReason.CENTROID_SHIFT, miner.getStopReason());
+    }
+    
+    @Test
+    public void exhaustedBudgetKeepsTheBestAssignment() throws OutOfRangeSampleSize {
+        unconstrainedIterations();
+        ConvergencePolicy policy = new ConvergencePolicy();
+        policy.setTimeBudget(0);
+        KMeansMiner miner = miner(policy);
+        assertEquals(1, miner.kmeans(DATA));
+        assertEquals(StopReason.TIME_BUDGET, miner.getStopReason());
+        ClusterSet set = miner.getC();
+        for (int id = 0; id < DATA.getNumberOfExamples(); id++)
+            assertEquals(set.nearestIndex(DATA, id), set.clusterOf(id));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SampleData;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica le notifiche inviate agli ascoltatori di {@link KMeansMiner} e 
+ * la loro esposizione tramite JMX con {@link KMeansMetrics}.
+ * @author Andrea Mercanti
+ */
+public class KMeansListenerTest {
+    
+    private static class Recorder implements KMeansListener {
+        int seedings;
+        List<IterationStats> iterations = new ArrayList<>();
+        int runs;
+        int runIterations = -1;
+        
+        @Override
+        public void seedingCompleted(long nanos) {
+            seedings++;
+        }
+        
+        @Override
+        public void iterationCompleted(IterationStats stats) {
+            iterations.add(stats);
+        }
+        
+        @Override
+        public void runCompleted(int iterations, long nanos) {
+            runs++;
+            runIterations = iterations;
+        }
+    }
+    
+    private static KMeansMiner miner(int k) {
+        KMeansMiner miner = new KMeansMiner(k);
+        miner.setSeed(17L);
+        return miner;
+    }
+    
+    @Test
+    public void everyIterationIsNotified() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(3000, 5, 3, 131L);
+        KMeansMiner miner = miner(5);
+        Recorder recorder = new Recorder();
+        miner.addListener(recorder);
+        int iterations = miner.kmeans(data);
+        
+        assertEquals(1, recorder.seedings);
+        assertEquals(1, recorder.runs);
+        assertEquals(iterations, recorder.runIterations);
+        assertEquals(iterations, recorder.iterations.size());
+        for (int i = 0; i < iterations; i++) {
+            IterationStats stats = recorder.iterations.get(i);
+            assertEquals(i + 1, stats.getIteration());
+            assertEquals(0, stats.getSkippedDistanceEvaluations());
+            assertTrue(stats.getDistanceEvaluations() > 0);
+        }
+        IterationStats last = recorder.iterations.get(iterations - 1);
+        assertEquals(StopReason.CONVERGED, miner.getStopReason());
+        assertEquals(0, last.getMoved());
+        assertEquals(miner.getC().inertia(data), last.getInertia(), 1e-9);
+    }
+    
+    @Test
+    public void removedListenersAreNotNotified() throws OutOfRangeSampleSize {
+        KMeansMiner miner = miner(3);
+        Recorder kept = new Recorder(), removed = new Recorder();
+        miner.addListener(kept);
+        miner.addListener(removed);
+        miner.removeListener(removed);
+        miner.kmeans(SampleData.playTennis());
+        assertEquals(1, kept.runs);
+        assertEquals(0, removed.runs);
+        assertTrue(removed.iterations.isEmpty());
+    }
+    
+    @Test
+    public void metricsAreReadableThroughJmx() throws OutOfRangeSampleSize, JMException {
+        KMeansMetrics metrics = new KMeansMetrics();
+        metrics.register("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("mining:type=KMeansMetrics,name=" + ObjectName.quote("test"));
+        try {
+            KMeansMiner miner = miner(4), other = miner(3);
+            miner.addListener(metrics);
+            other.addListener(metrics);
+            int first = miner.kmeans(SampleData.random(1000, 5, 3, 137L));
+            int second = other.kmeans(SampleData.random(1000, 5, 3, 139L));
+            assertEquals(2L, server.getAttribute(name, "Runs"));
+            assertEquals((long) (first + second), server.getAttribute(name, "Iterations"));
+            assertEquals(second, server.getAttribute(name, "LastRunIterations"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, metrics.getRuns());
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SampleData;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica le modalità di esecuzione di {@link KMeansMiner}.
+ * @author Andrea Mercanti
+ */
+public class KMeansMinerTest {
+    
+    private static KMeansMiner miner(int k, int parallelism, long seed) {
+        KMeansMiner miner = new KMeansMiner(k, parallelism);
+        miner.setSeeding(new KMeansPlusPlusSeeding());
+        miner.setSeed(seed);
+        return miner;
+    }
+    
+    @Test
+    public void miniBatchIsDeterministicAndCloseToFullKmeans() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(20000, 3, 3, 41L);
+        KMeansMiner full = miner(4, 1, 5L);
+        full.kmeans(data);
+        double fullInertia = full.getC().inertia(data);
+        
+        KMeansMiner batch = miner(4, 1, 5L);
+        int iterations = batch.miniBatchKmeans(data, 500, 100, 1e-4);
+        assertTrue(iterations >= 1 && iterations <= 100);
+        KMeansMiner again = miner(4, 2, 5L);
+        again.miniBatchKmeans(data, 500, 100, 1e-4);
+        assertEquals(batch.getC().toString(), again.getC().toString());
+        assertArrayEquals(batch.getC().getAssignment(), again.getC().getAssignment());
+        assertTrue(batch.getC().inertia(data) < fullInertia * 1.1);
+    }
+    
+    @Test
+    public void miniBatchAssignsEveryRowToItsNearestCentroid() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(3000, 5, 3, 43L);
+        KMeansMiner miner = miner(5, 1, 7L);
+        miner.miniBatchKmeans(data, 100, 10, 0.0);
+        ClusterSet set = miner.getC();
+        for (int id = 0; id < data.getNumberOfExamples(); id++)
+            assertEquals(set.nearestIndex(data, id), set.clusterOf(id));
+    }
+    
+    @Test
+    public void miniBatchReportsWhyItStopped() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(3000, 5, 3, 43L);
+        KMeansMiner miner = miner(5, 1, 7L);
+        assertEquals(3, miner.miniBatchKmeans(data, 100, 3, 0.0));
+        assertEquals(StopReason.MAX_ITERATIONS, miner.getStopReason());
+        
+        KMeansMiner tolerant = miner(5, 1, 7L);
+        assertTrue(tolerant.miniBatchKmeans(data, 100, 1000, 0.5) < 1000);
+        assertEquals(StopReason.CENTROID_SHIFT, tolerant.getStopReason());
+    }
+    
+    @Test
+    public void restartsKeepTheLowestInertiaRun() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(4000, 5, 3, 59L);
+        double best = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < 6; r++) {
+            KMeansMiner single = miner(6, 1, 11L + r * 0x9E3779B97F4A7C15L);
+            single.kmeans(data);
+            best = Math.min(best, single.getC().inertia(data));
+        }
+        KMeansMiner restarted = miner(6, 1, 11L);
+        restarted.setAbandonment(Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+        restarted.kmeans(data, 6);
+        assertEquals(best, restarted.getInertia(), 1e-9);
+        assertEquals(restarted.getInertia(), restarted.getC().inertia(data), 1e-9);
+        assertEquals(StopReason.CONVERGED, restarted.getStopReason());
+    }
+    
+    @Test
+    public void losingRestartsAreAbandonedEarly() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(4000, 5, 3, 59L);
+        int restarts = 6, full = 0;
+        int fullIterations[] = new int[restarts];
+        for (int r = 0; r < restarts; r++) {
+            fullIterations[r] = miner(6, 1, 11L + r * 0x9E3779B97F4A7C15L).kmeans(data);
+            full += fullIterations[r];
+        }
+        KMeansMiner restarted = miner(6, 1, 11L);
+        restarted.setAbandonment(2, 0.0);
+        List<RestartRun> runs = restarted.restart(data, restarts);
+        
+        int total = 0, abandoned = 0;
+        RestartRun best = null;
+        for (int r = 0; r < restarts; r++) {
+            RestartRun run = runs.get(r);
+            total += run.getIterations();
+            if (run.isAbandoned()) {
+                abandoned++;
+                assertNull(run.getStopReason());
+                assertTrue(run.getIterations() >= 2 && run.getIterations() < fullIterations[r]);
+            } else {
+                assertEquals(StopReason.CONVERGED, run.getStopReason());
+                assertEquals(fullIterations[r], run.getIterations());
+                if (best == null || run.getInertia() < best.getInertia())
+                    best = run;
+            }
+        }
+        assertTrue(abandoned > 0);
+        assertTrue(total < full);
+        
+        KMeansMiner chosen = miner(6, 1, 11L);
+        chosen.setAbandonment(2, 0.0);
+        assertEquals(best.getIterations(), chosen.kmeans(data, restarts));
+        assertEquals(best.getInertia(), chosen.getInertia(), 0.0);
+        assertArrayEquals(best.getClusterSet().getAssignment(), chosen.getC().getAssignment());
+    }
+    
+    @Test
+    public void restartsDoNotDependOnParallelism() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(4000, 5, 3, 61L);
+        KMeansMiner sequential = miner(5, 1, 13L), parallel = miner(5, 4, 13L);
+        int iterations = sequential.kmeans(data, 4);
+        assertEquals(iterations, parallel.kmeans(data, 4));
+        assertEquals(sequential.getC().toString(), parallel.getC().toString());
+        assertArrayEquals(sequential.getC().getAssignment(), parallel.getC().getAssignment());
+        assertEquals(sequential.getInertia(), parallel.getInertia(), 0.0);
+    }
+    
+    @Test
+    public void singleRestartMatchesAPlainRun() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(2000, 5, 3, 67L);
+        KMeansMiner plain = miner(4, 1, 17L), restarted = miner(4, 1, 17L);
+        assertEquals(plain.kmeans(data), restarted.kmeans(data, 1));
+        assertArrayEquals(plain.getC().getAssignment(), restarted.getC().getAssignment());
+    }
+}
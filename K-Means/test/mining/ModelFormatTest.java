@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SampleData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica il salvataggio dei modelli nel formato binario e la lettura dei
+ * modelli salvati con la serializzazione Java dalle versioni precedenti.
+ * @author Andrea Mercanti
+ */
+public class ModelFormatTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private static KMeansMiner trained(Data data, int k) throws OutOfRangeSampleSize {
+        KMeansMiner miner = new KMeansMiner(k);
+        miner.setSeeding(new KMeansPlusPlusSeeding());
+        miner.setSeed(3L);
+        miner.kmeans(data);
+        return miner;
+    }
+    
+    @Test
+    public void binaryModelRoundTrip() throws Exception {
+        Data data = SampleData.random(5000, 5, 3, 53L);
+        KMeansMiner miner = trained(data, 5);
+        File file = folder.newFile("model.dmp");
+        miner.salva(file.getPath());
+        assertTrue(ModelFormat.isModel(file.getPath()));
+        KMeansMiner loaded = new KMeansMiner(file.getPath());
+        assertEquals(miner.getC().toString(), loaded.getC().toString());
+        assertArrayEquals(miner.getC().getAssignment(), loaded.getC().getAssignment());
+        assertEquals(miner.getC().inertia(data), loaded.getC().inertia(data), 1e-9);
+    }
+    
+    @Test
+    public void binaryModelWithoutAssignment() throws Exception {
+        Data data = SampleData.playTennis();
+        KMeansMiner miner = trained(data, 3);
+        File file = folder.newFile("centroids.dmp");
+        miner.salva(file.getPath(), false);
+        KMeansMiner loaded = new KMeansMiner(file.getPath());
+        assertEquals(miner.getC().toString(), loaded.getC().toString());
+        assertEquals(0, loaded.getC().getAssignment().length);
+        for (int id = 0; id < data.getNumberOfExamples(); id++)
+            assertEquals(miner.getC().nearestIndex(data, id), loaded.getC().nearestIndex(data, id));
+    }
+    
+    @Test
+    public void legacySerializedModelIsStillReadable() throws Exception {
+        File legacy = new File("jericho.dmp");
+        assertTrue(legacy.isFile());
+        assertFalse(ModelFormat.isModel(legacy.getPath()));
+        ClusterSet C = new KMeansMiner(legacy.getPath()).getC();
+        assertEquals("0: Centroid=(Rain 5.357142857142857 High Weak Yes )\n"
+                     + "1: Centroid=(Overcast 0.875 Normal Strong Yes )\n"
+                     + "2: Centroid=(Rain 1.0666666666666667 High Strong No )\n", C.toString());
+        int total = 0;
+        for (int j = 0; j < C.getNumberOfClusters(); j++) {
+            for (int id : C.get(j).getClusteredData())
+                assertEquals(j, C.clusterOf(id));
+            total += C.get(j).getClusteredData().size();
+        }
+        assertEquals(C.getAssignment().length, total);
+        assertTrue(total > 0);
+    }
+    
+    @Test
+    public void legacyModelCanBeConvertedToTheBinaryFormat() throws Exception {
+        KMeansMiner legacy = new KMeansMiner("jericho.dmp");
+        File file = folder.newFile("jericho.bin");
+        legacy.salva(file.getPath());
+        KMeansMiner converted = new KMeansMiner(file.getPath());
+        assertEquals(legacy.getC().toString(), converted.getC().toString());
+        assertArrayEquals(legacy.getC().getAssignment(), converted.getC().getAssignment());
+    }
+    
+    @Test
+    public void serializedFormKeepsTheMembership() throws Exception {
+        Data data = SampleData.playTennis();
+        ClusterSet C = trained(data, 3).getC();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(C);
+        }
+        ClusterSet copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ClusterSet) in.readObject();
+        }
+        assertEquals(C.toString(), copy.toString());
+        assertArrayEquals(C.getAssignment(), copy.getAssignment());
+    }
+    
+    @Test(expected = IOException.class)
+    public void truncatedModelIsRejected() throws Exception {
+        File file = folder.newFile("model.dmp");
+        trained(SampleData.playTennis(), 3).salva(file.getPath());
+        byte[] header = new byte[16];
+        try (FileInputStream in = new FileInputStream(file)) {
+            assertEquals(16, in.read(header));
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(header);
+        }
+        new KMeansMiner(file.getPath());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SampleData;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica la scelta automatica del numero di cluster di {@link ModelSelector}.
+ * @author Andrea Mercanti
+ */
+public class ModelSelectorTest {
+    
+    private static ModelSelector selector(int minK, int maxK, int parallelism) {
+        ModelSelector selector = new ModelSelector(minK, maxK);
+        selector.setSeed(13L);
+        selector.setSampleSize(300);
+        selector.setParallelism(parallelism);
+        return selector;
+    }
+    
+    @Test
+    public void groupedTableChoosesItsNumberOfGroups() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(3000, 1, 4, 97L);
+        ModelSelection selection = selector(2, 8, 1).select(data);
+        assertEquals(selection.toString(), 4, selection.getChosenK());
+        assertEquals(4, selection.getClusterSet().getNumberOfClusters());
+    }
+    
+    @Test
+    public void chosenCandidateHasTheHighestSilhouette() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(2000, 5, 3, 101L);
+        ModelSelection selection = selector(2, 9, 1).select(data);
+        int[] ks = selection.getKs();
+        double[] silhouette = selection.getSilhouette();
+        int chosen = -1;
+        for (int i = 0; i < ks.length; i++) {
+            if (i > 0)
+                assertTrue(ks[i] > ks[i - 1]);
+            if (ks[i] == selection.getChosenK())
+                chosen = i;
+        }
+        assertTrue(chosen >= 0);
+        for (double value : silhouette)
+            assertTrue(value <= silhouette[chosen]);
+        assertEquals(selection.getInertia()[chosen], selection.getClusterSet().inertia(data), 1e-9);
+    }
+    
+    @Test
+    public void resultDoesNotDependOnParallelism() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(5000, 5, 3, 103L);
+        ModelSelection sequential = selector(2, 10, 1).select(data);
+        ModelSelection parallel = selector(2, 10, 4).select(data);
+        assertArrayEquals(sequential.getKs(), parallel.getKs());
+        assertArrayEquals(sequential.getInertia(), parallel.getInertia(), 0.0);
+        assertArrayEquals(sequential.getSilhouette(), parallel.getSilhouette(), 0.0);
+        assertArrayEquals(sequential.getClusterSet().getAssignment(), parallel.getClusterSet().getAssignment());
+    }
+    
+    @Test
+    public void explorationStopsOnAPlateau() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(3000, 3, 4, 97L);
+        ModelSelector selector = selector(2, 40, 1);
+        selector.setWidth(2);
+        selector.setTolerance(0.0);
+        ModelSelection selection = selector.select(data);
+        int[] ks = selection.getKs();
+        assertTrue(ks[ks.length - 1] < 40);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.Tuple;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Implementazione di riferimento dell'algoritmo k-means di Lloyd, come 
+ * nella prima versione del progetto: materializza ogni riga come tupla, 
+ * la confronta con tutti i centroidi e ricalcola ciascun centroide 
+ * dall'insieme delle righe del cluster. Serve a verificare che le versioni
+ * ottimizzate producano la stessa assegnazione.
+ * @author Andrea Mercanti
+ */
+class ReferenceKMeans {
+    /**Centroidi correnti*/
+    private Tuple[] centroids;
+    /**Indice del cluster di ciascuna riga*/
+    private int[] assignment;
+    
+    /**
+     * <p>Esegue l'algoritmo sulla tabella {@code data} a partire dai centroidi
+     * iniziali {@code seeds}, che non vengono modificati.
+     * @param data tabella da modellare.
+     * @param seeds centroidi iniziali.
+     */
+    ReferenceKMeans(Data data, Tuple[] seeds) {
+        centroids = new Tuple[seeds.length];
+        for (int c = 0; c < seeds.length; c++)
+            centroids[c] = seeds[c].copy();
+        assignment = new int[data.getNumberOfExamples()];
+        Arrays.fill(assignment, -1);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < assignment.length; i++) {
+                Tuple row = data.getItemSet(i);
+                int nearest = 0;
+                double min = centroids[0].getDistance(row);
+                for (int c = 1; c < centroids.length; c++) {
+                    double distance = centroids[c].getDistance(row);
+                    if (distance < min) {
+                        min = distance;
+                        nearest = c;
+                    }
+                }
+                if (assignment[i] != nearest) {
+                    assignment[i] = nearest;
+                    changed = true;
+                }
+            }
+            for (int c = 0; c < centroids.length; c++) {
+                Set<Integer> members = new HashSet<>();
+                for (int i = 0; i < assignment.length; i++)
+                    if (assignment[i] == c)
+                        members.add(i);
+                if (!members.isEmpty())
+                    for (int j = 0; j < centroids[c].getLength(); j++)
+                        centroids[c].get(j).update(data, members);
+            }
+        }
+    }
+    
+    /**
+     * <p>Restituisce l'assegnazione finale delle righe ai cluster.
+     * @return l'indice del cluster di ciascuna riga.
+     */
+    int[] getAssignment() {
+        return assignment;
+    }
+    
+    /**
+     * <p>Restituisce i centroidi finali.
+     * @return i centroidi dei cluster.
+     */
+    Tuple[] getCentroids() {
+        return centroids;
+    }
+    
+    /**
+     * <p>Restituisce, come centroidi iniziali, le copie delle righe di 
+     * {@code data} indicizzate da {@code rows}.
+     * @param data tabella da cui prelevare le righe.
+     * @param rows indici delle righe.
+     * @return le tuple delle righe.
+     */
+    static Tuple[] seeds(Data data, int... rows) {
+        Tuple[] seeds = new Tuple[rows.length];
+        for (int c = 0; c < rows.length; c++)
+            seeds[c] = data.getItemSet(rows[c]);
+        return seeds;
+    }
+    
+    /**
+     * <p>Esegue le iterazioni di {@link ClusterSet} sulla tabella {@code data} a 
+     * partire da copie dei centroidi iniziali {@code seeds}.
+     * @param data tabella da modellare.
+     * @param seeds centroidi iniziali.
+     * @param pool pool per l'assegnazione in parallelo, null per l'esecuzione sequenziale.
+     * @param pruning vero per usare i limiti di Hamerly.
+     * @return l'insieme dei cluster dopo la convergenza.
+     */
+    static ClusterSet converge(Data data, Tuple[] seeds, ForkJoinPool pool, boolean pruning) {
+        Tuple[] centroids = new Tuple[seeds.length];
+        for (int c = 0; c < seeds.length; c++)
+            centroids[c] = seeds[c].copy();
+        ClusterSet set = new ClusterSet(seeds.length);
+        set.initializeCentroids(data, centroids);
+        set.setPruning(pruning);
+        set.converge(data, pool);
+        return set;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mining;
+
+import data.Data;
+import data.OutOfRangeSampleSize;
+import data.SampleData;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che le strategie di inizializzazione scelgano centroidi distinti
+ * in modo deterministico, a parità di seme, anche in parallelo.
+ * @author Andrea Mercanti
+ */
+public class SeedingStrategyTest {
+    
+    private static final SeedingStrategy[] STRATEGIES = {
+        new RandomSeeding(), new KMeansPlusPlusSeeding(), new KMeansParallelSeeding()
+    };
+    
+    @Test
+    public void sameSeedSameCentroids() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(10000, 5, 3, 17L);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (SeedingStrategy strategy : STRATEGIES) {
+                int[] centers = strategy.select(data, 8, 123L, null);
+                assertArrayEquals(centers, strategy.select(data, 8, 123L, null));
+                assertArrayEquals(centers, strategy.select(data, 8, 123L, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void centroidsAreDistinctRows() throws OutOfRangeSampleSize {
+        Data data = SampleData.playTennis();
+        for (SeedingStrategy strategy : STRATEGIES) {
+            for (long seed = 0; seed < 20; seed++) {
+                int[] centers = strategy.select(data, 6, seed, null);
+                assertEquals(6, centers.length);
+                for (int a = 0; a < centers.length; a++)
+                    for (int b = a + 1; b < centers.length; b++)
+                        assertTrue(data.getDistance(centers[a], centers[b]) > 0.0);
+            }
+        }
+    }
+    
+    @Test
+    public void plusPlusPrefersDistantRows() throws OutOfRangeSampleSize {
+        Data data = SampleData.random(2000, 1, 2, 29L);
+        double plusPlus = 0.0, random = 0.0;
+        for (long seed = 0; seed < 10; seed++) {
+            plusPlus += separation(data, new KMeansPlusPlusSeeding().select(data, 4, seed, null));
+            random += separation(data, new RandomSeeding().select(data, 4, seed, null));
+        }
+        assertTrue(plusPlus > random);
+    }
+    
+    @Test
+    public void tooManyClustersAreRejected() {
+        for (SeedingStrategy strategy : STRATEGIES) {
+            try {
+                strategy.select(SampleData.playTennis(), 15, 1L, null);
+                fail(strategy.getClass().getSimpleName());
+            } catch (OutOfRangeSampleSize e) {
+                //atteso
+            }
+        }
+    }
+    
+    private static double separation(Data data, int[] centers) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int a = 0; a < centers.length; a++)
+            for (int b = a + 1; b < centers.length; b++)
+                min = Math.min(min, data.getDistance(centers[a], centers[b]));
+        return min;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package server;
+
+import data.SampleData;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import mining.KMeansMiner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Verifica che il servizio assegni le tuple ricevute e che la richiesta di 
+ * ricaricamento accetti soltanto i modelli della cartella configurata.
+ * @author Andrea Mercanti
+ */
+public class ScoringServerTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File models;
+    private ScoringServer server;
+    
+    private static void save(File file, int k) throws Exception {
+        KMeansMiner miner = new KMeansMiner(k);
+        miner.setSeed(7L);
+        miner.kmeans(SampleData.playTennis());
+        miner.salva(file.getPath());
+    }
+    
+    private String post(String path, String body, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(expectedStatus, connection.getResponseCode());
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+                response.write(buffer, 0, read);
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+                response.write(buffer, 0, read);
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    @Before
+    public void start() throws Exception {
+        models = folder.newFolder("models");
+        save(new File(models, "first.dmp"), 2);
+        save(new File(models, "second.dmp"), 3);
+        save(folder.newFile("outside.dmp"), 4);
+        server = new ScoringServer(new File(models, "first.dmp").getPath(), 0);
+        server.start();
+    }
+    
+    @After
+    public void stop() {
+        server.stop();
+    }
+    
+    @Test
+    public void rowsAreScored() throws IOException {
+        String[] lines = post("/score", "Sunny,30.3,High,Weak,No\nRain,13.0,Normal,Strong,Yes\n", 200).split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            int cluster = Integer.parseInt(line.split("\t")[0]);
+            assertTrue(cluster == 0 || cluster == 1);
+        }
+    }
+    
+    @Test
+    public void modelsInTheDirectoryAreReloaded() throws IOException {
+        assertTrue(post("/reload", "second.dmp", 200).contains("(3 cluster)"));
+        assertTrue(post("/reload", new File(models, "first.dmp").getAbsolutePath(), 200).contains("(2 cluster)"));
+        post("/reload", "second.dmp", 200);
+        assertTrue(post("/reload", "", 200).contains("(2 cluster)"));
+    }
+    
+    @Test
+    public void pathsOutsideTheDirectoryAreRejected() throws IOException {
+        post("/reload", "../outside.dmp", 403);
+        post("/reload", new File(folder.getRoot(), "outside.dmp").getAbsolutePath(), 403);
+        post("/reload", models.getAbsolutePath() + "/../outside.dmp", 403);
+        assertTrue(post("/reload", "", 200).contains("(2 cluster)"));
+    }
+    
+    @Test
+    public void failedReloadKeepsTheCurrentModel() throws IOException {
+        post("/reload", "missing.dmp", 500);
+        String line = post("/score", "Sunny,30.3,High,Weak,No\n", 200).trim();
+        int cluster = Integer.parseInt(line.split("\t")[0]);
+        assertTrue(cluster == 0 || cluster == 1);
+    }
+    
+    @Test
+    public void rejectedRequestsAreNotTimed() throws IOException {
+        post("/score", "Sunny,30.3,High,Weak,No\n", 200);
+        post("/score", "Sunny,30.3,High\n", 400);
+        post("/score", "Sunny,caldo,High,Weak,No\n", 400);
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/score").openConnection();
+        assertEquals(405, connection.getResponseCode());
+        String stats = get("/stats");
+        assertTrue(stats, stats.contains("requests=1\n"));
+        assertTrue(stats, stats.contains("rows=1\n"));
+        assertTrue(stats, stats.contains("rejected=3\n"));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2018 Andrea Mercanti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package data;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>Versione di {@link CentroidKernel} che confronta una riga con più 
+ * centroidi alla volta per mezzo delle istruzioni vettoriali della CPU, 
+ * attraverso il modulo {@code jdk.incubator.vector}. I centroidi sono divisi 
+ * in blocchi lunghi quanto un vettore: per ogni blocco le distanze dei singoli
+ * attributi sono sommate in un registro, nello stesso ordine degli attributi 
+ * del nucleo scalare, così che i risultati coincidano bit per bit; i 
+ * centroidi che non riempiono un blocco intero sono confrontati dal nucleo 
+ * scalare. I codici dei valori discreti sono convertiti in double, che li 
+ * rappresenta esattamente, per poterli confrontare con la stessa specie di 
+ * vettore.
+ * <p>La classe si trova nella cartella {@code vector} ed è compilata solo se
+ * la JDK dispone del modulo; viene caricata per riflessione da 
+ * {@link CentroidKernel#create(Tuple[], Data)}.
+ * @author Andrea Mercanti
+ */
+final class VectorCentroidKernel implements DistanceKernel {
+    /**Specie di vettore di lunghezza più adatta alla CPU*/
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**Nucleo scalare con le colonne e i centroidi, usato per i centroidi fuori dai blocchi*/
+    private final CentroidKernel scalar;
+    /**Numero di centroidi contenuti in blocchi interi*/
+    private final int bound;
+    /**Codici dei valori dei centroidi convertiti in double: {@code codes[j][c]}
+    è il codice dell'attributo in posizione j del cluster c (null per gli 
+    attributi continui)*/
+    private final double[][] codes;
+
+    /**
+     * <p>Crea il nucleo per i centroidi {@code centroids}, che devono avere lo
+     * schema della tabella {@code data}.
+     * @param centroids centroidi dei cluster, nell'ordine dei cluster.
+     * @param data tabella di cui confrontare le righe con i centroidi.
+     */
+    VectorCentroidKernel(Tuple[] centroids, Data data) {
+        scalar = new CentroidKernel(centroids, data);
+        bound = SPECIES.loopBound(scalar.k);
+        codes = new double[scalar.codes.length][];
+        for (int j = 0; j < codes.length; j++) {
+            if (scalar.codes[j] != null) {
+                codes[j] = new double[scalar.k];
+                for (int c = 0; c < scalar.k; c++)
+                    codes[j][c] = scalar.codes[j][c];
+            }
+        }
+    }
+
+    @Override
+    public int getNumberOfClusters() {
+        return scalar.k;
+    }
+
+    @Override
+    public void distances(int row, double[] distances) {
+        double[][] centers = scalar.centers;
+        for (int c = 0; c < bound; c += SPECIES.length()) {
+            DoubleVector sum = DoubleVector.zero(SPECIES);
+            for (int j = 0; j < centers.length; j++) {
+                if (centers[j] != null) {
+                    DoubleVector center = DoubleVector.fromArray(SPECIES, centers[j], c);
+                    sum = sum.add(center.sub(scalar.continuousColumns[j][row]).abs());
+                } else {
+                    DoubleVector centerCodes = DoubleVector.fromArray(SPECIES, codes[j], c);
+                    sum = sum.add(1.0, centerCodes.compare(VectorOperators.NE, scalar.discreteColumns[j][row]));
+                }
+            }
+            sum.intoArray(distances, c);
+        }
+        for (int c = bound; c < scalar.k; c++)
+            distances[c] = scalar.distance(row, c);
+    }
+
+    @Override
+    public double distance(int row, int cluster) {
+        return scalar.distance(row, cluster);
+    }
+}